@@ -0,0 +1,124 @@
+package com.asusoftware.image_api.benchmark;
+
+import com.asusoftware.image_api.model.ImageType;
+import com.asusoftware.image_api.model.dto.ImageDto;
+import com.asusoftware.image_api.service.ImageService;
+import com.asusoftware.image_api.storage.StorageLayout;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Backup-ul și migrarea imaginilor unui owner prin HTTP: o singură arhivă ZIP (export și import) față de
+ * varianta fără arhivă, lista DTO-urilor urmată de câte un GET /images/ pentru fiecare fișier.
+ * Fiecare invocare e o operație completă, deci timpul se citește per owner, la numărul de imagini din parametru.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ArchiveBenchmark {
+
+    @Param({"100", "1000"})
+    private int images;
+
+    @Param({"51200"})
+    private int fileSize;
+
+    private Path workDir;
+    private ConfigurableApplicationContext context;
+    private ImageService imageService;
+    private StorageLayout storageLayout;
+    private HttpClient client;
+    private String baseUrl;
+    private UUID ownerId;
+    private List<String> imagePaths;
+    private byte[] archive;
+    private UUID importedOwnerId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        workDir = Files.createTempDirectory("image-api-archive");
+        context = BenchmarkApplication.start(workDir);
+        imageService = context.getBean(ImageService.class);
+        storageLayout = context.getBean(StorageLayout.class);
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port;
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        ownerId = UUID.randomUUID();
+        for (int created = 0; created < images; created += 100) {
+            imageService.uploadImages(BenchmarkApplication.images("archived", Math.min(100, images - created), fileSize), ownerId, ImageType.POST);
+        }
+        // URL-urile publice au portul din external-link.url; păstrăm doar calea /images/...
+        imagePaths = imageService.getImagesByOwnerId(ownerId, ImageType.POST).stream()
+                .map(ImageDto::getFileUrl)
+                .map(url -> url.substring(url.indexOf("/images/")))
+                .toList();
+        archive = client.send(HttpRequest.newBuilder(archiveUri(ownerId)).GET().build(),
+                HttpResponse.BodyHandlers.ofByteArray()).body();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        context.close();
+        BenchmarkApplication.deleteRecursively(workDir);
+    }
+
+    // Fiecare import creează un owner nou; îl ștergem după invocare, ca discul și tabela să rămână la fel
+    @TearDown(Level.Invocation)
+    public void removeImport() throws Exception {
+        if (importedOwnerId != null) {
+            imageService.deleteAllImagesAndFolder(importedOwnerId, "posts");
+            BenchmarkApplication.deleteRecursively(workDir.resolve("uploads").resolve(storageLayout.ownerDirectory(ImageType.POST, importedOwnerId)));
+            importedOwnerId = null;
+        }
+    }
+
+    @Benchmark
+    public long exportArchive() throws Exception {
+        return client.send(HttpRequest.newBuilder(archiveUri(ownerId)).GET().build(),
+                HttpResponse.BodyHandlers.ofInputStream()).body().transferTo(OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public long downloadFileByFile() throws Exception {
+        long bytes = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/images?ownerId=" + ownerId + "&type=POST")).GET().build(),
+                HttpResponse.BodyHandlers.ofByteArray()).body().length;
+        for (String path : imagePaths) {
+            bytes += client.send(HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build(),
+                    HttpResponse.BodyHandlers.ofByteArray()).body().length;
+        }
+        return bytes;
+    }
+
+    @Benchmark
+    public int importArchive() throws Exception {
+        importedOwnerId = UUID.randomUUID();
+        HttpResponse<Void> response = client.send(HttpRequest.newBuilder(archiveUri(importedOwnerId))
+                .header("Content-Type", "application/zip")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(archive))
+                .build(), HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 201) {
+            throw new IllegalStateException("Import failed with status " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+
+    private URI archiveUri(UUID owner) {
+        return URI.create(baseUrl + "/api/v1/images/" + owner + "/POST/archive");
+    }
+}
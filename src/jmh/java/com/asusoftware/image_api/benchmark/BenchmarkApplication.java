@@ -0,0 +1,61 @@
+package com.asusoftware.image_api.benchmark;
+
+import com.asusoftware.image_api.ImageApiApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Pornește aplicația pentru benchmark-uri pe H2 (mod PostgreSQL) și un director temporar, fără rețea și fără Eureka.
+ */
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(Path workDir, String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--eureka.client.enabled=false",
+                "--upload.dir=" + workDir.resolve("uploads") + "/",
+                "--image.variants.cache-dir=" + workDir.resolve("cache") + "/",
+                "--logging.level.root=WARN"));
+        args.addAll(List.of(extraArgs));
+        return SpringApplication.run(ImageApiApplication.class, args.toArray(String[]::new));
+    }
+
+    static List<MultipartFile> images(String namePrefix, int count, int sizeBytes) {
+        List<MultipartFile> images = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            images.add(new MockMultipartFile("images", namePrefix + " " + i + ".jpg", "image/jpeg", new byte[sizeBytes]));
+        }
+        return images;
+    }
+
+    static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
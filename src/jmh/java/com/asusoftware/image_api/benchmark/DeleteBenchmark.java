@@ -0,0 +1,63 @@
+package com.asusoftware.image_api.benchmark;
+
+import com.asusoftware.image_api.model.ImageType;
+import com.asusoftware.image_api.model.dto.ImageDto;
+import com.asusoftware.image_api.service.ImageService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ștergerea unei imagini și ștergerea tuturor imaginilor unui owner, prin ImageService (H2 + director temporar).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeleteBenchmark {
+
+    @Param({"1", "50"})
+    private int imagesPerOwner;
+
+    private Path workDir;
+    private ConfigurableApplicationContext context;
+    private ImageService imageService;
+    private UUID ownerId;
+    private List<ImageDto> uploaded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        workDir = Files.createTempDirectory("image-api-delete-bench");
+        context = BenchmarkApplication.start(workDir);
+        imageService = context.getBean(ImageService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        context.close();
+        BenchmarkApplication.deleteRecursively(workDir);
+    }
+
+    @Setup(Level.Invocation)
+    public void uploadImages() {
+        ownerId = UUID.randomUUID();
+        uploaded = imageService.uploadImages(BenchmarkApplication.images("delete", imagesPerOwner, 64 * 1024), ownerId, ImageType.POST);
+    }
+
+    @Benchmark
+    public void deleteImage() {
+        imageService.deleteImage(uploaded.get(0).getFileName(), "posts", ownerId);
+    }
+
+    @Benchmark
+    public void deleteAllImagesAndFolder() {
+        imageService.deleteAllImagesAndFolder(ownerId, "posts");
+    }
+}
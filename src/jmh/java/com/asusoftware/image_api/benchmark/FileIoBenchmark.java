@@ -0,0 +1,73 @@
+package com.asusoftware.image_api.benchmark;
+
+import com.asusoftware.image_api.service.StreamingFileWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scrierea unui fișier prin StreamingFileWriter (FileChannel + SHA-256 + verificarea dimensiunii)
+ * comparată cu Files.copy simplu, plus ștergerea, pe un director temporar.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileIoBenchmark {
+
+    @Param({"262144", "10485760"})
+    private int fileSize;
+
+    private Path workDir;
+    private byte[] content;
+    private Path written;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workDir = Files.createTempDirectory("image-api-io-bench");
+        content = new byte[fileSize];
+        new Random(42).nextBytes(content);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkApplication.deleteRecursively(workDir);
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteWritten() throws IOException {
+        if (written != null) {
+            Files.deleteIfExists(written);
+            written = null;
+        }
+    }
+
+    @Benchmark
+    public StreamingFileWriter.WrittenFile streamingWrite() throws IOException {
+        StreamingFileWriter.WrittenFile writtenFile =
+                StreamingFileWriter.write(new ByteArrayInputStream(content), workDir.resolve(UUID.randomUUID() + ".jpg"), Long.MAX_VALUE - 1);
+        written = writtenFile.path();
+        return writtenFile;
+    }
+
+    @Benchmark
+    public long plainCopy() throws IOException {
+        written = workDir.resolve(UUID.randomUUID() + ".jpg");
+        return Files.copy(new ByteArrayInputStream(content), written);
+    }
+
+    @Benchmark
+    public void writeAndDelete() throws IOException {
+        Path target = workDir.resolve(UUID.randomUUID() + ".jpg");
+        StreamingFileWriter.write(new ByteArrayInputStream(content), target, Long.MAX_VALUE - 1);
+        Files.delete(target);
+    }
+}
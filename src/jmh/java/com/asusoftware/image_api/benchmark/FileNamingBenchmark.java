@@ -0,0 +1,28 @@
+package com.asusoftware.image_api.benchmark;
+
+import com.asusoftware.image_api.service.ImageFileNames;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileNamingBenchmark {
+
+    @Param({"IMG_2024.jpg", "My Holiday Photo  (1).jpeg", "../../some/client/path/photo with spaces.png"})
+    private String originalFilename;
+
+    @Benchmark
+    public String sanitize() {
+        return ImageFileNames.sanitize(originalFilename);
+    }
+
+    @Benchmark
+    public String sanitizeAndMakeUnique() {
+        return ImageFileNames.unique(ImageFileNames.sanitize(originalFilename));
+    }
+}
@@ -0,0 +1,47 @@
+package com.asusoftware.image_api.benchmark;
+
+import com.asusoftware.image_api.model.Image;
+import com.asusoftware.image_api.model.ImageType;
+import com.asusoftware.image_api.model.dto.ImageDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ImageDtoMappingBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int imageCount;
+
+    private List<Image> images;
+
+    @Setup
+    public void setUp() {
+        UUID ownerId = UUID.randomUUID();
+        images = new ArrayList<>(imageCount);
+        for (int i = 0; i < imageCount; i++) {
+            Image image = new Image();
+            image.setId(UUID.randomUUID());
+            image.setFileName(UUID.randomUUID() + "_photo" + i + ".jpg");
+            image.setFilePath("/srv/uploads/posts/" + ownerId + "/" + image.getFileName());
+            image.setFileUrl("http://localhost:8085/images/posts/" + ownerId + "/" + image.getFileName());
+            image.setOwnerId(ownerId);
+            image.setType(ImageType.POST);
+            images.add(image);
+        }
+    }
+
+    @Benchmark
+    public List<ImageDto> toDtos() {
+        return images.stream().map(ImageDto::toDto).collect(Collectors.toList());
+    }
+}
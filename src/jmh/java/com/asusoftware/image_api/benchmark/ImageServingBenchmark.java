@@ -0,0 +1,108 @@
+package com.asusoftware.image_api.benchmark;
+
+import com.asusoftware.image_api.model.ImageType;
+import com.asusoftware.image_api.model.dto.ImageDto;
+import com.asusoftware.image_api.service.ImageService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test de încărcare pentru GET /images/**: cereri pe secundă și octeți transferați, cu 16 clienți simultani.
+ * sendfile=false pornește serverul cu pragul sendfile mai mare decât orice fișier, deci conținutul trece
+ * prin heap ca înainte; revalidate=true trimite If-None-Match cu ETag-ul primit și măsoară răspunsurile 304,
+ * față de descărcarea completă la fiecare cerere. Octeții din corpul răspunsurilor sunt numărați prin
+ * contoarele auxiliare, alături de 200 și 304.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(16)
+@Fork(1)
+public class ImageServingBenchmark {
+
+    @Param({"16384", "262144", "2097152"})
+    private int fileSize;
+
+    @Param({"true", "false"})
+    private boolean sendfile;
+
+    @Param({"false", "true"})
+    private boolean revalidate;
+
+    private Path workDir;
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private URI imageUri;
+    private String eTag;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Transfer {
+        public long bytes;
+        public long ok;
+        public long notModified;
+        public long failed;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        workDir = Files.createTempDirectory("image-api-serving");
+        context = BenchmarkApplication.start(workDir,
+                "--image.serving.sendfile-min-size=" + (sendfile ? "48KB" : "1GB"));
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        ImageDto image = context.getBean(ImageService.class)
+                .uploadImages(BenchmarkApplication.images("served", 1, fileSize), UUID.randomUUID(), ImageType.POST)
+                .get(0);
+        // URL-ul public are portul din external-link.url; păstrăm doar calea /images/...
+        String url = image.getFileUrl();
+        imageUri = URI.create("http://localhost:" + port + url.substring(url.indexOf("/images/")));
+        HttpResponse<Void> first = client.send(HttpRequest.newBuilder(imageUri).GET().build(), HttpResponse.BodyHandlers.discarding());
+        if (first.statusCode() != 200) {
+            throw new IllegalStateException("Image is not served: " + first.statusCode());
+        }
+        eTag = first.headers().firstValue("ETag").orElseThrow();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        context.close();
+        BenchmarkApplication.deleteRecursively(workDir);
+    }
+
+    @Benchmark
+    public int getImage(Transfer transfer) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(imageUri).GET();
+        if (revalidate) {
+            request.header("If-None-Match", eTag);
+        }
+        HttpResponse<InputStream> response = client.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream body = response.body()) {
+            transfer.bytes += body.transferTo(OutputStream.nullOutputStream());
+        }
+        int status = response.statusCode();
+        if (status == 200) {
+            transfer.ok++;
+        } else if (status == 304) {
+            transfer.notModified++;
+        } else {
+            transfer.failed++;
+        }
+        return status;
+    }
+}
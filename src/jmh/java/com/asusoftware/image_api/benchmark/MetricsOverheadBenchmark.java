@@ -0,0 +1,96 @@
+package com.asusoftware.image_api.benchmark;
+
+import com.asusoftware.image_api.service.ImageMetrics;
+import com.asusoftware.image_api.service.ImageMetrics.Phase;
+import com.asusoftware.image_api.service.StreamingFileWriter;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costul instrumentării din ImageMetrics: aceeași scriere + ștergere de fișier, o dată simplă și o dată
+ * cu timerele de operație și de fază, contorul de bytes și sumarul de fișiere, pe un registry Prometheus
+ * (cu histograme). Fișierul mic e cazul cel mai defavorabil; {@code instrumentationOnly} dă costul absolut.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+
+    @Param({"16384", "262144"})
+    private int fileSize;
+
+    private Path workDir;
+    private byte[] content;
+    private ImageMetrics imageMetrics;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workDir = Files.createTempDirectory("image-api-metrics-bench");
+        content = new byte[fileSize];
+        new Random(42).nextBytes(content);
+        imageMetrics = new ImageMetrics(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkApplication.deleteRecursively(workDir);
+    }
+
+    @Benchmark
+    public long writeAndDelete() throws IOException {
+        Path target = workDir.resolve(UUID.randomUUID() + ".jpg");
+        long size = StreamingFileWriter.write(new ByteArrayInputStream(content), target, Long.MAX_VALUE - 1).size();
+        Files.delete(target);
+        return size;
+    }
+
+    @Benchmark
+    public long writeAndDeleteInstrumented() {
+        return imageMetrics.record(ImageMetrics.UPLOAD, operation -> {
+            operation.files(1);
+            Path target = workDir.resolve(UUID.randomUUID() + ".jpg");
+            long size = operation.time(Phase.FILE_WRITE, () -> {
+                try {
+                    return StreamingFileWriter.write(new ByteArrayInputStream(content), target, Long.MAX_VALUE - 1).size();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            imageMetrics.bytesWritten(size);
+            operation.time(Phase.FILE_DELETE, () -> {
+                try {
+                    Files.delete(target);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            imageMetrics.bytesDeleted(size);
+            return size;
+        });
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int instrumentationOnly() {
+        return imageMetrics.record(ImageMetrics.UPLOAD, operation -> {
+            operation.files(1);
+            int written = operation.time(Phase.FILE_WRITE, () -> fileSize);
+            imageMetrics.bytesWritten(written);
+            operation.time(Phase.DB, () -> written);
+            return written;
+        });
+    }
+}
@@ -0,0 +1,88 @@
+package com.asusoftware.image_api.benchmark;
+
+import com.asusoftware.image_api.model.ImageType;
+import com.asusoftware.image_api.model.dto.ImageDto;
+import com.asusoftware.image_api.service.ImageService;
+import com.asusoftware.image_api.service.OwnerImagesCache;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costul upload-ului și al citirii listei unui owner în funcție de câte imagini are deja.
+ * După user-001 (o singură interogare indexată în loc de scanare + N căutări) timpii trebuie să
+ * crească doar cu mărimea răspunsului, nu cu câte o interogare per fișier existent.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OwnerImagesBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int existingImages;
+
+    private Path workDir;
+    private ConfigurableApplicationContext context;
+    private ImageService imageService;
+    private OwnerImagesCache ownerImagesCache;
+    private UUID ownerId;
+    private List<MultipartFile> upload;
+    private List<ImageDto> lastUpload;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        workDir = Files.createTempDirectory("image-api-bench");
+        context = BenchmarkApplication.start(workDir);
+        imageService = context.getBean(ImageService.class);
+        ownerImagesCache = context.getBean(OwnerImagesCache.class);
+        ownerId = UUID.randomUUID();
+        for (int created = 0; created < existingImages; created += 100) {
+            imageService.uploadImages(BenchmarkApplication.images("existing", Math.min(100, existingImages - created), 1024), ownerId, ImageType.POST);
+        }
+        upload = BenchmarkApplication.images("measured", 1, 256 * 1024);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        context.close();
+        BenchmarkApplication.deleteRecursively(workDir);
+    }
+
+    // Ținem numărul de imagini constant: fiecare upload măsurat este șters după invocare
+    @TearDown(Level.Invocation)
+    public void removeUploadedImage() {
+        if (lastUpload != null) {
+            lastUpload.stream()
+                    .map(ImageDto::getFileName)
+                    .filter(fileName -> fileName.endsWith("_measured_0.jpg"))
+                    .forEach(fileName -> imageService.deleteImage(fileName, "posts", ownerId));
+            lastUpload = null;
+        }
+    }
+
+    @Benchmark
+    public List<ImageDto> uploadOneImage() {
+        lastUpload = imageService.uploadImages(upload, ownerId, ImageType.POST);
+        return lastUpload;
+    }
+
+    @Benchmark
+    public List<ImageDto> getImagesByOwnerIdUncached() {
+        ownerImagesCache.evict(ownerId, ImageType.POST);
+        return imageService.getImagesByOwnerId(ownerId, ImageType.POST);
+    }
+
+    @Benchmark
+    public List<ImageDto> getImagesByOwnerIdCached() {
+        return imageService.getImagesByOwnerId(ownerId, ImageType.POST);
+    }
+}
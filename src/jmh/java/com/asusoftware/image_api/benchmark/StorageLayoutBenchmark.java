@@ -0,0 +1,66 @@
+package com.asusoftware.image_api.benchmark;
+
+import com.asusoftware.image_api.model.ImageType;
+import com.asusoftware.image_api.storage.FlatStorageLayout;
+import com.asusoftware.image_api.storage.ShardedStorageLayout;
+import com.asusoftware.image_api.storage.StorageLayout;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Crearea directorului unui owner nou și căutarea unui fișier la un owner existent, cu layout-ul plat
+ * și cu cel pe shard-uri, pe un disc pe care există deja {@code owners} directoare de owner.
+ * Pregătirea pentru un milion de owneri durează câteva minute; pentru o rulare rapidă: -p owners=100000.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StorageLayoutBenchmark {
+
+    @Param({"flat", "sharded"})
+    private String layout;
+
+    @Param({"1000000"})
+    private int owners;
+
+    private Path workDir;
+    private StorageLayout storageLayout;
+    private UUID[] existingOwners;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workDir = Files.createTempDirectory("image-api-layout-bench");
+        storageLayout = layout.equals("flat") ? new FlatStorageLayout() : new ShardedStorageLayout();
+        existingOwners = new UUID[owners];
+        for (int i = 0; i < owners; i++) {
+            existingOwners[i] = UUID.randomUUID();
+            Path ownerDir = Files.createDirectories(workDir.resolve(storageLayout.ownerDirectory(ImageType.POST, existingOwners[i])));
+            Files.createFile(ownerDir.resolve("image.jpg"));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkApplication.deleteRecursively(workDir);
+    }
+
+    @Benchmark
+    public Path createOwnerDirectory() throws IOException {
+        return Files.createDirectories(workDir.resolve(storageLayout.ownerDirectory(ImageType.POST, UUID.randomUUID())));
+    }
+
+    @Benchmark
+    public boolean lookupOwnerFile() {
+        UUID ownerId = existingOwners[ThreadLocalRandom.current().nextInt(existingOwners.length)];
+        return Files.exists(workDir.resolve(storageLayout.fileKey(ImageType.POST, ownerId, "image.jpg")));
+    }
+}
@@ -0,0 +1,97 @@
+package com.asusoftware.image_api.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test de încărcare pentru upload-ul în streaming: 64 de clienți simultani pe un server cu 16 thread-uri
+ * Tomcat și 4 conexiuni Hikari. Fără admitere, cererile se adună în coada Tomcat și latența crește cu
+ * suprasarcina; cu admitere (cel mult 8 upload-uri simultane) surplusul primește imediat 503/429, iar
+ * p99 (SampleTime) rămâne mărginit. Rezultatul cererii e numărat separat prin contoarele auxiliare.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(64)
+@Fork(1)
+public class UploadOverloadBenchmark {
+
+    @Param({"true", "false"})
+    private boolean admission;
+
+    @Param({"65536"})
+    private int fileSize;
+
+    private Path workDir;
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+    private byte[] content;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Outcomes {
+        public long accepted;
+        public long rejected;
+        public long failed;
+        private final UUID ownerId = UUID.randomUUID();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        workDir = Files.createTempDirectory("image-api-overload");
+        context = BenchmarkApplication.start(workDir,
+                "--server.tomcat.threads.max=16",
+                "--spring.datasource.hikari.maximum-pool-size=4",
+                "--upload.admission.enabled=" + admission,
+                "--upload.admission.max-concurrent=8",
+                "--upload.admission.max-concurrent-per-owner=2",
+                "--upload.admission.max-bytes-per-second=0",
+                "--upload.admission.max-bytes-per-second-per-owner=0");
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port + "/api/v1/images/";
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        content = new byte[fileSize];
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        context.close();
+        BenchmarkApplication.deleteRecursively(workDir);
+    }
+
+    // Fișierele scrise sunt șterse după fiecare iterație, ca testul să nu umple discul
+    @TearDown(Level.Iteration)
+    public void removeUploads() throws Exception {
+        BenchmarkApplication.deleteRecursively(workDir.resolve("uploads"));
+    }
+
+    @Benchmark
+    public int uploadUnderOverload(Outcomes outcomes) throws Exception {
+        HttpResponse<Void> response = client.send(HttpRequest.newBuilder(
+                        URI.create(baseUrl + outcomes.ownerId + "/POST/stream?filename=load.jpg"))
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(content))
+                .build(), HttpResponse.BodyHandlers.discarding());
+        int status = response.statusCode();
+        if (status == 201) {
+            outcomes.accepted++;
+        } else if (status == 429 || status == 503) {
+            outcomes.rejected++;
+        } else {
+            outcomes.failed++;
+        }
+        return status;
+    }
+}
@@ -0,0 +1,10 @@
+package com.asusoftware.image_api.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+// Cache-urile (Caffeine) sunt configurate din application.yml; statisticile apar în actuator la /metrics/cache.*
+@Configuration
+@EnableCaching
+public class CacheConfig {
+}
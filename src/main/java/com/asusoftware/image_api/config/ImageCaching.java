@@ -0,0 +1,33 @@
+package com.asusoftware.image_api.config;
+
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.util.DigestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Politica de cache HTTP pentru imaginile servite. Numele fișierelor sunt unice și conținutul
+ * nu se mai schimbă după upload, deci răspunsurile pot fi păstrate un an fără revalidare.
+ */
+public final class ImageCaching {
+
+    public static final CacheControl IMMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
+
+    private ImageCaching() {
+    }
+
+    /**
+     * ETag puternic, derivat din calea, dimensiunea și data modificării fișierului.
+     */
+    public static String etag(Resource resource) {
+        try {
+            String identity = resource.getURI() + ":" + resource.contentLength() + ":" + resource.lastModified();
+            return '"' + DigestUtils.md5DigestAsHex(identity.getBytes(StandardCharsets.UTF_8)) + '"';
+        } catch (IOException e) {
+            return null;  // Fără ETag, rămâne validarea prin Last-Modified
+        }
+    }
+}
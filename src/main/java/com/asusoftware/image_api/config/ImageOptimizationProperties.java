@@ -0,0 +1,31 @@
+package com.asusoftware.image_api.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Optimizarea la upload: orientare după EXIF, eliminarea metadatelor, limitarea dimensiunilor și recodare.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "image.optimization")
+public class ImageOptimizationProperties {
+
+    private boolean enabled = false;
+
+    // Latura cea mai lungă a imaginii păstrate, în pixeli
+    private int maxDimension = 2560;
+
+    // Calitatea JPEG la recodare, între 0 și 1
+    private float quality = 0.82f;
+
+    // Dacă e true, originalul se păstrează lângă imaginea optimizată, în subdirectorul originals/
+    private boolean keepOriginal = false;
+
+    // Thread-urile dedicate recodării; limitează CPU-ul folosit de optimizare
+    private int threads = 2;
+
+    // Câte optimizări pot aștepta un thread liber; peste această limită imaginile se păstrează neoptimizate
+    private int queueCapacity = 100;
+}
@@ -0,0 +1,43 @@
+package com.asusoftware.image_api.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Configurația variantelor redimensionate (thumb, medium, large) și a cache-ului lor de pe disc.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "image.variants")
+public class ImageVariantProperties {
+
+    // Numele variantei -> lățimea maximă în pixeli
+    private Map<String, Integer> sizes = new LinkedHashMap<>(Map.of("thumb", 200, "medium", 640, "large", 1280));
+
+    // Directorul în care se păstrează variantele generate
+    private String cacheDir = "cache/variants/";
+
+    // Dimensiunea maximă a cache-ului; la depășire se șterg variantele folosite cel mai demult
+    private DataSize cacheMaxSize = DataSize.ofGigabytes(1);
+
+    // Dacă e true, variantele se generează imediat după upload, nu la prima cerere
+    private boolean eager = false;
+
+    // Imaginile cu mai mulți pixeli nu se redimensionează (se servește originalul)
+    private long maxSourcePixels = 50_000_000;
+
+    // Generări simultane; o cerere care nu prinde loc în generationWait primește 503
+    private int maxConcurrentGenerations = 4;
+    private Duration generationWait = Duration.ofSeconds(2);
+
+    // Pool-ul generării eager și coada lui; ce nu încape în coadă se generează la prima cerere
+    private int eagerThreads = 1;
+    private int eagerQueueCapacity = 1000;
+}
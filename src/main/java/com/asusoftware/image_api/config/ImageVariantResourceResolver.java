@@ -0,0 +1,49 @@
+package com.asusoftware.image_api.config;
+
+import com.asusoftware.image_api.exception.InvalidRequestException;
+import com.asusoftware.image_api.service.ImageVariantService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.web.servlet.resource.AbstractResourceResolver;
+import org.springframework.web.servlet.resource.ResourceResolverChain;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Pentru cererile de forma /images/{cale}?w=320 întoarce varianta redimensionată în locul originalului.
+ * Fiind rezolvată de același handler, varianta primește aceleași antete de cache, 304, Range și sendfile.
+ */
+class ImageVariantResourceResolver extends AbstractResourceResolver {
+
+    private static final String WIDTH_PARAMETER = "w";
+
+    private final ImageVariantService imageVariantService;
+
+    ImageVariantResourceResolver(ImageVariantService imageVariantService) {
+        this.imageVariantService = imageVariantService;
+    }
+
+    @Override
+    protected Resource resolveResourceInternal(HttpServletRequest request, String requestPath,
+                                               List<? extends Resource> locations, ResourceResolverChain chain) {
+        String width = request != null ? request.getParameter(WIDTH_PARAMETER) : null;
+        if (width == null) {
+            return chain.resolveResource(request, requestPath, locations);
+        }
+        Optional<Path> variant;
+        try {
+            variant = imageVariantService.getVariant(requestPath, Integer.parseInt(width));
+        } catch (NumberFormatException e) {
+            throw new InvalidRequestException("Width must be a positive number.");
+        }
+        return variant.isPresent() ? new FileSystemResource(variant.get()) : chain.resolveResource(request, requestPath, locations);
+    }
+
+    @Override
+    protected String resolveUrlPathInternal(String resourceUrlPath, List<? extends Resource> locations, ResourceResolverChain chain) {
+        return chain.resolveUrlPath(resourceUrlPath, locations);
+    }
+}
@@ -0,0 +1,42 @@
+package com.asusoftware.image_api.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationInitializer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Controller;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+
+/**
+ * Excepțiile de la spring.main.lazy-initialization (profilul fast-start). Rămân create la pornire:
+ * controller-ele și tot ce folosesc, ca primul val de upload-uri după scale-out să nu plătească
+ * inițializarea; bean-urile cu metode @Scheduled sau @EventListener, pe care un bean lazy nu le-ar
+ * înregistra niciodată; migrările Flyway. Restul (actuator, metrici, auto-configurări nefolosite) se
+ * creează la prima utilizare.
+ */
+@Configuration(proxyBeanMethods = false)
+public class LazyInitializationConfig {
+
+    @Bean
+    static LazyInitializationExcludeFilter eagerBeans() {
+        return (beanName, beanDefinition, beanType) -> beanType != null
+                && (FlywayMigrationInitializer.class.isAssignableFrom(beanType)
+                || AnnotatedElementUtils.hasAnnotation(beanType, Controller.class)
+                || hasCallbacks(beanType));
+    }
+
+    private static boolean hasCallbacks(Class<?> beanType) {
+        for (Method method : ReflectionUtils.getUniqueDeclaredMethods(beanType, ReflectionUtils.USER_DECLARED_METHODS)) {
+            if (AnnotatedElementUtils.hasAnnotation(method, Scheduled.class)
+                    || AnnotatedElementUtils.hasAnnotation(method, EventListener.class)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
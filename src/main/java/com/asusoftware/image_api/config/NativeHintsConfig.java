@@ -0,0 +1,53 @@
+package com.asusoftware.image_api.config;
+
+import com.asusoftware.image_api.model.Image;
+import com.asusoftware.image_api.model.ImageBlob;
+import com.asusoftware.image_api.model.ReclaimTask;
+import com.asusoftware.image_api.model.ReconciliationCheckpoint;
+import com.asusoftware.image_api.model.UploadSession;
+import com.asusoftware.image_api.model.dto.BatchImagesRequest;
+import com.asusoftware.image_api.model.dto.ImageArchiveManifest;
+import com.asusoftware.image_api.model.dto.ImageDto;
+import com.asusoftware.image_api.model.dto.UpdateImagesRequest;
+import com.asusoftware.image_api.model.dto.UploadSessionDto;
+import com.asusoftware.image_api.service.StorageMigrationService;
+import com.asusoftware.image_api.service.StorageReconciliationService;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+import java.util.List;
+
+/**
+ * Hint-uri pentru imaginea nativă (profilul Maven native), pentru ce analiza AOT nu poate deduce singură:
+ * DTO-urile (de ex. manifestul arhivelor, (de)serializat direct prin ObjectMapper) și entitățile, ale căror
+ * getter-e și setter-e generate de Lombok sunt folosite prin reflecție de Jackson și Hibernate.
+ */
+@Configuration(proxyBeanMethods = false)
+@ImportRuntimeHints(NativeHintsConfig.ImageApiRuntimeHints.class)
+public class NativeHintsConfig {
+
+    static class ImageApiRuntimeHints implements RuntimeHintsRegistrar {
+
+        private final BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            // Câmpuri, constructori și accesorii, inclusiv pentru tipurile referite (ImageArchiveManifest.Entry)
+            bindingRegistrar.registerReflectionHints(hints.reflection(), ImageDto.class, UploadSessionDto.class,
+                    BatchImagesRequest.class, UpdateImagesRequest.class, ImageArchiveManifest.class,
+                    StorageMigrationService.Status.class, StorageReconciliationService.Status.class);
+
+            for (Class<?> entity : List.of(Image.class, ImageBlob.class, ReclaimTask.class, UploadSession.class,
+                    ReconciliationCheckpoint.class)) {
+                hints.reflection().registerType(entity, MemberCategory.DECLARED_FIELDS,
+                        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_DECLARED_METHODS);
+            }
+
+            hints.resources().registerPattern("db/migration/*.sql");
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.asusoftware.image_api.config;
+
+import com.asusoftware.image_api.service.ImageOptimizer;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.io.Resource;
+import org.springframework.web.servlet.resource.AbstractResourceResolver;
+import org.springframework.web.servlet.resource.ResourceResolverChain;
+
+import java.util.List;
+
+/**
+ * Primul în lanț: originalele păstrate la optimizare (directoarele originals/) stau în upload.dir lângă
+ * imaginile publice, dar nu se servesc niciodată, nici direct, nici ca variantă (răspunsul e 404).
+ */
+class PrivateOriginalsResourceResolver extends AbstractResourceResolver {
+
+    @Override
+    protected Resource resolveResourceInternal(HttpServletRequest request, String requestPath,
+                                               List<? extends Resource> locations, ResourceResolverChain chain) {
+        return ImageOptimizer.isOriginalKey(requestPath) ? null : chain.resolveResource(request, requestPath, locations);
+    }
+
+    @Override
+    protected String resolveUrlPathInternal(String resourceUrlPath, List<? extends Resource> locations, ResourceResolverChain chain) {
+        return ImageOptimizer.isOriginalKey(resourceUrlPath) ? null : chain.resolveUrlPath(resourceUrlPath, locations);
+    }
+}
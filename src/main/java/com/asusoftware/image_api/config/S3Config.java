@@ -0,0 +1,83 @@
+package com.asusoftware.image_api.config;
+
+import com.asusoftware.image_api.service.OwnerImagesCache;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Clienții S3 pentru upload.backend=s3. Credențialele vin din lanțul implicit al SDK-ului
+ * (variabile de mediu AWS_*, profil, rol IAM), nu din configurația aplicației.
+ */
+@Configuration
+@ConditionalOnProperty(name = "upload.backend", havingValue = "s3")
+public class S3Config {
+
+    @Bean
+    public S3Client s3Client(S3StorageProperties properties) {
+        S3ClientBuilder builder = S3Client.builder()
+                .region(Region.of(properties.getRegion()))
+                .forcePathStyle(properties.isPathStyleAccess());
+        if (StringUtils.hasText(properties.getEndpoint())) {
+            builder.endpointOverride(URI.create(properties.getEndpoint()));
+        }
+        return builder.build();
+    }
+
+    // Semnarea URL-urilor se face local, fără cereri către S3
+    @Bean
+    public S3Presigner s3Presigner(S3StorageProperties properties) {
+        S3Presigner.Builder builder = S3Presigner.builder()
+                .region(Region.of(properties.getRegion()))
+                .serviceConfiguration(S3Configuration.builder()
+                        .pathStyleAccessEnabled(properties.isPathStyleAccess())
+                        .build());
+        if (StringUtils.hasText(properties.getEndpoint())) {
+            builder.endpointOverride(URI.create(properties.getEndpoint()));
+        }
+        return builder.build();
+    }
+
+    /**
+     * {@link OwnerImagesCache#CACHE_NAME} e un cache local: o modificare îl invalidează doar pe instanța care a
+     * făcut-o, nu și pe celelalte instanțe din spatele aceluiași bucket. Cu S3, expireAfterWrite din
+     * spring.cache.caffeine.spec se plafonează la upload.s3.owner-images-cache-ttl, cât poate dura o listă depășită.
+     */
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> ownerImagesCacheTtlCap(S3StorageProperties properties,
+                                                                              CacheProperties cacheProperties) {
+        return cacheManager -> cacheManager.setCacheSpecification(
+                capExpireAfterWrite(cacheProperties.getCaffeine().getSpec(), properties.getOwnerImagesCacheTtl()));
+    }
+
+    static String capExpireAfterWrite(String spec, Duration cap) {
+        List<String> entries = new ArrayList<>();
+        Duration ttl = null;
+        for (String entry : StringUtils.commaDelimitedListToStringArray(spec)) {
+            String trimmed = entry.trim();
+            if (trimmed.startsWith("expireAfterWrite=")) {
+                ttl = DurationStyle.SIMPLE.parse(trimmed.substring("expireAfterWrite=".length()));
+            } else if (!trimmed.isEmpty()) {
+                entries.add(trimmed);
+            }
+        }
+        Duration capped = ttl == null || ttl.compareTo(cap) > 0 ? cap : ttl;
+        entries.add("expireAfterWrite=" + capped.toSeconds() + "s");
+        return String.join(",", entries);
+    }
+}
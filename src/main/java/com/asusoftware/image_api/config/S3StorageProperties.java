@@ -0,0 +1,40 @@
+package com.asusoftware.image_api.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Configurația stocării S3 (sau compatibile S3: MinIO, Ceph, R2), folosită când upload.backend=s3.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "upload.s3")
+public class S3StorageProperties {
+
+    private String bucket;
+
+    private String region = "us-east-1";
+
+    // Endpoint explicit pentru serviciile compatibile S3; gol înseamnă AWS
+    private String endpoint;
+
+    // Adrese de forma endpoint/bucket/cheie, necesare pentru majoritatea serviciilor compatibile S3
+    private boolean pathStyleAccess = false;
+
+    // Fișierele mai mari se încarcă multipart; S3 cere cel puțin 5MB pentru toate părțile în afară de ultima
+    private DataSize partSize = DataSize.ofMegabytes(5);
+
+    // Câte părți se trimit simultan, pe toate încărcările; tot atâtea buffere de partSize pot fi în memorie
+    private int uploadConcurrency = 8;
+
+    // Cât timp rămâne valid un URL presemnat spre care e redirecționat clientul
+    private Duration presignTtl = Duration.ofMinutes(10);
+
+    // Plafonul TTL-ului pentru cache-ul imagesByOwner: cache-ul e local fiecărei instanțe, iar celelalte
+    // instanțe văd o modificare abia după expirarea intrării lor
+    private Duration ownerImagesCacheTtl = Duration.ofSeconds(30);
+}
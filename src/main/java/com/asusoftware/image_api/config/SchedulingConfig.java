@@ -0,0 +1,10 @@
+package com.asusoftware.image_api.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Job-urile periodice (de ex. FileReclaimer) își iau intervalele din application.yml
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
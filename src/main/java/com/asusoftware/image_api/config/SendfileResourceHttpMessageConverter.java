@@ -0,0 +1,54 @@
+package com.asusoftware.image_api.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.ResourceHttpMessageConverter;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Pentru fișierele mari lasă Tomcat să trimită corpul răspunsului prin sendfile (zero-copy),
+ * în loc să copiem conținutul prin heap. Dacă sendfile nu e disponibil, se folosește copierea obișnuită.
+ */
+class SendfileResourceHttpMessageConverter extends ResourceHttpMessageConverter {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final long minSize;
+
+    SendfileResourceHttpMessageConverter(long minSize) {
+        this.minSize = minSize;
+    }
+
+    @Override
+    protected void writeContent(Resource resource, HttpOutputMessage outputMessage) throws IOException {
+        HttpServletRequest request = currentRequest();
+        if (request != null && outputMessage instanceof ServletServerHttpResponse
+                && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT)) && resource.isFile()) {
+            File file = resource.getFile();
+            long length = file.length();
+            if (length >= minSize) {
+                // Tomcat trimite fișierul după ce răspunsul este comis; Content-Length e deja setat
+                request.setAttribute(SENDFILE_FILENAME, file.getAbsolutePath());
+                request.setAttribute(SENDFILE_START, 0L);
+                request.setAttribute(SENDFILE_END, length);
+                return;
+            }
+        }
+        super.writeContent(resource, outputMessage);
+    }
+
+    private static HttpServletRequest currentRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes servletAttributes ? servletAttributes.getRequest() : null;
+    }
+}
@@ -0,0 +1,26 @@
+package com.asusoftware.image_api.config;
+
+import com.asusoftware.image_api.storage.FlatStorageLayout;
+import com.asusoftware.image_api.storage.ShardedStorageLayout;
+import com.asusoftware.image_api.storage.StorageLayout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class StorageConfig {
+
+    /**
+     * Layout-ul folosit pentru fișierele noi. Rândurile existente își păstrează calea până la migrare
+     * (vezi StorageMigrationService), deci schimbarea layout-ului nu afectează imaginile deja încărcate.
+     * Implicit flat, ca o actualizare să nu schimbe layout-ul de pe disc; sharded se alege explicit, odată cu migrarea.
+     */
+    @Bean
+    public StorageLayout storageLayout(@Value("${upload.layout}") String layout) {
+        return switch (layout) {
+            case "flat" -> new FlatStorageLayout();
+            case "sharded" -> new ShardedStorageLayout();
+            default -> throw new IllegalStateException("Unknown upload.layout: " + layout + " (expected flat or sharded)");
+        };
+    }
+}
@@ -0,0 +1,167 @@
+package com.asusoftware.image_api.config;
+
+import com.asusoftware.image_api.exception.UploadRejectedException;
+import com.asusoftware.image_api.service.UploadAdmission;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Controlul de admitere pentru cererile care scriu imagini (upload, update, upload reluabil, import),
+ * aplicat înainte ca Spring să citească sau să parseze corpul cererii. Owner-ul se ia din URL: primul
+ * segment de după /api/v1/images sau parametrul ownerId din query string. Limitele per owner acoperă
+ * transferul doar când owner-ul reiese de aici: upload-ul în streaming, cel reluabil, importul și cererile
+ * multipart care trimit și ?ownerId= (POST /api/v1/images?ownerId=..., PUT /api/v1/images?ownerId=...).
+ * Când owner-ul vine doar în corp, controller-ul leagă permisiunea din atributul {@link #PERMIT_ATTRIBUTE}
+ * de el după ce Spring a parsat tot corpul multipart; până atunci se aplică doar limitele globale, iar cele
+ * per owner protejează doar optimizarea și scrierea în DB.
+ */
+@Component
+public class UploadAdmissionFilter extends OncePerRequestFilter {
+
+    public static final String PERMIT_ATTRIBUTE = "com.asusoftware.image_api.config.UploadAdmissionFilter.permit";
+
+    private static final String IMAGES_API = "/api/v1/images";
+    private static final Set<String> WRITE_METHODS = Set.of(HttpMethod.POST.name(), HttpMethod.PUT.name(), HttpMethod.PATCH.name());
+    // Cereri POST care doar citesc
+    private static final Set<String> READ_ONLY_PATHS = Set.of(IMAGES_API + "/batch");
+
+    @Autowired
+    private UploadAdmission uploadAdmission;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !WRITE_METHODS.contains(request.getMethod())
+                || !(path.equals(IMAGES_API) || path.startsWith(IMAGES_API + "/"))
+                || READ_ONLY_PATHS.contains(path);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long declaredBytes = request.getContentLengthLong();
+        UploadAdmission.Permit permit;
+        try {
+            permit = uploadAdmission.admit(ownerId(request), declaredBytes);
+        } catch (UploadRejectedException e) {
+            response.setStatus(e.getStatus().value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()));
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.getWriter().write(e.getMessage());
+            return;
+        }
+
+        request.setAttribute(PERMIT_ATTRIBUTE, permit);
+        try {
+            if (declaredBytes >= 0) {
+                filterChain.doFilter(request, response);
+            } else {
+                // Corp fără Content-Length: debitul se contabilizează după bytes-ii citiți efectiv
+                CountingRequest counting = new CountingRequest(request);
+                try {
+                    filterChain.doFilter(counting, response);
+                } finally {
+                    permit.charge(counting.bytesRead);
+                }
+            }
+        } finally {
+            permit.close();
+        }
+    }
+
+    private static UUID ownerId(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String[] segments = path.substring(IMAGES_API.length()).split("/");
+        UUID fromPath = segments.length > 1 ? parseUuid(segments[1]) : null;
+        if (fromPath != null) {
+            return fromPath;
+        }
+        // Doar query string-ul: getParameter() ar putea citi un corp form-urlencoded înainte de admitere
+        if (request.getQueryString() == null) {
+            return null;
+        }
+        return parseUuid(UriComponentsBuilder.newInstance().query(request.getQueryString()).build()
+                .getQueryParams().getFirst("ownerId"));
+    }
+
+    private static UUID parseUuid(String value) {
+        if (value == null || value.length() != 36) {
+            return null;
+        }
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static final class CountingRequest extends HttpServletRequestWrapper {
+
+        private long bytesRead;
+        private ServletInputStream inputStream;
+
+        private CountingRequest(HttpServletRequest request) {
+            super(request);
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (inputStream == null) {
+                ServletInputStream delegate = super.getInputStream();
+                inputStream = new ServletInputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        int b = delegate.read();
+                        if (b >= 0) {
+                            bytesRead++;
+                        }
+                        return b;
+                    }
+
+                    @Override
+                    public int read(byte[] buffer, int offset, int length) throws IOException {
+                        int read = delegate.read(buffer, offset, length);
+                        if (read > 0) {
+                            bytesRead += read;
+                        }
+                        return read;
+                    }
+
+                    @Override
+                    public boolean isFinished() {
+                        return delegate.isFinished();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return delegate.isReady();
+                    }
+
+                    @Override
+                    public void setReadListener(ReadListener readListener) {
+                        delegate.setReadListener(readListener);
+                    }
+                };
+            }
+            return inputStream;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.asusoftware.image_api.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Limitele de admitere pentru cererile care scriu imagini. Peste limitele globale răspunsul e 503,
+ * peste cele ale unui owner 429, în ambele cazuri cu Retry-After. O valoare 0 dezactivează limita.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "upload.admission")
+public class UploadAdmissionProperties {
+
+    private boolean enabled = true;
+
+    // Cereri de scriere procesate simultan pe această instanță
+    private int maxConcurrent = 64;
+
+    // Cereri de scriere simultane ale aceluiași owner
+    private int maxConcurrentPerOwner = 4;
+
+    // Debitul primit pe toate cererile, respectiv pentru un singur owner
+    private DataSize maxBytesPerSecond = DataSize.ofMegabytes(200);
+    private DataSize maxBytesPerSecondPerOwner = DataSize.ofMegabytes(20);
+
+    // Cât trafic peste debit se acceptă într-o rafală, exprimat ca durată la debitul configurat
+    private Duration burst = Duration.ofSeconds(2);
+
+    // Sub acest spațiu liber în stocare, upload-urile sunt refuzate înainte de a umple discul
+    private DataSize minFreeSpace = DataSize.ofGigabytes(1);
+}
@@ -0,0 +1,34 @@
+package com.asusoftware.image_api.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class UploadExecutorConfig {
+
+    /**
+     * Executorul pe care se scriu în paralel fișierele unei cereri de upload.
+     * Pe JDK 21 cu spring.threads.virtual.enabled folosim thread-uri virtuale; altfel un pool fix.
+     */
+    @Bean(name = "uploadExecutor")
+    public AsyncTaskExecutor uploadExecutor(Environment environment,
+                                            @Value("${upload.executor.max-threads}") int maxThreads) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("upload-");
+            executor.setVirtualThreads(true);
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("upload-");
+        executor.setCorePoolSize(maxThreads);
+        executor.setMaxPoolSize(maxThreads);
+        return executor;
+    }
+}
@@ -1,16 +1,54 @@
 package com.asusoftware.image_api.config;
 
+import com.asusoftware.image_api.service.ImageVariantService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
-import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.servlet.handler.SimpleUrlHandlerMapping;
+import org.springframework.web.servlet.resource.PathResourceResolver;
+import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
 
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Servirea din upload.dir, doar pentru upload.backend=local; cu S3, /images/** e tratat de ImageRedirectController.
+ */
 @Configuration
-public class WebConfig implements WebMvcConfigurer {
+@ConditionalOnProperty(name = "upload.backend", havingValue = "local", matchIfMissing = true)
+public class WebConfig {
+
+    @Value("${upload.dir}")
+    private String uploadDir;
+
+    /**
+     * Servește imaginile din upload.dir la /images/** cu ETag puternic, Last-Modified,
+     * Cache-Control imutabil, răspunsuri 304 și cereri Range. Fișierele mari pleacă prin sendfile.
+     * Cu parametrul ?w= se servește o variantă redimensionată (vezi ImageVariantResourceResolver).
+     * Originalele păstrate la optimizare nu se servesc (PrivateOriginalsResourceResolver).
+     */
+    @Bean
+    public ResourceHttpRequestHandler imageResourceHandler(@Value("${image.serving.sendfile-min-size}") DataSize sendfileMinSize,
+                                                           ImageVariantService imageVariantService) {
+        ResourceHttpRequestHandler handler = new ResourceHttpRequestHandler();
+        handler.setLocations(List.of(new FileSystemResource(Paths.get(uploadDir).toAbsolutePath().normalize() + "/")));
+        handler.setResourceResolvers(List.of(new PrivateOriginalsResourceResolver(),
+                new ImageVariantResourceResolver(imageVariantService), new PathResourceResolver()));
+        handler.setCacheControl(ImageCaching.IMMUTABLE);
+        handler.setUseLastModified(true);
+        handler.setEtagGenerator(ImageCaching::etag);
+        handler.setResourceHttpMessageConverter(new SendfileResourceHttpMessageConverter(sendfileMinSize.toBytes()));
+        return handler;
+    }
 
-    @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        // Serving images from a directory located at /var/www/images/
-        registry.addResourceHandler("/images/**")
-                .addResourceLocations("file:uploads/");
+    // Ordinea e înaintea handler-ului implicit de resurse, după controller-e
+    @Bean
+    public SimpleUrlHandlerMapping imageResourceHandlerMapping(ResourceHttpRequestHandler imageResourceHandler) {
+        return new SimpleUrlHandlerMapping(Map.of("/images/**", imageResourceHandler), Ordered.LOWEST_PRECEDENCE - 2);
     }
-}
\ No newline at end of file
+}
@@ -1,21 +1,38 @@
 package com.asusoftware.image_api.controller;
 
+import com.asusoftware.image_api.config.UploadAdmissionFilter;
+import com.asusoftware.image_api.exception.InvalidRequestException;
 import com.asusoftware.image_api.model.Image;
 import com.asusoftware.image_api.model.ImageType;
+import com.asusoftware.image_api.model.dto.BatchImagesRequest;
 import com.asusoftware.image_api.model.dto.ImageDto;
 import com.asusoftware.image_api.model.dto.UpdateImagesRequest;
+import com.asusoftware.image_api.service.ImageArchiveService;
 import com.asusoftware.image_api.service.ImageService;
+import com.asusoftware.image_api.service.UploadAdmission;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -26,22 +43,50 @@ public class ImageController {
     @Autowired
     private ImageService imageService;
 
+    @Autowired
+    private ImageArchiveService imageArchiveService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${image.batch.max-owners}")
+    private int batchMaxOwners;
+
+    @Value("${upload.archive.export-timeout}")
+    private Duration exportTimeout;
+
     // Endpoint pentru încărcarea imaginilor
     @PostMapping
     public ResponseEntity<List<ImageDto>> uploadImages(
             @RequestParam("images") List<MultipartFile> images,
             @RequestParam("ownerId") UUID ownerId,
-            @RequestParam("type") ImageType type) {
+            @RequestParam("type") ImageType type,
+            @RequestAttribute(value = UploadAdmissionFilter.PERMIT_ATTRIBUTE, required = false) UploadAdmission.Permit permit) {
+        bindOwner(permit, ownerId);
         List<ImageDto> uploadedImages = imageService.uploadImages(images, ownerId, type);
         return ResponseEntity.status(HttpStatus.CREATED).body(uploadedImages);
     }
 
+    // Endpoint pentru încărcarea unei imagini în streaming (corpul cererii conține direct fișierul)
+    @PutMapping("/{ownerId}/{type}/stream")
+    public ResponseEntity<ImageDto> uploadImageStream(
+            @PathVariable UUID ownerId,
+            @PathVariable ImageType type,
+            @RequestParam("filename") String filename,
+            @RequestHeader(value = "X-Content-SHA256", required = false) String contentSha256,
+            HttpServletRequest request) throws IOException {
+        ImageDto uploadedImage = imageService.uploadImageStream(request.getInputStream(), filename, ownerId, type, contentSha256);
+        return ResponseEntity.status(HttpStatus.CREATED).body(uploadedImage);
+    }
+
     // Endpoint pentru actualizarea imaginilor (PUT)
     @PutMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<List<ImageDto>> updateImages(
             @RequestPart("data") UpdateImagesRequest updateImagesRequest,  // DTO trimis ca JSON
-            @RequestPart(value = "newImages", required = false) List<MultipartFile> newImages) {
+            @RequestPart(value = "newImages", required = false) List<MultipartFile> newImages,
+            @RequestAttribute(value = UploadAdmissionFilter.PERMIT_ATTRIBUTE, required = false) UploadAdmission.Permit permit) {
 
+        bindOwner(permit, updateImagesRequest.getOwnerId());
         List<ImageDto> updatedImages = imageService.updateImagesByOwnerId(
                 updateImagesRequest.getOwnerId(),
                 updateImagesRequest.getExistingImages(),
@@ -61,6 +106,62 @@ public class ImageController {
         return ResponseEntity.ok(images);
     }
 
+    // Endpoint pentru obținerea imaginilor mai multor owneri într-o singură cerere (ex. o pagină de feed)
+    // Răspunsul este un obiect JSON ownerId -> listă de imagini, scris în stream pe măsură ce e produs
+    @PostMapping(value = "/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getImagesByOwnerIds(@RequestBody BatchImagesRequest batchImagesRequest) {
+        List<UUID> ownerIds = batchImagesRequest.getOwnerIds() == null ? List.of()
+                : batchImagesRequest.getOwnerIds().stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        if (ownerIds.isEmpty() || batchImagesRequest.getType() == null) {
+            throw new InvalidRequestException("ownerIds and type are required.");
+        }
+        if (ownerIds.size() > batchMaxOwners) {
+            throw new InvalidRequestException("At most " + batchMaxOwners + " owner IDs can be requested at once.");
+        }
+
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartObject();
+                imageService.forEachOwnerImages(ownerIds, batchImagesRequest.getType(), (ownerId, images) -> {
+                    try {
+                        generator.writeFieldName(ownerId.toString());
+                        generator.writeObject(images);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndObject();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    // Endpoint pentru exportul tuturor imaginilor unui owner ca arhivă ZIP (fișierele + manifest.json), scrisă în stream.
+    // Arhiva poate dura mult peste timeout-ul async implicit, deci task-ul are timeout-ul lui (upload.archive.export-timeout)
+    @GetMapping(value = "/{ownerId}/{type}/archive", produces = "application/zip")
+    public WebAsyncTask<Void> exportArchive(
+            @PathVariable UUID ownerId,
+            @PathVariable ImageType type,
+            HttpServletResponse response) {
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(ownerId + "-" + type.name().toLowerCase() + ".zip").build().toString());
+        return new WebAsyncTask<>(exportTimeout.toMillis(), () -> {
+            imageArchiveService.exportArchive(ownerId, type, response.getOutputStream());
+            return null;
+        });
+    }
+
+    // Endpoint pentru importul unei arhive produse de export; corpul cererii conține direct arhiva
+    @PostMapping(value = "/{ownerId}/{type}/archive", consumes = "application/zip")
+    public ResponseEntity<List<ImageDto>> importArchive(
+            @PathVariable UUID ownerId,
+            @PathVariable ImageType type,
+            HttpServletRequest request) throws IOException {
+        List<ImageDto> importedImages = imageArchiveService.importArchive(ownerId, type, request.getInputStream());
+        return ResponseEntity.status(HttpStatus.CREATED).body(importedImages);
+    }
+
     // Endpoint pentru ștergerea unei imagini după numele fișierului
     @DeleteMapping("/{filename}/{ownerId}/{type}")
     public ResponseEntity<Void> deleteImage(
@@ -81,5 +182,12 @@ public class ImageController {
         imageService.deleteAllImagesAndFolder(ownerId, folder);
         return ResponseEntity.noContent().build();
     }
-}
 
+    // Owner-ul din corpul cererii primește limitele per owner pe care filtrul de admitere nu le-a putut aplica.
+    // Vine după parsarea corpului; clienții care trimit și ?ownerId= sunt limitați încă de la începutul transferului
+    private static void bindOwner(UploadAdmission.Permit permit, UUID ownerId) {
+        if (permit != null) {
+            permit.bindOwner(ownerId);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.asusoftware.image_api.controller;
+
+import com.asusoftware.image_api.config.ImageCaching;
+import com.asusoftware.image_api.exception.InvalidRequestException;
+import com.asusoftware.image_api.exception.ResourceNotFoundException;
+import com.asusoftware.image_api.service.ImageOptimizer;
+import com.asusoftware.image_api.service.ImageVariantService;
+import com.asusoftware.image_api.storage.S3StorageBackend;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cu upload.backend=s3, URL-urile publice /images/{cheie} rămân aceleași, dar instanța nu mai transferă
+ * conținutul: răspunde cu 302 către un URL presemnat din S3. Variantele (?w=) se servesc din cache-ul local.
+ * Originalele păstrate la optimizare nu primesc nici redirect, nici variantă.
+ */
+@RestController
+@ConditionalOnProperty(name = "upload.backend", havingValue = "s3")
+public class ImageRedirectController {
+
+    @Autowired
+    private S3StorageBackend s3StorageBackend;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @GetMapping("/images/{*path}")
+    public ResponseEntity<Resource> getImage(@PathVariable String path,
+                                             @RequestParam(name = "w", required = false) String width,
+                                             WebRequest request) throws IOException {
+        String key = path.startsWith("/") ? path.substring(1) : path;
+        if (ImageOptimizer.isOriginalKey(key)) {
+            throw new ResourceNotFoundException("Image not found: " + key);  // Originalele nu sunt publice
+        }
+        if (width != null) {
+            Optional<Path> variant;
+            try {
+                variant = imageVariantService.getVariant(key, Integer.parseInt(width));
+            } catch (NumberFormatException e) {
+                throw new InvalidRequestException("Width must be a positive number.");
+            }
+            if (variant.isPresent()) {
+                Resource resource = new FileSystemResource(variant.get());
+                String etag = ImageCaching.etag(resource);
+                if (request.checkNotModified(etag, resource.lastModified())) {
+                    return null;  // 304, antetele au fost deja setate
+                }
+                return ResponseEntity.ok().cacheControl(ImageCaching.IMMUTABLE).eTag(etag).body(resource);
+            }
+        }
+
+        // Redirect-ul poate fi păstrat de client doar cât timp URL-ul presemnat e încă valid
+        long maxAge = s3StorageBackend.presignTtl().toSeconds() / 2;
+        try {
+            return ResponseEntity.status(HttpStatus.FOUND)
+                    .location(s3StorageBackend.presignedUrl(key))
+                    .cacheControl(CacheControl.maxAge(maxAge, TimeUnit.SECONDS).cachePrivate())
+                    .build();
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Invalid image path.");
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.asusoftware.image_api.controller;
+
+import com.asusoftware.image_api.model.ImageType;
+import com.asusoftware.image_api.model.UploadSession;
+import com.asusoftware.image_api.model.dto.ImageDto;
+import com.asusoftware.image_api.model.dto.UploadSessionDto;
+import com.asusoftware.image_api.service.ResumableUploadService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * Upload reluabil în stilul tus: POST creează sesiunea, PATCH trimite bucăți de la Upload-Offset,
+ * HEAD/GET spune de unde se reia după o întrerupere, iar POST .../complete creează imaginea.
+ */
+@RestController
+@RequestMapping("/api/v1/images/uploads")
+public class ResumableUploadController {
+
+    private static final String UPLOAD_OFFSET = "Upload-Offset";
+    private static final String UPLOAD_LENGTH = "Upload-Length";
+
+    @Autowired
+    private ResumableUploadService resumableUploadService;
+
+    // Endpoint pentru crearea unei sesiuni de upload (Upload-Length = dimensiunea totală a fișierului)
+    @PostMapping
+    public ResponseEntity<UploadSessionDto> createUpload(
+            @RequestParam("ownerId") UUID ownerId,
+            @RequestParam("type") ImageType type,
+            @RequestParam("filename") String filename,
+            @RequestHeader(UPLOAD_LENGTH) long uploadLength,
+            @RequestHeader(value = "X-Content-SHA256", required = false) String contentSha256) {
+        UploadSession session = resumableUploadService.create(ownerId, type, filename, uploadLength, contentSha256);
+        return ResponseEntity.created(ServletUriComponentsBuilder.fromCurrentRequestUri()
+                        .path("/{id}").buildAndExpand(session.getId()).toUri())
+                .header(UPLOAD_OFFSET, "0")
+                .header(UPLOAD_LENGTH, String.valueOf(session.getUploadLength()))
+                .body(UploadSessionDto.toDto(session));
+    }
+
+    // Endpoint pentru starea sesiunii; HEAD întoarce doar Upload-Offset, de unde clientul reia
+    @GetMapping("/{id}")
+    public ResponseEntity<UploadSessionDto> getUpload(@PathVariable UUID id) {
+        UploadSession session = resumableUploadService.get(id);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .header(UPLOAD_OFFSET, String.valueOf(session.getUploadOffset()))
+                .header(UPLOAD_LENGTH, String.valueOf(session.getUploadLength()))
+                .body(UploadSessionDto.toDto(session));
+    }
+
+    // Endpoint pentru trimiterea unei bucăți; corpul cererii conține direct bytes-ii de la Upload-Offset
+    @PatchMapping("/{id}")
+    public ResponseEntity<Void> appendChunk(
+            @PathVariable UUID id,
+            @RequestHeader(UPLOAD_OFFSET) long uploadOffset,
+            HttpServletRequest request) throws IOException {
+        long offset = resumableUploadService.append(id, uploadOffset, request.getInputStream());
+        return ResponseEntity.noContent()
+                .header(UPLOAD_OFFSET, String.valueOf(offset))
+                .build();
+    }
+
+    // Endpoint pentru finalizare, după ce toți bytes-ii au ajuns
+    @PostMapping("/{id}/complete")
+    public ResponseEntity<ImageDto> completeUpload(@PathVariable UUID id) {
+        ImageDto image = resumableUploadService.complete(id);
+        return ResponseEntity.status(HttpStatus.CREATED).body(image);
+    }
+
+    // Endpoint pentru renunțarea la o sesiune
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> cancelUpload(@PathVariable UUID id) {
+        resumableUploadService.cancel(id);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,43 @@
+package com.asusoftware.image_api.controller;
+
+import com.asusoftware.image_api.service.StorageMigrationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * /actuator/storagemigration: GET arată progresul, POST pornește migrarea (opțional {"after": "<id>"}
+ * pentru reluare), DELETE o oprește după lotul curent. Nu e expus implicit: se adaugă în
+ * management.endpoints.web.exposure.include, de preferat împreună cu management.server.port, ca operația de
+ * scriere să nu fie accesibilă pe portul API-ului.
+ */
+@Component
+@Endpoint(id = "storagemigration")
+public class StorageMigrationEndpoint {
+
+    @Autowired
+    private StorageMigrationService storageMigrationService;
+
+    @ReadOperation
+    public StorageMigrationService.Status status() {
+        return storageMigrationService.status();
+    }
+
+    @WriteOperation
+    public StorageMigrationService.Status start(@Nullable UUID after) {
+        storageMigrationService.start(after);
+        return storageMigrationService.status();
+    }
+
+    @DeleteOperation
+    public StorageMigrationService.Status stop() {
+        storageMigrationService.stop();
+        return storageMigrationService.status();
+    }
+}
@@ -0,0 +1,40 @@
+package com.asusoftware.image_api.controller;
+
+import com.asusoftware.image_api.service.StorageReconciliationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * /actuator/reconciliation: GET arată progresul și discrepanțele găsite, POST pornește reconcilierea
+ * (opțional {"repair": true} și {"restart": true} pentru a ignora checkpoint-ul), DELETE o oprește.
+ * Ca storagemigration, nu e expus implicit și se include de preferat doar cu management.server.port setat.
+ */
+@Component
+@Endpoint(id = "reconciliation")
+public class StorageReconciliationEndpoint {
+
+    @Autowired
+    private StorageReconciliationService storageReconciliationService;
+
+    @ReadOperation
+    public StorageReconciliationService.Status status() {
+        return storageReconciliationService.status();
+    }
+
+    @WriteOperation
+    public StorageReconciliationService.Status start(@Nullable Boolean repair, @Nullable Boolean restart) {
+        storageReconciliationService.start(repair, !Boolean.TRUE.equals(restart));
+        return storageReconciliationService.status();
+    }
+
+    @DeleteOperation
+    public StorageReconciliationService.Status stop() {
+        storageReconciliationService.stop();
+        return storageReconciliationService.status();
+    }
+}
@@ -0,0 +1,7 @@
+package com.asusoftware.image_api.exception;
+
+public class FileTooLargeException extends RuntimeException {
+    public FileTooLargeException(String message) {
+        super(message);
+    }
+}
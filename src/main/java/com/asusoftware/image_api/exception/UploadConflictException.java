@@ -0,0 +1,7 @@
+package com.asusoftware.image_api.exception;
+
+public class UploadConflictException extends RuntimeException {
+    public UploadConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,21 @@
+package com.asusoftware.image_api.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Cererea nu a fost admisă: 503 când instanța e la capacitate (upload-uri sau generarea variantelor),
+ * 429 când owner-ul și-a depășit limitele. Răspunsul poartă Retry-After.
+ */
+@Getter
+public class UploadRejectedException extends RuntimeException {
+
+    private final HttpStatus status;
+    private final long retryAfterSeconds;
+
+    public UploadRejectedException(String message, HttpStatus status, long retryAfterSeconds) {
+        super(message);
+        this.status = status;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -8,7 +8,10 @@ import java.util.UUID;
 @Getter
 @Setter
 @Entity
-@Table(name = "images")
+@Table(name = "images", indexes = {
+        @Index(name = "idx_images_owner_type", columnList = "owner_id, type"),
+        @Index(name = "uk_images_file_name", columnList = "file_name", unique = true)
+})
 public class Image {
 
     @Id
@@ -30,4 +33,16 @@ public class Image {
     @Column(name = "type", nullable = false)
     @Enumerated(EnumType.STRING)
     private ImageType type;  // Tipul imaginii: POST sau USER
+
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;  // SHA-256 al blob-ului din image_blobs; null pentru fișierele stocate per owner
+
+    @Column(name = "size_bytes")
+    private Long sizeBytes;  // Dimensiunea fișierului păstrat (după optimizare, dacă a avut loc)
+
+    @Column(name = "original_size_bytes")
+    private Long originalSizeBytes;  // Dimensiunea fișierului primit de la client
+
+    @Column(name = "original_path")
+    private String originalPath;  // Originalul păstrat la optimizare (image.optimization.keep-original); altfel null
 }
@@ -0,0 +1,29 @@
+package com.asusoftware.image_api.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Un fișier stocat o singură dată, identificat prin SHA-256 al conținutului.
+ * Rândurile din {@link Image} îl referă prin content_hash; fișierul se șterge când refCount ajunge la 0.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "image_blobs")
+public class ImageBlob {
+
+    @Id
+    @Column(name = "hash", length = 64)
+    private String hash;
+
+    @Column(name = "file_path", nullable = false)
+    private String filePath;  // Calea relativă la upload.dir, de forma blobs/ab/cd/<hash>-<generație>.<ext>
+
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+
+    @Column(name = "ref_count", nullable = false)
+    private long refCount;
+}
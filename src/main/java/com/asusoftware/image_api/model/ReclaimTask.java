@@ -0,0 +1,44 @@
+package com.asusoftware.image_api.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Un fișier (sau director gol) de șters de pe disc după ce metadatele lui au fost eliminate.
+ * Rândul se scrie în aceeași tranzacție cu ștergerea din DB și dispare doar după ce fișierul a fost șters,
+ * deci ștergerile supraviețuiesc unui restart.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "reclaim_tasks", indexes = {
+        @Index(name = "idx_reclaim_tasks_next_attempt", columnList = "next_attempt_at"),
+        @Index(name = "idx_reclaim_tasks_path", columnList = "path")
+})
+public class ReclaimTask {
+
+    // Secvență cu alocare în blocuri de 50 (cât hibernate.jdbc.batch_size): id-urile se cunosc înainte de INSERT,
+    // deci saveAll pentru mai multe fișiere pleacă într-un singur batch JDBC; IDENTITY ar cere câte un INSERT
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reclaim_tasks_seq")
+    @SequenceGenerator(name = "reclaim_tasks_seq", sequenceName = "reclaim_tasks_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "path", nullable = false, length = 1024)
+    private String path;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;  // Nu se reîncearcă înainte de acest moment (backoff sau lease-ul unei instanțe)
+
+    @Column(name = "last_error", length = 1024)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
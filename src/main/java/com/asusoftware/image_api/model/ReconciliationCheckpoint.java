@@ -0,0 +1,34 @@
+package com.asusoftware.image_api.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Progresul ultimei reconcilieri între upload.dir și tabela images, ca o rulare întreruptă (oprire, restart)
+ * să continue de unde a rămas. Rândul dispare când reconcilierea ajunge la capăt.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "reconciliation_checkpoints")
+public class ReconciliationCheckpoint {
+
+    @Id
+    @Column(name = "name", length = 64)
+    private String name;
+
+    @Column(name = "phase", nullable = false, length = 16)
+    private String phase;  // FILES sau ROWS
+
+    @Column(name = "position", nullable = false, length = 1024)
+    private String position;  // FILES: ultimul director de prim nivel terminat (posts/ab); ROWS: ultimul id terminat
+
+    @Column(name = "started_at", nullable = false)
+    private Instant startedAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
@@ -0,0 +1,50 @@
+package com.asusoftware.image_api.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Un upload reluabil în curs: conținutul se adună într-un fișier de lucru, iar rândul ține cât s-a primit.
+ * La finalizare rândul dispare în aceeași tranzacție în care se creează imaginea.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "upload_sessions", indexes = {
+        @Index(name = "idx_upload_sessions_expires_at", columnList = "expires_at")
+})
+public class UploadSession {
+
+    @Id
+    @GeneratedValue
+    private UUID id;
+
+    @Column(name = "owner_id", nullable = false)
+    private UUID ownerId;
+
+    @Column(name = "type", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private ImageType type;
+
+    @Column(name = "target_key", nullable = false, length = 1024)
+    private String targetKey;  // Cheia din stocare la care ajunge fișierul la finalizare
+
+    @Column(name = "upload_length", nullable = false)
+    private long uploadLength;  // Dimensiunea anunțată la creare (Upload-Length)
+
+    @Column(name = "upload_offset", nullable = false)
+    private long uploadOffset;  // Câți bytes au fost scriși și sincronizați pe disc
+
+    @Column(name = "expected_sha256", length = 64)
+    private String expectedSha256;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;  // Se prelungește la fiecare bucată primită
+}
@@ -0,0 +1,15 @@
+package com.asusoftware.image_api.model.dto;
+
+import com.asusoftware.image_api.model.ImageType;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.UUID;
+
+@Getter
+@Setter
+public class BatchImagesRequest {
+    private List<UUID> ownerIds;
+    private ImageType type;
+}
@@ -0,0 +1,28 @@
+package com.asusoftware.image_api.model.dto;
+
+import com.asusoftware.image_api.model.ImageType;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+@Getter
+@Setter
+public class ImageArchiveManifest {
+    private int version;
+    private UUID ownerId;
+    private ImageType type;
+    private Instant exportedAt;
+    private List<Entry> images;
+
+    @Getter
+    @Setter
+    public static class Entry {
+        private String fileName;
+        private String path;  // Numele intrării din arhivă
+        private Long sizeBytes;
+        private Long originalSizeBytes;
+    }
+}
@@ -0,0 +1,27 @@
+package com.asusoftware.image_api.model.dto;
+
+import com.asusoftware.image_api.model.UploadSession;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Getter
+@Setter
+public class UploadSessionDto {
+    private UUID id;
+    private long offset;
+    private long length;
+    private Instant expiresAt;
+
+
+    public static UploadSessionDto toDto(UploadSession session) {
+        UploadSessionDto uploadSessionDto = new UploadSessionDto();
+        uploadSessionDto.setId(session.getId());
+        uploadSessionDto.setOffset(session.getUploadOffset());
+        uploadSessionDto.setLength(session.getUploadLength());
+        uploadSessionDto.setExpiresAt(session.getExpiresAt());
+        return uploadSessionDto;
+    }
+}
@@ -0,0 +1,46 @@
+package com.asusoftware.image_api.repository;
+
+import com.asusoftware.image_api.model.ImageBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ImageBlobRepository extends JpaRepository<ImageBlob, String> {
+
+    @Modifying
+    @Query("update ImageBlob b set b.refCount = b.refCount + 1 where b.hash = :hash")
+    int incrementRefCount(@Param("hash") String hash);
+
+    @Modifying
+    @Query("update ImageBlob b set b.refCount = b.refCount - :count where b.hash = :hash")
+    int decrementRefCount(@Param("hash") String hash, @Param("count") long count);
+
+    // Inserează blob-ul cu o referință; dacă altă cerere l-a inserat între timp, nu face nimic (întoarce 0)
+    @Modifying
+    @Query(value = "INSERT INTO image_blobs (hash, file_path, size_bytes, ref_count) VALUES (:hash, :filePath, :sizeBytes, 1) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("hash") String hash, @Param("filePath") String filePath, @Param("sizeBytes") long sizeBytes);
+
+    // Interogări scalare: ocolesc entitățile din contextul de persistență, care pot fi vechi după update-urile bulk
+    @Query("select b.filePath from ImageBlob b where b.hash = :hash")
+    Optional<String> findFilePathByHash(@Param("hash") String hash);
+
+    @Query("select b.refCount from ImageBlob b where b.hash = :hash")
+    Optional<Long> findRefCountByHash(@Param("hash") String hash);
+
+    @Modifying
+    @Query("delete from ImageBlob b where b.hash = :hash and b.refCount <= 0")
+    int deleteIfUnreferenced(@Param("hash") String hash);
+
+    // Octeții pe care i-ar ocupa toate referințele fără deduplicare
+    @Query("select coalesce(sum(b.sizeBytes * b.refCount), 0) from ImageBlob b")
+    long sumLogicalBytes();
+
+    // Octeții ocupați efectiv pe disc
+    @Query("select coalesce(sum(b.sizeBytes), 0) from ImageBlob b")
+    long sumPhysicalBytes();
+}
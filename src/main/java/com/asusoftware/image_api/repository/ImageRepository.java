@@ -2,9 +2,14 @@ package com.asusoftware.image_api.repository;
 
 import com.asusoftware.image_api.model.Image;
 import com.asusoftware.image_api.model.ImageType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -19,6 +24,53 @@ public interface ImageRepository extends JpaRepository<Image, UUID> {
     // Găsește toate imaginile pentru un anumit owner (post sau user) și un tip specific de imagine (POST sau USER)
     List<Image> findByOwnerIdAndType(UUID ownerId, ImageType type);
 
-    // Șterge o imagine din baza de date după numele fișierului
-    void deleteByFileName(String fileName);
+    // Imaginile mai multor owneri într-o singură interogare owner_id IN (...)
+    List<Image> findByOwnerIdInAndType(Collection<UUID> ownerIds, ImageType type);
+
+    // Câte referințe are fiecare blob deduplicat printre imaginile unui owner
+    @Query("select i.contentHash as contentHash, count(i) as referenceCount from Image i " +
+            "where i.ownerId = :ownerId and i.type = :type and i.contentHash is not null group by i.contentHash")
+    List<ContentHashReferences> countContentHashReferences(@Param("ownerId") UUID ownerId, @Param("type") ImageType type);
+
+    interface ContentHashReferences {
+        String getContentHash();
+
+        long getReferenceCount();
+    }
+
+    // Șterge o imagine din baza de date după numele fișierului (un singur DELETE, fără încărcarea entității)
+    @Modifying
+    @Query("delete from Image i where i.fileName = :fileName")
+    int deleteByFileName(@Param("fileName") String fileName);
+
+    // Șterge toate imaginile unui owner printr-un singur DELETE ... WHERE owner_id = ? AND type = ?
+    @Modifying
+    @Query("delete from Image i where i.ownerId = :ownerId and i.type = :type")
+    int deleteByOwnerIdAndType(@Param("ownerId") UUID ownerId, @Param("type") ImageType type);
+
+    // Pagini în ordinea id-ului (keyset), pentru migrarea fișierelor stocate per owner: fișierul, dacă nu e
+    // deduplicat, și originalul păstrat la optimizare, care e per owner și pentru imaginile deduplicate
+    @Query("select i from Image i where i.id > :after and (i.contentHash is null or i.originalPath is not null) order by i.id")
+    List<Image> findStoredPerOwnerAfter(@Param("after") UUID after, Pageable pageable);
+
+    // Toate rândurile în ordinea id-ului (keyset), pentru reconcilierea cu fișierele din stocare
+    @Query("select i from Image i where i.id > :after order by i.id")
+    List<Image> findAllAfter(@Param("after") UUID after, Pageable pageable);
+
+    // Șterge rândul doar dacă indică încă aceeași cale (întoarce 0 dacă a fost șters sau mutat între timp)
+    @Modifying
+    @Query("delete from Image i where i.id = :id and i.filePath = :filePath")
+    int deleteIfPathUnchanged(@Param("id") UUID id, @Param("filePath") String filePath);
+
+    @Modifying
+    @Query("update Image i set i.originalPath = null where i.id = :id and i.originalPath = :originalPath")
+    int clearOriginalPath(@Param("id") UUID id, @Param("originalPath") String originalPath);
+
+    // Mută rândul (fișierul și originalul) pe noile căi doar dacă nu s-a schimbat între timp (întoarce 0 altfel)
+    @Modifying
+    @Query("update Image i set i.filePath = :newPath, i.fileUrl = :fileUrl, i.originalPath = :newOriginalPath " +
+            "where i.id = :id and i.filePath = :oldPath " +
+            "and (i.originalPath = :oldOriginalPath or (i.originalPath is null and :oldOriginalPath is null))")
+    int relocate(@Param("id") UUID id, @Param("oldPath") String oldPath, @Param("newPath") String newPath, @Param("fileUrl") String fileUrl,
+                 @Param("oldOriginalPath") String oldOriginalPath, @Param("newOriginalPath") String newOriginalPath);
 }
@@ -0,0 +1,56 @@
+package com.asusoftware.image_api.repository;
+
+import com.asusoftware.image_api.model.ImageType;
+import com.asusoftware.image_api.model.ReclaimTask;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface ReclaimTaskRepository extends JpaRepository<ReclaimTask, Long> {
+
+    // Task-urile scadente, blocate cu FOR UPDATE SKIP LOCKED (timeout -2), ca mai multe instanțe să nu ia aceleași rânduri
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select t from ReclaimTask t where t.nextAttemptAt <= :now and t.attempts < :maxAttempts order by t.id")
+    List<ReclaimTask> findDue(@Param("now") Instant now, @Param("maxAttempts") int maxAttempts, Pageable pageable);
+
+    // Fișierele imaginilor unui owner (fără cele deduplicate) devin task-uri printr-un singur INSERT ... SELECT.
+    // SQL nativ, cu id-ul luat direct din secvență: HQL ar trece prin tabele temporare pentru generatorul pooled
+    @Modifying
+    @Query(value = "INSERT INTO reclaim_tasks (id, path, attempts, next_attempt_at, created_at) " +
+            "SELECT nextval('reclaim_tasks_seq'), i.file_path, 0, :now, :now FROM images i " +
+            "WHERE i.owner_id = :ownerId AND i.type = :#{#type.name()} AND i.content_hash IS NULL", nativeQuery = true)
+    int enqueueFilesOfOwner(@Param("ownerId") UUID ownerId, @Param("type") ImageType type, @Param("now") Instant now);
+
+    @Modifying
+    @Query(value = "INSERT INTO reclaim_tasks (id, path, attempts, next_attempt_at, created_at) " +
+            "SELECT nextval('reclaim_tasks_seq'), i.file_path, 0, :now, :now FROM images i " +
+            "WHERE i.id IN (:ids) AND i.content_hash IS NULL", nativeQuery = true)
+    int enqueueFilesOfImages(@Param("ids") Collection<UUID> ids, @Param("now") Instant now);
+
+    // Originalele păstrate la optimizare aparțin fiecărei imagini, și celor deduplicate
+    @Modifying
+    @Query(value = "INSERT INTO reclaim_tasks (id, path, attempts, next_attempt_at, created_at) " +
+            "SELECT nextval('reclaim_tasks_seq'), i.original_path, 0, :now, :now FROM images i " +
+            "WHERE i.owner_id = :ownerId AND i.type = :#{#type.name()} AND i.original_path IS NOT NULL", nativeQuery = true)
+    int enqueueOriginalsOfOwner(@Param("ownerId") UUID ownerId, @Param("type") ImageType type, @Param("now") Instant now);
+
+    @Modifying
+    @Query(value = "INSERT INTO reclaim_tasks (id, path, attempts, next_attempt_at, created_at) " +
+            "SELECT nextval('reclaim_tasks_seq'), i.original_path, 0, :now, :now FROM images i " +
+            "WHERE i.id IN (:ids) AND i.original_path IS NOT NULL", nativeQuery = true)
+    int enqueueOriginalsOfImages(@Param("ids") Collection<UUID> ids, @Param("now") Instant now);
+
+    // Căile dintre cele date care au deja o ștergere programată (de ex. vechile căi ale fișierelor migrate)
+    @Query("select t.path from ReclaimTask t where t.path in :paths")
+    List<String> findScheduledPaths(@Param("paths") Collection<String> paths);
+}
@@ -0,0 +1,9 @@
+package com.asusoftware.image_api.repository;
+
+import com.asusoftware.image_api.model.ReconciliationCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReconciliationCheckpointRepository extends JpaRepository<ReconciliationCheckpoint, String> {
+}
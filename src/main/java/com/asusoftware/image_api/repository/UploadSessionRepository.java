@@ -0,0 +1,31 @@
+package com.asusoftware.image_api.repository;
+
+import com.asusoftware.image_api.model.UploadSession;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, UUID> {
+
+    // Avansează offset-ul doar dacă nu s-a schimbat între timp (altă cerere sau altă instanță)
+    @Modifying
+    @Query("update UploadSession s set s.uploadOffset = :newOffset, s.expiresAt = :expiresAt " +
+            "where s.id = :id and s.uploadOffset = :oldOffset")
+    int advance(@Param("id") UUID id, @Param("oldOffset") long oldOffset, @Param("newOffset") long newOffset,
+                @Param("expiresAt") Instant expiresAt);
+
+    @Modifying
+    @Query("delete from UploadSession s where s.id = :id")
+    int deleteSession(@Param("id") UUID id);
+
+    @Query("select s from UploadSession s where s.expiresAt < :now order by s.expiresAt")
+    List<UploadSession> findExpired(@Param("now") Instant now, Pageable pageable);
+}
@@ -0,0 +1,158 @@
+package com.asusoftware.image_api.service;
+
+import com.asusoftware.image_api.exception.ImageUploadException;
+import com.asusoftware.image_api.repository.ImageBlobRepository;
+import com.asusoftware.image_api.storage.StorageBackend;
+import com.asusoftware.image_api.storage.StoredFile;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.util.UUID;
+
+/**
+ * Stocare adresată prin conținut: fiecare fișier unic (după SHA-256) se păstrează o singură dată
+ * sub blobs/ab/cd/<hash>-<generație>.<ext>, iar rândurile Image îl referă. Metodele trebuie apelate într-o tranzacție.
+ */
+@Service
+public class ContentAddressedStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ContentAddressedStore.class);
+
+    static final String BLOBS_FOLDER = "blobs";
+
+    // Cât timp refolosim raportul calculat, ca scrape-urile de metrici să nu interogheze DB-ul de fiecare dată
+    private static final long RATIO_REFRESH_MILLIS = 30_000;
+
+    @Autowired
+    private ImageBlobRepository imageBlobRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private FileReclaimer fileReclaimer;
+
+    @Autowired
+    private StorageBackend storageBackend;
+
+    private volatile double dedupRatio = 1.0;
+    private volatile long dedupRatioComputedAt;
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("image.dedup.ratio", this, ContentAddressedStore::dedupRatio)
+                .description("Logical bytes referenced by images divided by physical bytes stored in blobs")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Preia un fișier deja scris (cu hash-ul calculat la scriere) în stocarea deduplicată și adaugă o referință.
+     * Dacă blob-ul există deja, fișierul primit se șterge. Întoarce cheia blob-ului în stocare.
+     */
+    public String adopt(StoredFile storedFile) {
+        String hash = storedFile.sha256();
+        String filePath = blobKey(hash, extensionOf(storedFile.fileName()));
+
+        // Întâi incrementăm; dacă blob-ul nu există îl inserăm, iar la o cursă cu altă cerere incrementăm din nou
+        boolean inserted = false;
+        if (imageBlobRepository.incrementRefCount(hash) == 0) {
+            inserted = imageBlobRepository.insertIfAbsent(hash, filePath, storedFile.size()) > 0;
+            if (!inserted) {
+                imageBlobRepository.incrementRefCount(hash);
+            }
+        }
+        String blobKey = imageBlobRepository.findFilePathByHash(hash)
+                .orElseThrow(() -> new ImageUploadException("Blob disappeared while being referenced: " + hash));
+
+        try {
+            if (storageBackend.exists(blobKey)) {
+                storageBackend.delete(storedFile.key());  // Conținut duplicat, păstrăm doar blob-ul existent
+            } else {
+                storageBackend.move(storedFile.key(), blobKey);
+                if (inserted) {
+                    deleteOnRollback(blobKey);
+                }
+            }
+        } catch (FileAlreadyExistsException e) {
+            deleteQuietly(storedFile.key());
+        } catch (IOException e) {
+            throw new ImageUploadException("Error storing blob " + hash, e);
+        }
+        return blobKey;
+    }
+
+    /**
+     * Fișierul e mutat înainte de commit: dacă tranzacția care a inserat rândul blob-ului eșuează,
+     * rândul dispare odată cu ea, iar fișierul rămas nu mai e referit de nimic.
+     */
+    private void deleteOnRollback(String blobKey) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        deleteQuietly(blobKey);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Eliberează {@code count} referințe; când nu mai rămâne niciuna, rândul blob-ului se șterge,
+     * iar fișierul este programat pentru ștergere în aceeași tranzacție.
+     */
+    public void release(String hash, long count) {
+        imageBlobRepository.decrementRefCount(hash, count);
+        if (imageBlobRepository.findRefCountByHash(hash).filter(refCount -> refCount <= 0).isEmpty()) {
+            return;
+        }
+        String blobKey = imageBlobRepository.findFilePathByHash(hash).orElseThrow();
+        if (imageBlobRepository.deleteIfUnreferenced(hash) > 0) {
+            fileReclaimer.enqueue(blobKey);
+        }
+    }
+
+    // Împărțim după primele două perechi de caractere din hash ca niciun director să nu crească nelimitat.
+    // Sufixul aleator diferă la fiecare (re)creare a blob-ului, ca ștergerea amânată a unei generații
+    // eliberate să nu atingă fișierul unei generații noi cu același conținut.
+    static String blobKey(String hash, String extension) {
+        String generation = UUID.randomUUID().toString().substring(0, 8);
+        return BLOBS_FOLDER + '/' + hash.substring(0, 2) + '/' + hash.substring(2, 4) + '/' + hash + '-' + generation + extension;
+    }
+
+    private static String extensionOf(String filename) {
+        return ImageFileNames.hasExtension(filename) ? filename.substring(filename.lastIndexOf('.')) : "";
+    }
+
+    private double dedupRatio() {
+        long now = System.currentTimeMillis();
+        if (now - dedupRatioComputedAt > RATIO_REFRESH_MILLIS) {
+            dedupRatioComputedAt = now;
+            try {
+                long physicalBytes = imageBlobRepository.sumPhysicalBytes();
+                dedupRatio = physicalBytes == 0 ? 1.0 : (double) imageBlobRepository.sumLogicalBytes() / physicalBytes;
+            } catch (RuntimeException e) {
+                log.warn("Could not compute the dedup ratio", e);
+            }
+        }
+        return dedupRatio;
+    }
+
+    private void deleteQuietly(String key) {
+        try {
+            storageBackend.delete(key);
+        } catch (IOException e) {
+            log.warn("Could not delete {}", key, e);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.asusoftware.image_api.service;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Citește tag-ul Orientation (0x0112) din segmentul EXIF (APP1) al unui JPEG, direct din primii bytes ai
+ * fișierului. Parserul de metadate ImageIO nu e folosit: refuză multe fișiere reale (de ex. APP1 înaintea JFIF).
+ * Valorile sunt cele din specificația EXIF: 1 = normal, 2-8 = oglindiri și rotiri; orice problemă dă 1.
+ */
+final class ExifOrientation {
+
+    static final int NORMAL = 1;
+
+    // Segmentele APP au cel mult 64KB și stau la începutul fișierului, înaintea datelor imaginii
+    static final int SCAN_LIMIT = 256 * 1024;
+
+    private static final int SOI = 0xFFD8;
+    private static final int APP1 = 0xFFE1;
+    private static final int SOS = 0xFFDA;
+    private static final int ORIENTATION_TAG = 0x0112;
+    private static final byte[] EXIF_HEADER = "Exif\0\0".getBytes(StandardCharsets.US_ASCII);
+
+    private ExifOrientation() {
+    }
+
+    /**
+     * Parcurge segmentele de la începutul fișierului ({@code head}) până la primul APP1 EXIF sau până la SOS.
+     */
+    static int read(byte[] head) {
+        ByteBuffer buffer = ByteBuffer.wrap(head);
+        try {
+            if ((buffer.getShort() & 0xFFFF) != SOI) {
+                return NORMAL;
+            }
+            while (true) {
+                int marker = buffer.getShort() & 0xFFFF;
+                if ((marker & 0xFF00) != 0xFF00 || marker == SOS) {
+                    return NORMAL;
+                }
+                int length = (buffer.getShort() & 0xFFFF) - 2;
+                if (length < 0) {
+                    return NORMAL;
+                }
+                if (marker == APP1 && startsWithExifHeader(head, buffer.position())) {
+                    byte[] segment = new byte[length];
+                    buffer.get(segment);
+                    return parse(segment);
+                }
+                buffer.position(buffer.position() + length);
+            }
+        } catch (RuntimeException e) {
+            return NORMAL;  // Antet trunchiat sau segment care depășește SCAN_LIMIT
+        }
+    }
+
+    // "Exif\0\0" urmat de un antet TIFF (II/MM, 42, offset IFD0) și intrările IFD0 de câte 12 bytes
+    static int parse(byte[] app1) {
+        if (app1.length < EXIF_HEADER.length + 8 || !startsWithExifHeader(app1, 0)) {
+            return NORMAL;
+        }
+        int tiff = EXIF_HEADER.length;
+        ByteOrder order;
+        if (app1[tiff] == 'I' && app1[tiff + 1] == 'I') {
+            order = ByteOrder.LITTLE_ENDIAN;
+        } else if (app1[tiff] == 'M' && app1[tiff + 1] == 'M') {
+            order = ByteOrder.BIG_ENDIAN;
+        } else {
+            return NORMAL;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(app1).order(order);
+        try {
+            int ifd = tiff + buffer.getInt(tiff + 4);
+            int entries = buffer.getShort(ifd) & 0xFFFF;
+            for (int i = 0; i < entries; i++) {
+                int entry = ifd + 2 + i * 12;
+                if ((buffer.getShort(entry) & 0xFFFF) == ORIENTATION_TAG) {
+                    int orientation = buffer.getShort(entry + 8) & 0xFFFF;
+                    return orientation >= 1 && orientation <= 8 ? orientation : NORMAL;
+                }
+            }
+        } catch (IndexOutOfBoundsException e) {
+            // EXIF trunchiat sau corupt
+        }
+        return NORMAL;
+    }
+
+    private static boolean startsWithExifHeader(byte[] data, int offset) {
+        if (data.length - offset < EXIF_HEADER.length) {
+            return false;
+        }
+        for (int i = 0; i < EXIF_HEADER.length; i++) {
+            if (data[offset + i] != EXIF_HEADER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,235 @@
+package com.asusoftware.image_api.service;
+
+import com.asusoftware.image_api.model.ImageType;
+import com.asusoftware.image_api.model.ReclaimTask;
+import com.asusoftware.image_api.repository.ReclaimTaskRepository;
+import com.asusoftware.image_api.service.ImageMetrics.Phase;
+import com.asusoftware.image_api.storage.StorageBackend;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Ștergerea asincronă a fișierelor: operațiile de ștergere doar elimină metadatele și scriu, în aceeași
+ * tranzacție, câte un {@link ReclaimTask}. Job-ul periodic preia task-urile scadente în tranzacții scurte,
+ * șterge fișierele în afara oricărei tranzacții, cu concurență limitată, și reîncearcă eșecurile cu backoff.
+ * Un fișier deja lipsă contează ca șters, deci reluarea unui task (după restart sau lease expirat) e sigură.
+ */
+@Service
+public class FileReclaimer {
+
+    private static final Logger log = LoggerFactory.getLogger(FileReclaimer.class);
+
+    private static final Duration MIN_BACKOFF = Duration.ofSeconds(10);
+    private static final Duration MAX_BACKOFF = Duration.ofHours(1);
+
+    @Value("${upload.reclaim.batch-size}")
+    private int batchSize;
+
+    @Value("${upload.reclaim.concurrency}")
+    private int concurrency;
+
+    @Value("${upload.reclaim.max-attempts}")
+    private int maxAttempts;
+
+    @Value("${upload.reclaim.lease}")
+    private Duration lease;  // Cât timp un task preluat e rezervat instanței care îl procesează
+
+    @Autowired
+    private ReclaimTaskRepository reclaimTaskRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ImageMetrics imageMetrics;
+
+    @Autowired
+    private StorageBackend storageBackend;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ExecutorService workers;
+    private Counter retried;
+    private Counter abandoned;
+
+    @PostConstruct
+    void init() {
+        workers = Executors.newFixedThreadPool(concurrency, new CustomizableThreadFactory("reclaim-"));
+        retried = Counter.builder("image.reclaim.retries")
+                .description("File deletions that failed and were rescheduled")
+                .register(meterRegistry);
+        abandoned = Counter.builder("image.reclaim.abandoned")
+                .description("File deletions given up after the maximum number of attempts")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();  // Task-urile neterminate rămân în tabel și sunt reluate după restart
+    }
+
+    /**
+     * Programează ștergerea unui fișier. Trebuie apelată în tranzacția care elimină metadatele lui,
+     * ca task-ul să existe dacă și numai dacă ștergerea din DB a fost comisă.
+     */
+    public void enqueue(String key) {
+        enqueue(key, Duration.ZERO);
+    }
+
+    /**
+     * La fel, dar fișierul rămâne disponibil încă {@code delay} (de ex. vechea cale a unui fișier migrat,
+     * pentru URL-urile deja distribuite).
+     */
+    public void enqueue(String key, Duration delay) {
+        Instant now = Instant.now();
+        ReclaimTask task = new ReclaimTask();
+        task.setPath(key);
+        task.setNextAttemptAt(now.plus(delay));
+        task.setCreatedAt(now);
+        reclaimTaskRepository.save(task);
+    }
+
+    /**
+     * Write-ahead pentru fișierele scrise înaintea rândurilor care le vor referi: task-urile se comit înainte
+     * de scriere, scadente abia după {@code ttl}. Tranzacția care inserează rândurile le anulează prin
+     * {@link #release(Collection)}; dacă cererea eșuează sau procesul cade între timp, fișierele rămase sunt șterse.
+     */
+    public List<Long> stage(Collection<String> keys, Duration ttl) {
+        Instant now = Instant.now();
+        List<ReclaimTask> tasks = keys.stream().map(key -> {
+            ReclaimTask task = new ReclaimTask();
+            task.setPath(key);
+            task.setNextAttemptAt(now.plus(ttl));
+            task.setCreatedAt(now);
+            return task;
+        }).toList();
+        return transactionTemplate.execute(status -> reclaimTaskRepository.saveAll(tasks).stream()
+                .map(ReclaimTask::getId)
+                .toList());
+    }
+
+    // Fișierele au devenit ale rândurilor inserate; se apelează în aceeași tranzacție cu inserarea
+    public void release(Collection<Long> stagedTaskIds) {
+        if (!stagedTaskIds.isEmpty()) {
+            reclaimTaskRepository.deleteAllByIdInBatch(stagedTaskIds);
+        }
+    }
+
+    // Fișierele per owner ale imaginilor date și originalele lor, prin INSERT ... SELECT (înainte de ștergerea rândurilor)
+    public int enqueueFilesOfImages(Collection<UUID> imageIds) {
+        if (imageIds.isEmpty()) {
+            return 0;
+        }
+        Instant now = Instant.now();
+        return reclaimTaskRepository.enqueueFilesOfImages(imageIds, now) + reclaimTaskRepository.enqueueOriginalsOfImages(imageIds, now);
+    }
+
+    public int enqueueFilesOfOwner(UUID ownerId, ImageType type) {
+        Instant now = Instant.now();
+        return reclaimTaskRepository.enqueueFilesOfOwner(ownerId, type, now) + reclaimTaskRepository.enqueueOriginalsOfOwner(ownerId, type, now);
+    }
+
+    @Scheduled(fixedDelayString = "${upload.reclaim.interval}")
+    public void reclaimDue() {
+        try {
+            while (reclaimBatch() == batchSize) {
+                // Continuăm cât timp găsim loturi pline
+            }
+        } catch (RuntimeException e) {
+            log.warn("File reclamation pass failed, will retry on the next run", e);
+        }
+    }
+
+    /**
+     * Procesează un lot de task-uri scadente și întoarce câte au fost preluate.
+     */
+    public int reclaimBatch() {
+        return imageMetrics.record(ImageMetrics.RECLAIM, operation -> {
+            Instant now = Instant.now();
+
+            // 1. Preluăm lotul și îl rezervăm prin lease; tranzacția se încheie înainte de orice operație pe disc
+            List<ReclaimTask> tasks = operation.time(Phase.DB, () -> transactionTemplate.execute(status -> {
+                List<ReclaimTask> due = reclaimTaskRepository.findDue(now, maxAttempts, PageRequest.of(0, batchSize));
+                due.forEach(task -> task.setNextAttemptAt(now.plus(lease)));
+                return due;
+            }));
+            if (tasks.isEmpty()) {
+                return 0;
+            }
+            operation.files(tasks.size());
+
+            // 2. Ștergem fișierele fără tranzacție, cu cel mult upload.reclaim.concurrency ștergeri simultane
+            Map<Long, String> failures = new ConcurrentHashMap<>();
+            operation.time(Phase.FILE_DELETE, () -> CompletableFuture.allOf(tasks.stream()
+                    .map(task -> CompletableFuture.runAsync(() -> {
+                        try {
+                            delete(task.getPath());
+                        } catch (IOException | RuntimeException e) {
+                            failures.put(task.getId(), e.getClass().getSimpleName() + ": " + e.getMessage());
+                        }
+                    }, workers))
+                    .toArray(CompletableFuture[]::new)).join());
+
+            // 3. Eliminăm task-urile reușite și reprogramăm eșecurile
+            operation.time(Phase.DB, () -> transactionTemplate.executeWithoutResult(status -> {
+                List<Long> done = tasks.stream()
+                        .map(ReclaimTask::getId)
+                        .filter(id -> !failures.containsKey(id))
+                        .toList();
+                if (!done.isEmpty()) {
+                    reclaimTaskRepository.deleteAllByIdInBatch(done);
+                }
+                for (ReclaimTask task : reclaimTaskRepository.findAllById(failures.keySet())) {
+                    reschedule(task, failures.get(task.getId()), now);
+                }
+            }));
+            return tasks.size();
+        });
+    }
+
+    // Cheile care ies din stocare sunt refuzate de StorageBackend (IllegalArgumentException) și rămân ca eșec
+    private void delete(String key) throws IOException {
+        imageMetrics.bytesDeleted(storageBackend.delete(key));
+        // Variantele din cache-ul local dispar odată cu originalul; celelalte instanțe le refuză la prima cerere
+        imageVariantService.evict(key);
+    }
+
+    private void reschedule(ReclaimTask task, String error, Instant now) {
+        int attempts = task.getAttempts() + 1;
+        task.setAttempts(attempts);
+        task.setLastError(error.length() > 1024 ? error.substring(0, 1024) : error);
+        if (attempts >= maxAttempts) {
+            abandoned.increment();
+            log.warn("Giving up deleting {} after {} attempts: {}", task.getPath(), attempts, error);
+            return;
+        }
+        // Backoff exponențial: 10s, 20s, 40s ... plafonat la o oră
+        Duration backoff = MIN_BACKOFF.multipliedBy(1L << Math.min(attempts - 1, 20));
+        task.setNextAttemptAt(now.plus(backoff.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : backoff));
+        retried.increment();
+    }
+}
@@ -0,0 +1,229 @@
+package com.asusoftware.image_api.service;
+
+import com.asusoftware.image_api.exception.FileTooLargeException;
+import com.asusoftware.image_api.exception.ImageUploadException;
+import com.asusoftware.image_api.exception.InvalidRequestException;
+import com.asusoftware.image_api.model.Image;
+import com.asusoftware.image_api.model.ImageType;
+import com.asusoftware.image_api.model.dto.ImageArchiveManifest;
+import com.asusoftware.image_api.model.dto.ImageDto;
+import com.asusoftware.image_api.repository.ImageRepository;
+import com.asusoftware.image_api.service.ImageMetrics.Phase;
+import com.asusoftware.image_api.storage.StorageBackend;
+import com.asusoftware.image_api.storage.StorageLayout;
+import com.asusoftware.image_api.storage.StoredFile;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.NoSuchFileException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Exportul și importul tuturor imaginilor unui owner ca o singură arhivă ZIP: images/{fileName} pentru
+ * fiecare fișier și manifest.json la final. Ambele direcții lucrează în stream, fișier cu fișier, fără
+ * să țină arhiva în memorie sau pe disc. Imaginile sunt deja comprimate, așa că intrările nu mai sunt
+ * comprimate încă o dată (Deflater.NO_COMPRESSION): costul rămâne copierea și CRC-ul.
+ */
+@Service
+public class ImageArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageArchiveService.class);
+
+    private static final String MANIFEST = "manifest.json";
+    private static final String IMAGES_FOLDER = "images/";
+    private static final int MANIFEST_VERSION = 1;
+    private static final int MANIFEST_MAX_SIZE = 16 * 1024 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Value("${upload.archive.max-file-size}")
+    private DataSize maxFileSize;  // Limita pentru fiecare fișier din arhiva importată
+
+    @Value("${upload.archive.max-files}")
+    private int maxFiles;
+
+    @Value("${upload.archive.batch-size}")
+    private int batchSize;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private ImageService imageService;
+
+    @Autowired
+    private StorageBackend storageBackend;
+
+    @Autowired
+    private StorageLayout storageLayout;
+
+    @Autowired
+    private ImageMetrics imageMetrics;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Scrie arhiva în {@code output} pe măsură ce citește fișierele din stocare. Fișierele care lipsesc
+     * din stocare sunt sărite și nu apar în manifest.
+     */
+    public void exportArchive(UUID ownerId, ImageType type, OutputStream output) {
+        imageMetrics.run(ImageMetrics.EXPORT, operation -> {
+            List<Image> images = operation.time(Phase.DB, () -> imageRepository.findByOwnerIdAndType(ownerId, type));
+            operation.files(images.size());
+
+            List<ImageArchiveManifest.Entry> entries = new ArrayList<>(images.size());
+            try {
+                ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(output, BUFFER_SIZE));
+                zip.setLevel(Deflater.NO_COMPRESSION);
+                for (Image image : images) {
+                    String path = IMAGES_FOLDER + image.getFileName();
+                    try (InputStream content = storageBackend.open(image.getFilePath())) {
+                        zip.putNextEntry(new ZipEntry(path));
+                        content.transferTo(zip);
+                        zip.closeEntry();
+                    } catch (NoSuchFileException e) {
+                        log.warn("Skipping {} from the archive of owner {}: file is missing from storage", image.getFilePath(), ownerId);
+                        continue;
+                    }
+                    entries.add(manifestEntry(image, path));
+                }
+
+                ImageArchiveManifest manifest = new ImageArchiveManifest();
+                manifest.setVersion(MANIFEST_VERSION);
+                manifest.setOwnerId(ownerId);
+                manifest.setType(type);
+                manifest.setExportedAt(Instant.now());
+                manifest.setImages(entries);
+                zip.putNextEntry(new ZipEntry(MANIFEST));
+                zip.write(objectMapper.writeValueAsBytes(manifest));
+                zip.closeEntry();
+                zip.finish();
+                zip.flush();
+            } catch (IOException e) {
+                // De obicei clientul a închis conexiunea; antetul răspunsului a plecat deja
+                throw new UncheckedIOException("Archive export interrupted for owner ID: " + ownerId, e);
+            }
+        });
+    }
+
+    /**
+     * Citește arhiva din {@code input} și scrie fiecare imagine direct în stocare, sub un nume nou.
+     * Imaginile trec apoi prin aceeași optimizare ca un upload, iar rândurile se inserează la final,
+     * în loturi, într-o singură tranzacție. Dacă arhiva e coruptă,
+     * depășește limitele sau nu conține tot ce listează manifestul, nu rămâne nimic din import.
+     */
+    public List<ImageDto> importArchive(UUID ownerId, ImageType type, InputStream input) {
+        return imageMetrics.record(ImageMetrics.IMPORT, operation -> {
+            List<StoredFile> storedFiles = new ArrayList<>();
+            Set<String> importedPaths = new HashSet<>();
+            try {
+                operation.time(Phase.FILE_WRITE, () -> {
+                    try (ZipInputStream zip = new ZipInputStream(new BufferedInputStream(input, BUFFER_SIZE))) {
+                        ZipEntry entry;
+                        while ((entry = zip.getNextEntry()) != null) {
+                            if (entry.isDirectory()) {
+                                continue;
+                            }
+                            if (entry.getName().equals(MANIFEST)) {
+                                byte[] manifest = zip.readNBytes(MANIFEST_MAX_SIZE + 1);
+                                if (manifest.length > MANIFEST_MAX_SIZE) {
+                                    throw new InvalidRequestException("Archive manifest is too large.");
+                                }
+                                verifyManifest(objectMapper.readValue(manifest, ImageArchiveManifest.class), importedPaths);
+                            } else if (entry.getName().startsWith(IMAGES_FOLDER)) {
+                                if (storedFiles.size() == maxFiles) {
+                                    throw new InvalidRequestException("An archive can contain at most " + maxFiles + " images.");
+                                }
+                                storedFiles.add(store(entry.getName(), zip, ownerId, type));
+                                importedPaths.add(entry.getName());
+                            }
+                        }
+                    } catch (ZipException | EOFException | JsonProcessingException e) {
+                        throw new InvalidRequestException("Invalid archive: " + e.getMessage());
+                    } catch (IOException e) {
+                        throw new ImageUploadException("Error importing archive for owner ID: " + ownerId, e);
+                    }
+                });
+            } catch (RuntimeException e) {
+                storedFiles.forEach(storedFile -> deleteQuietly(storedFile.key()));
+                throw e;
+            }
+            operation.files(storedFiles.size());
+            storedFiles.forEach(storedFile -> imageMetrics.bytesWritten(storedFile.size()));
+
+            return imageService.registerImportedFiles(operation, storedFiles, ownerId, type, batchSize);
+        });
+    }
+
+    private StoredFile store(String path, ZipInputStream zip, UUID ownerId, ImageType type) throws IOException {
+        String filename = ImageFileNames.sanitize(path.substring(IMAGES_FOLDER.length()));
+        if (filename == null || !ImageFileNames.hasExtension(filename)) {
+            throw new InvalidRequestException("Invalid file name in archive: " + path);
+        }
+        String key = storageLayout.fileKey(type, ownerId, ImageFileNames.unique(ImageFileNames.withoutUniquePrefix(filename)));
+        try {
+            // Scrierea închide stream-ul primit; ZipInputStream trebuie să rămână deschis pentru intrarea următoare
+            return storageBackend.write(key, new FilterInputStream(zip) {
+                @Override
+                public void close() {
+                }
+            }, maxFileSize.toBytes());
+        } catch (FileTooLargeException | IOException e) {
+            deleteQuietly(key);
+            throw e;
+        }
+    }
+
+    // Manifestul vine după fișiere, deci la citirea lui știm deja ce a fost importat
+    private static void verifyManifest(ImageArchiveManifest manifest, Set<String> importedPaths) {
+        if (manifest.getImages() == null) {
+            return;
+        }
+        for (ImageArchiveManifest.Entry entry : manifest.getImages()) {
+            if (!importedPaths.contains(entry.getPath())) {
+                throw new InvalidRequestException("Archive is incomplete: " + entry.getPath() + " is listed in the manifest but missing.");
+            }
+        }
+    }
+
+    private ImageArchiveManifest.Entry manifestEntry(Image image, String path) {
+        ImageArchiveManifest.Entry entry = new ImageArchiveManifest.Entry();
+        entry.setFileName(image.getFileName());
+        entry.setPath(path);
+        entry.setSizeBytes(image.getSizeBytes());
+        entry.setOriginalSizeBytes(image.getOriginalSizeBytes());
+        return entry;
+    }
+
+    private void deleteQuietly(String key) {
+        try {
+            storageBackend.delete(key);
+        } catch (IOException | RuntimeException ignored) {
+            // Fișierul rămas va fi eliminat la următoarea curățare
+        }
+    }
+}
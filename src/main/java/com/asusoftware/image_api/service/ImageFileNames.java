@@ -0,0 +1,49 @@
+package com.asusoftware.image_api.service;
+
+import org.springframework.util.StringUtils;
+
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Reguli comune pentru numele fișierelor salvate: curățarea numelui primit de la client
+ * și prefixarea cu un UUID pentru unicitate.
+ */
+public final class ImageFileNames {
+
+    private static final Pattern UNIQUE_PREFIX = Pattern.compile("^[0-9a-fA-F]{8}(-[0-9a-fA-F]{4}){3}-[0-9a-fA-F]{12}_");
+
+    private ImageFileNames() {
+    }
+
+    /**
+     * Păstrează doar ultimul segment al căii și înlocuiește spațiile cu "_".
+     * Întoarce null dacă nu rămâne un nume utilizabil.
+     */
+    public static String sanitize(String originalFilename) {
+        if (originalFilename == null) {
+            return null;
+        }
+        String filename = StringUtils.getFilename(StringUtils.cleanPath(originalFilename));
+        if (!StringUtils.hasText(filename) || filename.equals("..")) {
+            return null;
+        }
+        return filename.replaceAll("\\s+", "_");
+    }
+
+    public static boolean hasExtension(String filename) {
+        int dot = filename.lastIndexOf('.');
+        return dot > 0 && dot < filename.length() - 1;
+    }
+
+    public static String unique(String sanitizedFilename) {
+        return UUID.randomUUID() + "_" + sanitizedFilename;
+    }
+
+    /**
+     * Numele primit inițial de la client, fără prefixul UUID adăugat de {@link #unique(String)}.
+     */
+    public static String withoutUniquePrefix(String filename) {
+        return UNIQUE_PREFIX.matcher(filename).replaceFirst("");
+    }
+}
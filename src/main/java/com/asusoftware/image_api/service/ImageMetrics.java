@@ -0,0 +1,185 @@
+package com.asusoftware.image_api.service;
+
+import io.micrometer.core.instrument.*;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Metrici Micrometer pentru operațiile din ImageService: durata totală pe operație și rezultat,
+ * durata pe fază (scriere fișiere, DB, scanare director), bytes scriși/șterși, fișiere pe cerere
+ * și eșecuri după tipul excepției. Meterele se creează o singură dată și se refolosesc,
+ * ca pe calea critică să rămână doar citirea ceasului și o actualizare atomică.
+ */
+@Component
+public class ImageMetrics {
+
+    public static final String UPLOAD = "upload";
+    public static final String UPLOAD_STREAM = "upload_stream";
+    public static final String UPLOAD_RESUMABLE = "upload_resumable";
+    public static final String UPDATE = "update";
+    public static final String DELETE = "delete";
+    public static final String DELETE_ALL = "delete_all";
+    public static final String GET = "get";
+    public static final String RECLAIM = "reclaim";
+    public static final String EXPORT = "export";
+    public static final String IMPORT = "import";
+
+    public enum Phase {
+        FILE_WRITE("file_write"),
+        FILE_DELETE("file_delete"),
+        OPTIMIZE("optimize"),
+        DB("db"),
+        DIR_SCAN("dir_scan");
+
+        private final String tag;
+
+        Phase(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+
+    private final Counter bytesWritten;
+    private final Counter bytesDeleted;
+
+    private final Map<String, OperationMeters> operations = new ConcurrentHashMap<>();
+    private final Map<String, Counter> failures = new ConcurrentHashMap<>();
+
+    public ImageMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.bytesWritten = Counter.builder("image.bytes.written")
+                .description("Bytes of image content written to storage")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.bytesDeleted = Counter.builder("image.bytes.deleted")
+                .description("Bytes of image content removed from storage")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Rulează o operație măsurată; excepțiile sunt numărate după tip și propagate neschimbate.
+     */
+    public <T> T record(String operation, Function<Operation, T> body) {
+        Operation measured = new Operation(operations.computeIfAbsent(operation, OperationMeters::new));
+        try {
+            T result = body.apply(measured);
+            measured.stop(measured.meters.success);
+            return result;
+        } catch (RuntimeException | Error e) {
+            failures.computeIfAbsent(operation + ':' + e.getClass().getSimpleName(), key -> Counter.builder("image.operation.failures")
+                    .description("Failed image operations by exception type")
+                    .tag("operation", operation)
+                    .tag("exception", e.getClass().getSimpleName())
+                    .register(meterRegistry)).increment();
+            measured.stop(measured.meters.failure);
+            throw e;
+        }
+    }
+
+    public void run(String operation, Consumer<Operation> body) {
+        record(operation, measured -> {
+            body.accept(measured);
+            return null;
+        });
+    }
+
+    public void bytesWritten(long bytes) {
+        bytesWritten.increment(bytes);
+    }
+
+    public void bytesDeleted(long bytes) {
+        bytesDeleted.increment(bytes);
+    }
+
+    // Toate meterele unei operații, create la prima folosire, ca apelurile următoare să nu mai caute în registry
+    private final class OperationMeters {
+
+        private final Timer success;
+        private final Timer failure;
+        private final Timer[] phases = new Timer[Phase.values().length];
+        private final DistributionSummary files;
+        private final String operation;
+
+        private OperationMeters(String operation) {
+            this.operation = operation;
+            this.success = operationTimer(operation, "success");
+            this.failure = operationTimer(operation, "failure");
+            this.files = DistributionSummary.builder("image.request.files")
+                    .description("Number of files handled by a single request")
+                    .tag("operation", operation)
+                    .register(meterRegistry);
+        }
+
+        // Timerele de fază se înregistrează la prima folosire, ca să nu publicăm histograme goale
+        // pentru combinații care nu apar (de ex. get/file_write). Registry-ul întoarce același meter la o cursă.
+        private Timer phase(Phase phase) {
+            Timer timer = phases[phase.ordinal()];
+            if (timer == null) {
+                timer = Timer.builder("image.operation.phase")
+                        .description("Duration of a phase within an image operation")
+                        .tag("operation", operation)
+                        .tag("phase", phase.tag)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry);
+                phases[phase.ordinal()] = timer;
+            }
+            return timer;
+        }
+
+        private Timer operationTimer(String operation, String outcome) {
+            return Timer.builder("image.operation")
+                    .description("Duration of image operations")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * O execuție a unei operații; fazele se pot măsura de mai multe ori și se adună în același timer.
+     */
+    public static final class Operation {
+
+        private final OperationMeters meters;
+        private final long startNanos = System.nanoTime();
+
+        private Operation(OperationMeters meters) {
+            this.meters = meters;
+        }
+
+        public <T> T time(Phase phase, Supplier<T> action) {
+            long start = System.nanoTime();
+            try {
+                return action.get();
+            } finally {
+                meters.phase(phase).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        public void time(Phase phase, Runnable action) {
+            long start = System.nanoTime();
+            try {
+                action.run();
+            } finally {
+                meters.phase(phase).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        public void files(int count) {
+            meters.files.record(count);
+        }
+
+        private void stop(Timer timer) {
+            timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.asusoftware.image_api.service;
+
+import com.asusoftware.image_api.config.ImageOptimizationProperties;
+import com.asusoftware.image_api.exception.ImageUploadException;
+import com.asusoftware.image_api.storage.StorageBackend;
+import com.asusoftware.image_api.storage.StoredFile;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.*;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Optimizarea imaginilor după upload: orientarea după EXIF, limitarea laturii maxime și recodarea
+ * (JPEG la calitatea configurată, PNG fără pierderi), fără metadate. Rulează doar cu ImageIO/Java2D,
+ * pe un pool propriu și limitat, ca recodarea să nu ocupe thread-urile cererilor sau pe cele de upload.
+ * Formatele pe care ImageIO nu le poate recoda, erorile și pool-ul plin lasă fișierul neschimbat.
+ */
+@Service
+public class ImageOptimizer {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageOptimizer.class);
+
+    private static final String ORIGINALS_FOLDER = "originals/";
+
+    private final ImageOptimizationProperties properties;
+    private final StorageBackend storageBackend;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolExecutor workers;
+    private final Map<String, Counter> skipped = new ConcurrentHashMap<>();
+
+    /**
+     * Fișierul păstrat după optimizare, dimensiunea inițială și cheia originalului păstrat (sau null).
+     */
+    public record Result(StoredFile storedFile, long originalSize, String originalKey) {
+
+        static Result unchanged(StoredFile storedFile) {
+            return new Result(storedFile, storedFile.size(), null);
+        }
+    }
+
+    // Rezultatul recodării; transformed = orientarea sau dimensiunile s-au schimbat
+    record Encoded(byte[] content, boolean transformed) {
+    }
+
+    public ImageOptimizer(ImageOptimizationProperties properties, StorageBackend storageBackend, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.storageBackend = storageBackend;
+        this.meterRegistry = meterRegistry;
+        // Coadă limitată și AbortPolicy: când pool-ul e plin renunțăm la optimizare, nu blocăm upload-ul
+        this.workers = new ThreadPoolExecutor(properties.getThreads(), properties.getThreads(), 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()), new CustomizableThreadFactory("optimize-"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Cheia sub care se păstrează originalul: subdirectorul originals/ de lângă fișier.
+     * Originalele pot conține metadate (de ex. locația GPS), deci nu se servesc public; vezi {@link #isOriginalKey(String)}.
+     */
+    public static String originalKey(String key) {
+        int slash = key.lastIndexOf('/');
+        return key.substring(0, slash + 1) + ORIGINALS_FOLDER + key.substring(slash + 1);
+    }
+
+    // Orice cale care trece printr-un director originals/, indiferent de forma în care e scrisă
+    public static boolean isOriginalKey(String path) {
+        String normalized = '/' + path.replace('\\', '/');
+        return normalized.contains('/' + ORIGINALS_FOLDER);
+    }
+
+    public CompletableFuture<Result> optimizeAsync(StoredFile storedFile) {
+        if (!properties.isEnabled()) {
+            return CompletableFuture.completedFuture(Result.unchanged(storedFile));
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> optimize(storedFile), workers);
+        } catch (RejectedExecutionException e) {
+            skip("busy");
+            return CompletableFuture.completedFuture(Result.unchanged(storedFile));
+        }
+    }
+
+    private Result optimize(StoredFile storedFile) {
+        Encoded encoded;
+        try (InputStream content = storageBackend.open(storedFile.key())) {
+            encoded = reencode(content, properties.getMaxDimension(), properties.getQuality());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not optimize {}, keeping it as uploaded", storedFile.key(), e);
+            skip("error");
+            return Result.unchanged(storedFile);
+        }
+        if (encoded == null) {
+            skip("unsupported");
+            return Result.unchanged(storedFile);
+        }
+        // Fără rotire sau redimensionare, recodarea merită doar dacă fișierul scade
+        if (!encoded.transformed() && encoded.content().length >= storedFile.size()) {
+            skip("no_gain");
+            return Result.unchanged(storedFile);
+        }
+
+        try {
+            String originalKey = null;
+            if (properties.isKeepOriginal()) {
+                originalKey = originalKey(storedFile.key());
+                storageBackend.move(storedFile.key(), originalKey);
+            }
+            StoredFile optimized = storageBackend.write(storedFile.key(), new ByteArrayInputStream(encoded.content()), Long.MAX_VALUE - 1);
+            return new Result(optimized, storedFile.size(), originalKey);
+        } catch (IOException e) {
+            throw new ImageUploadException("Error storing optimized image " + storedFile.fileName(), e);
+        }
+    }
+
+    /**
+     * Decodează imaginea, o orientează, o limitează la {@code maxDimension} și o recodează fără metadate.
+     * Întoarce null pentru formatele altele decât JPEG și PNG.
+     */
+    static Encoded reencode(InputStream content, int maxDimension, float quality) throws IOException {
+        // Orientarea se citește din antet, apoi stream-ul e repus la început pentru decodare
+        BufferedInputStream buffered = new BufferedInputStream(content, 64 * 1024);
+        buffered.mark(ExifOrientation.SCAN_LIMIT);
+        int orientation = ExifOrientation.read(buffered.readNBytes(ExifOrientation.SCAN_LIMIT));
+        buffered.reset();
+
+        try (ImageInputStream input = ImageIO.createImageInputStream(buffered)) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            String format = reader.getFormatName().toLowerCase(Locale.ROOT);
+            if (!format.equals("jpeg") && !format.equals("png")) {
+                reader.dispose();
+                return null;
+            }
+
+            BufferedImage image;
+            try {
+                reader.setInput(input, true, true);
+                // Pozele foarte mari se decodează subeșantionat, ca memoria să depindă de maxDimension, nu de cameră
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, Math.max(reader.getWidth(0), reader.getHeight(0)) / (2 * maxDimension));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                image = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+
+            boolean transformed = orientation != ExifOrientation.NORMAL;
+            image = orient(image, orientation);
+            if (Math.max(image.getWidth(), image.getHeight()) > maxDimension) {
+                int targetWidth = image.getWidth() >= image.getHeight()
+                        ? maxDimension
+                        : Math.max(1, (int) Math.round((double) image.getWidth() * maxDimension / image.getHeight()));
+                image = ImageVariantService.resize(image, targetWidth, format.equals("png"));
+                transformed = true;
+            }
+            return new Encoded(encode(image, format, quality), transformed);
+        }
+    }
+
+    // Aplică transformarea indicată de tag-ul EXIF Orientation (2-8), ca imaginea să fie afișată corect fără el
+    static BufferedImage orient(BufferedImage image, int orientation) {
+        int w = image.getWidth();
+        int h = image.getHeight();
+        AffineTransform transform = switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, w, 0);   // oglindire orizontală
+            case 3 -> new AffineTransform(-1, 0, 0, -1, w, h);  // 180°
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, h);   // oglindire verticală
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);    // transpunere
+            case 6 -> new AffineTransform(0, 1, -1, 0, h, 0);   // 90° în sensul acelor de ceasornic
+            case 7 -> new AffineTransform(0, -1, -1, 0, h, w);  // transversală
+            case 8 -> new AffineTransform(0, -1, 1, 0, 0, w);   // 90° în sens invers
+            default -> null;
+        };
+        if (transform == null) {
+            return image;
+        }
+        boolean swap = orientation >= 5;
+        int type = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage oriented = new BufferedImage(swap ? h : w, swap ? w : h, type);
+        Graphics2D graphics = oriented.createGraphics();
+        try {
+            graphics.drawImage(image, transform, null);
+        } finally {
+            graphics.dispose();
+        }
+        return oriented;
+    }
+
+    // Fără IIOMetadata, writer-ul scrie doar antetul minim (JFIF pentru JPEG): EXIF, ICC și previzualizările dispar
+    private static byte[] encode(BufferedImage image, String format, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(format).next();
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(content)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (format.equals("jpeg")) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(quality);
+                param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return content.toByteArray();
+    }
+
+    private void skip(String reason) {
+        skipped.computeIfAbsent(reason, key -> Counter.builder("image.optimization.skipped")
+                .description("Uploaded images stored without optimization, by reason")
+                .tag("reason", key)
+                .register(meterRegistry)).increment();
+    }
+}
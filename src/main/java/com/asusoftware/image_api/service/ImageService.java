@@ -1,251 +1,534 @@
 package com.asusoftware.image_api.service;
 
-import com.asusoftware.image_api.exception.ImageDeletionException;
+import com.asusoftware.image_api.config.ImageVariantProperties;
 import com.asusoftware.image_api.exception.ImageUploadException;
+import com.asusoftware.image_api.exception.InvalidRequestException;
+import com.asusoftware.image_api.exception.ResourceNotFoundException;
 import com.asusoftware.image_api.model.Image;
 import com.asusoftware.image_api.model.ImageType;
 import com.asusoftware.image_api.model.dto.ImageDto;
 import com.asusoftware.image_api.repository.ImageRepository;
+import com.asusoftware.image_api.service.ImageMetrics.Phase;
+import com.asusoftware.image_api.storage.StorageBackend;
+import com.asusoftware.image_api.storage.StorageLayout;
+import com.asusoftware.image_api.storage.StoredFile;
 import jakarta.transaction.Transactional;
 import org.antlr.v4.runtime.misc.NotNull;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.nio.file.*;
+import java.io.InputStream;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 @Service
 public class ImageService {
 
-    @Value("${upload.dir}")
-    private String uploadDir;  // Directory di caricamento presa dal file application.yml
-
     @Value("${external-link.url}")
     private String externalLinkUrl;  // URL base per le immagini preso dal file application.yml
 
+    @Value("${upload.stream.max-file-size}")
+    private DataSize streamMaxFileSize;  // Limita pentru upload-urile în streaming (fără multipart)
+
+    @Value("${spring.servlet.multipart.max-file-size}")
+    private DataSize multipartMaxFileSize;
+
+    @Value("${upload.dedup.enabled}")
+    private boolean dedupEnabled;  // Stocare adresată prin conținut: fișierele identice se păstrează o singură dată
+
+    @Value("${upload.staging.ttl}")
+    private Duration stagingTtl;  // Cât timp un fișier scris încă nereferit de vreun rând e păstrat până la ștergere
+
+    @Value("${upload.executor.per-request-parallelism}")
+    private int perRequestParallelism;  // Câte fișiere ale aceleiași cereri se scriu simultan
+
     @Autowired
     private ImageRepository imageRepository;
 
-    /**
-     * Metodă pentru încărcarea de imagini noi pentru un owner (poate fi fie post, fie user).
-     */
-    @Transactional
-    public List<ImageDto> uploadImages(List<MultipartFile> images, UUID ownerId, ImageType type) {
-        String folder = type == ImageType.POST ? "posts" : "users";  // Folosim folderul potrivit
-        Path ownerImagesDir = Paths.get(uploadDir, folder, ownerId.toString()).toAbsolutePath().normalize();
+    @Autowired
+    @Qualifier("uploadExecutor")
+    private AsyncTaskExecutor uploadExecutor;
 
-        List<ImageDto> uploadedImageDtos;
+    @Autowired
+    private ImageVariantService imageVariantService;
 
-        try {
-            Files.createDirectories(ownerImagesDir);  // Creează directorul dacă nu există
+    @Autowired
+    private ImageVariantProperties imageVariantProperties;
 
-            for (MultipartFile image : images) {
-                String originalFilename = image.getOriginalFilename();
-                if (originalFilename == null) {
-                    throw new ImageUploadException("Invalid file name.");
-                }
+    @Autowired
+    private ContentAddressedStore contentAddressedStore;
 
-                // Sanitizăm numele fișierului și adăugăm un UUID pentru unicitate
-                String sanitizedFilename = originalFilename.replaceAll("\\s+", "_");
-                String uniqueFilename = UUID.randomUUID() + "_" + sanitizedFilename;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
 
-                // Salvăm fișierul pe server
-                Path filePath = ownerImagesDir.resolve(uniqueFilename);
-                Files.copy(image.getInputStream(), filePath);
+    @Autowired
+    private OwnerImagesCache ownerImagesCache;
 
-                // Construim URL-ul public
-                String fileUrl = externalLinkUrl + folder + '/' + ownerId + '/' + uniqueFilename;
+    @Autowired
+    private ImageMetrics imageMetrics;
 
-                // Salvăm imaginea în baza de date
-                Image savedImage = new Image();
-                savedImage.setFileName(uniqueFilename);
-                savedImage.setFilePath(filePath.toString());
-                savedImage.setFileUrl(fileUrl);
-                savedImage.setOwnerId(ownerId);
-                savedImage.setType(type);
+    @Autowired
+    private FileReclaimer fileReclaimer;
 
-                imageRepository.save(savedImage);
-            }
+    @Autowired
+    private StorageBackend storageBackend;
 
-            // Returnăm DTO-urile pentru toate imaginile încărcate
-            uploadedImageDtos = constructImageDtosForOwner(ownerId, type);
+    @Autowired
+    private StorageLayout storageLayout;
 
-        } catch (IOException e) {
-            throw new ImageUploadException("Error uploading images for owner ID: " + ownerId, e);
-        }
+    @Autowired
+    private ImageOptimizer imageOptimizer;
 
-        return uploadedImageDtos;
+    /**
+     * Metodă pentru încărcarea de imagini noi pentru un owner (poate fi fie post, fie user).
+     * Fișierele se scriu în paralel, apoi toate rândurile se inserează într-un singur saveAll.
+     * Conexiunea la DB e folosită doar pentru inserare, nu pe durata scrierii fișierelor.
+     */
+    public List<ImageDto> uploadImages(List<MultipartFile> images, UUID ownerId, ImageType type) {
+        return imageMetrics.record(ImageMetrics.UPLOAD, operation -> {
+            // Validăm toate numele înainte de a scrie ceva pe disc
+            List<String> keys = new ArrayList<>();
+            for (MultipartFile image : images) {
+                String sanitizedFilename = ImageFileNames.sanitize(image.getOriginalFilename());
+                if (sanitizedFilename == null) {
+                    throw new ImageUploadException("Invalid file name.");
+                }
+                keys.add(storageLayout.fileKey(type, ownerId, ImageFileNames.unique(sanitizedFilename)));
+            }
+            operation.files(keys.size());
+
+            List<StoredFile> storedFiles = operation.time(Phase.FILE_WRITE, () -> writeFilesInParallel(images, keys, ownerId));
+            List<ImageOptimizer.Result> optimized = operation.time(Phase.OPTIMIZE, () -> optimizeAll(storedFiles, keys, ownerId));
+            try {
+                operation.time(Phase.DB, () -> transactionTemplate.executeWithoutResult(status -> {
+                    ownerImagesCache.evict(ownerId, type);
+                    persistImages(optimized, ownerId, type);
+                }));
+            } catch (RuntimeException e) {
+                cleanUpWrites(List.of(), keys);
+                throw e;
+            }
+
+            // Returnăm DTO-urile pentru toate imaginile owner-ului
+            return operation.time(Phase.DB, () -> constructImageDtosForOwner(ownerId, type));
+        });
     }
 
     /**
-     * Metodă pentru actualizarea imaginilor (ștergerea celor vechi și adăugarea celor noi).
+     * Încarcă o singură imagine direct din corpul cererii, fără multipart și fără fișiere temporare.
+     * Fișierul este scris prin FileChannel, iar hash-ul și dimensiunea sunt verificate în timpul scrierii.
+     * Nu deschidem tranzacție aici: conexiunea la DB este folosită doar pentru save, nu pe durata transferului.
      */
-    @Transactional
-    public List<ImageDto> updateImagesByOwnerId(UUID ownerId, List<ImageDto> existingImages, List<MultipartFile> newImages, ImageType type) {
-        String folder = type == ImageType.POST ? "posts" : "users";
-        Path ownerImagesDir = Paths.get(uploadDir, folder, ownerId.toString()).toAbsolutePath().normalize();
+    public ImageDto uploadImageStream(InputStream content, String originalFilename, UUID ownerId, ImageType type, String expectedSha256) {
+        return imageMetrics.record(ImageMetrics.UPLOAD_STREAM, operation -> {
+            String filename = ImageFileNames.sanitize(originalFilename);
+            if (filename == null) {
+                throw new InvalidRequestException("Invalid file name.");
+            }
+            operation.files(1);
 
-        List<Image> updatedImages = new ArrayList<>();
+            String key = storageLayout.fileKey(type, ownerId, ImageFileNames.unique(filename));
 
-        // 1. Verificăm imaginile existente și ștergem cele care nu mai sunt prezente în request
-        List<Image> imagesInDb = imageRepository.findByOwnerIdAndType(ownerId, type);
-        Set<UUID> existingImageIds = existingImages.stream()
-                .map(ImageDto::getId)
-                .collect(Collectors.toSet());
+            StoredFile storedFile = operation.time(Phase.FILE_WRITE, () -> {
+                try {
+                    return storageBackend.write(key, content, streamMaxFileSize.toBytes());
+                } catch (IOException e) {
+                    throw new ImageUploadException("Error streaming image for owner ID: " + ownerId, e);
+                }
+            });
+            imageMetrics.bytesWritten(storedFile.size());
 
-        for (Image imageInDb : imagesInDb) {
-            if (!existingImageIds.contains(imageInDb.getId())) {
-                // Imaginea nu mai este în request, o ștergem din DB și de pe server
-                deleteImage(imageInDb.getFileName(), folder, ownerId);
-            } else {
-                // Imaginea există, o păstrăm în lista actualizată
-                updatedImages.add(imageInDb);
+            // Verificăm integritatea dacă clientul a trimis hash-ul conținutului
+            if (expectedSha256 != null && !expectedSha256.equalsIgnoreCase(storedFile.sha256())) {
+                deleteQuietly(key);
+                throw new InvalidRequestException("Content hash mismatch for file: " + filename);
             }
-        }
+            return saveStoredFile(operation, storedFile, ownerId, type, () -> { });
+        });
+    }
 
-        // 2. Adăugăm noile imagini primite în request
-        if (newImages != null && !newImages.isEmpty()) {
-            try {
-                Files.createDirectories(ownerImagesDir);  // Creăm directorul dacă nu există
+    /**
+     * Înregistrează un fișier adus deja în stocare de un upload reluabil: optimizare, apoi rândul Image.
+     * {@code inTransaction} rulează în tranzacția care inserează rândul (de ex. ștergerea sesiunii de upload);
+     * dacă aruncă, fișierul este eliminat și nu rămâne nimic în urmă.
+     */
+    public ImageDto registerStoredFile(StoredFile storedFile, UUID ownerId, ImageType type, Runnable inTransaction) {
+        return imageMetrics.record(ImageMetrics.UPLOAD_RESUMABLE, operation -> {
+            operation.files(1);
+            return saveStoredFile(operation, storedFile, ownerId, type, inTransaction);
+        });
+    }
 
-                for (MultipartFile newImage : newImages) {
-                    String originalFilename = newImage.getOriginalFilename();
-                    if (originalFilename == null || !originalFilename.contains(".")) {
-                        throw new ImageUploadException("Invalid file name or no extension found.");
-                    }
+    /**
+     * Înregistrează fișierele aduse în stocare de un import de arhivă. Trec prin ImageOptimizer ca la upload:
+     * arhiva vine de la client, deci nu putem presupune că metadatele au fost deja eliminate.
+     * Rândurile se inserează în loturi de {@code batchSize}, toate în aceeași tranzacție:
+     * dacă un lot eșuează, importul nu lasă în urmă nici rânduri, nici fișiere.
+     */
+    public List<ImageDto> registerImportedFiles(ImageMetrics.Operation operation, List<StoredFile> storedFiles, UUID ownerId,
+                                                ImageType type, int batchSize) {
+        List<String> keys = storedFiles.stream().map(StoredFile::key).collect(Collectors.toList());
+        List<ImageOptimizer.Result> optimized = operation.time(Phase.OPTIMIZE, () -> optimizeAll(storedFiles, keys, ownerId));
 
-                    // Extragem extensia fișierului
-                    String fileExtension = originalFilename.substring(originalFilename.lastIndexOf("."));
-                    String sanitizedFilename = originalFilename.replaceAll("\\s+", "_").replace(fileExtension, "");
+        List<Image> savedImages;
+        try {
+            savedImages = operation.time(Phase.DB, () -> transactionTemplate.execute(status -> {
+                List<Image> images = new ArrayList<>(optimized.size());
+                for (int from = 0; from < optimized.size(); from += batchSize) {
+                    images.addAll(persistImages(optimized.subList(from, Math.min(from + batchSize, optimized.size())), ownerId, type));
+                }
+                ownerImagesCache.evict(ownerId, type);
+                return images;
+            }));
+        } catch (RuntimeException e) {
+            cleanUpWrites(List.of(), keys);
+            throw e;
+        }
+        return savedImages.stream().map(ImageDto::toDto).collect(Collectors.toList());
+    }
 
-                    // Adăugăm un UUID pentru unicitate și păstrăm extensia fișierului
-                    String uniqueFilename = UUID.randomUUID() + "_" + sanitizedFilename + fileExtension;
+    private ImageDto saveStoredFile(ImageMetrics.Operation operation, StoredFile storedFile, UUID ownerId, ImageType type,
+                                    Runnable inTransaction) {
+        List<ImageOptimizer.Result> optimized = operation.time(Phase.OPTIMIZE,
+                () -> optimizeAll(List.of(storedFile), List.of(storedFile.key()), ownerId));
 
-                    // Salvăm fișierul pe server
-                    Path filePath = ownerImagesDir.resolve(uniqueFilename);
-                    Files.copy(newImage.getInputStream(), filePath);
+        // Tranzacția acoperă doar scrierea metadatelor, nu și transferul fișierului
+        List<Image> savedImages;
+        try {
+            savedImages = operation.time(Phase.DB, () -> transactionTemplate.execute(status -> {
+                inTransaction.run();
+                ownerImagesCache.evict(ownerId, type);
+                return persistImages(optimized, ownerId, type);
+            }));
+        } catch (RuntimeException e) {
+            deleteQuietly(storedFile.key());
+            deleteQuietly(ImageOptimizer.originalKey(storedFile.key()));
+            throw e;
+        }
+        return ImageDto.toDto(savedImages.get(0));
+    }
 
-                    // Construim URL-ul public
-                    String fileUrl = externalLinkUrl + folder + '/' + ownerId + '/' + uniqueFilename;
+    /**
+     * Metodă pentru actualizarea imaginilor (ștergerea celor vechi și adăugarea celor noi), în două faze.
+     * Fișierele noi se scriu sub cheile lor finale, nereferite de niciun rând și păzite de task-uri de reclaim
+     * comise înainte de scriere (upload.staging.ttl). Apoi o singură tranzacție scurtă aplică diferența:
+     * inserează rândurile noi, șterge rândurile scoase din request (ID-urile necunoscute sunt ignorate),
+     * programează fișierele lor pentru ștergere și anulează paza fișierelor noi. Răspunsul se construiește
+     * din diferența calculată, fără recitirea galeriei.
+     */
+    public List<ImageDto> updateImagesByOwnerId(UUID ownerId, List<ImageDto> existingImages, List<MultipartFile> newImages, ImageType type) {
+        if (existingImages == null) {
+            throw new InvalidRequestException("existingImages is required; send an empty list to remove all images.");
+        }
+        return imageMetrics.record(ImageMetrics.UPDATE, operation -> {
+            Set<UUID> keptImageIds = existingImages.stream()
+                    .map(ImageDto::getId)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toSet());
+
+            // 1. Validăm numele și scriem fișierele noi, fără tranzacție
+            int newImageCount = newImages == null ? 0 : newImages.size();
+            List<String> keys = new ArrayList<>(newImageCount);
+            for (int i = 0; i < newImageCount; i++) {
+                String sanitizedFilename = ImageFileNames.sanitize(newImages.get(i).getOriginalFilename());
+                if (sanitizedFilename == null || !ImageFileNames.hasExtension(sanitizedFilename)) {
+                    throw new ImageUploadException("Invalid file name or no extension found.");
+                }
+                keys.add(storageLayout.fileKey(type, ownerId, ImageFileNames.unique(sanitizedFilename)));
+            }
 
-                    // Salvăm imaginea în baza de date
-                    Image savedImage = new Image();
-                    savedImage.setFileName(uniqueFilename); // Include extensia în filename
-                    savedImage.setFilePath(filePath.toString());
-                    savedImage.setFileUrl(fileUrl);
-                    savedImage.setOwnerId(ownerId);
-                    savedImage.setType(type);
+            List<Long> stagedTaskIds = List.of();
+            List<ImageOptimizer.Result> optimized = List.of();
+            if (newImageCount > 0) {
+                List<String> stagedKeys = new ArrayList<>(keys);
+                keys.forEach(key -> stagedKeys.add(ImageOptimizer.originalKey(key)));
+                stagedTaskIds = operation.time(Phase.DB, () -> fileReclaimer.stage(stagedKeys, stagingTtl));
 
-                    updatedImages.add(imageRepository.save(savedImage));
-                }
-            } catch (IOException e) {
-                throw new ImageUploadException("Error uploading new images for owner ID: " + ownerId, e);
+                List<StoredFile> storedFiles = operation.time(Phase.FILE_WRITE, () -> writeFilesInParallel(newImages, keys, ownerId));
+                optimized = operation.time(Phase.OPTIMIZE, () -> optimizeAll(storedFiles, keys, ownerId));
             }
-        }
 
-        // 3. Returnăm DTO-urile actualizate pentru toate imaginile
-        return constructImageDtosForOwner(ownerId, type);
+            // 2. Aplicăm diferența într-o singură tranzacție
+            List<Long> promotedTaskIds = stagedTaskIds;
+            List<ImageOptimizer.Result> newFiles = optimized;
+            List<ImageDto> images = new ArrayList<>();
+            int removedCount;
+            try {
+                removedCount = operation.time(Phase.DB, () -> transactionTemplate.execute(status -> {
+                    ownerImagesCache.evict(ownerId, type);
+                    List<UUID> removedImageIds = new ArrayList<>();
+                    Map<String, Long> releasedReferences = new HashMap<>();
+                    for (Image imageInDb : imageRepository.findByOwnerIdAndType(ownerId, type)) {
+                        if (keptImageIds.contains(imageInDb.getId())) {
+                            images.add(ImageDto.toDto(imageInDb));
+                        } else {
+                            removedImageIds.add(imageInDb.getId());
+                            // Blob-urile deduplicate doar își pierd o referință
+                            if (imageInDb.getContentHash() != null) {
+                                releasedReferences.merge(imageInDb.getContentHash(), 1L, Long::sum);
+                            }
+                        }
+                    }
+                    releasedReferences.forEach(contentAddressedStore::release);
+                    // Fișierele se programează pentru ștergere, iar rândurile se șterg într-un singur DELETE ... WHERE id IN (...)
+                    if (!removedImageIds.isEmpty()) {
+                        fileReclaimer.enqueueFilesOfImages(removedImageIds);
+                        imageRepository.deleteAllByIdInBatch(removedImageIds);
+                    }
+                    if (!newFiles.isEmpty()) {
+                        persistImages(newFiles, ownerId, type).forEach(image -> images.add(ImageDto.toDto(image)));
+                        fileReclaimer.release(promotedTaskIds);
+                    }
+                    return removedImageIds.size();
+                }));
+            } catch (RuntimeException e) {
+                // Task-urile de pază rămân și șterg la scadență orice fișier care ar fi scăpat de curățarea de aici
+                cleanUpWrites(List.of(), keys);
+                throw e;
+            }
+            operation.files(removedCount + newImageCount);
+            return images;
+        });
     }
 
     /**
-     * Metodă pentru ștergerea unei imagini din server și din baza de date.
+     * Metodă pentru ștergerea unei imagini. Se șterge doar rândul din DB; fișierul este programat
+     * pentru ștergere în aceeași tranzacție și eliminat în fundal de {@link FileReclaimer}.
      */
     @Transactional
     public void deleteImage(String filename, String folder, @NotNull UUID ownerId) {
-        // Elimina imaginea din baza de date și de pe server
-        Path ownerImagesDir = Paths.get(uploadDir, folder, ownerId.toString()).toAbsolutePath().normalize();
-        Path filePath = ownerImagesDir.resolve(filename);
-
-        try {
-            if (Files.exists(filePath)) {
-                Files.delete(filePath); // Șterge fișierul de pe server
-            } else {
-                throw new FileNotFoundException("Fișierul nu a fost găsit pe server: " + filename);
-            }
-
-            // Șterge imaginea din baza de date
-            imageRepository.deleteByFileName(filename);
-        } catch (IOException e) {
-            throw new ImageDeletionException("Eroare la ștergerea imaginii: " + filename, e);
-        }
+        imageMetrics.run(ImageMetrics.DELETE, operation -> {
+            ImageType type = folder.equals("posts") ? ImageType.POST : ImageType.USER;
+            ownerImagesCache.evict(ownerId, type);
+            operation.files(1);
+
+            Image image = operation.time(Phase.DB, () -> imageRepository.findByFileName(filename))
+                    .filter(found -> found.getOwnerId().equals(ownerId) && found.getType() == type)
+                    .orElseThrow(() -> new ResourceNotFoundException("Image not found: " + filename));
+
+            operation.time(Phase.DB, () -> {
+                // Imaginile deduplicate doar eliberează referința; blob-ul se șterge când nu mai e folosit
+                if (image.getContentHash() != null) {
+                    contentAddressedStore.release(image.getContentHash(), 1);
+                } else {
+                    fileReclaimer.enqueue(image.getFilePath());
+                }
+                if (image.getOriginalPath() != null) {
+                    fileReclaimer.enqueue(image.getOriginalPath());
+                }
+                imageRepository.deleteByFileName(filename);
+            });
+        });
     }
 
+    /**
+     * Șterge toate imaginile unui owner doar la nivel de metadate: fișierele devin task-uri de ștergere
+     * printr-un singur INSERT ... SELECT, apoi rândurile se șterg printr-un singur DELETE. Nu se atinge discul,
+     * deci durata nu depinde de numărul de fișiere. Directorul owner-ului rămâne pe loc (gol, după ștergere).
+     */
     @Transactional
     public void deleteAllImagesAndFolder(UUID ownerId, String folder) {
-        Path ownerImagesDir = Paths.get(uploadDir, folder, ownerId.toString()).toAbsolutePath().normalize();
+        imageMetrics.run(ImageMetrics.DELETE_ALL, operation -> {
+            ImageType type = folder.equals("posts") ? ImageType.POST : ImageType.USER;
+            ownerImagesCache.evict(ownerId, type);
+
+            int deletedImages = operation.time(Phase.DB, () -> {
+                imageRepository.countContentHashReferences(ownerId, type)
+                        .forEach(references -> contentAddressedStore.release(references.getContentHash(), references.getReferenceCount()));
+                fileReclaimer.enqueueFilesOfOwner(ownerId, type);
+                return imageRepository.deleteByOwnerIdAndType(ownerId, type);
+            });
+            operation.files(deletedImages);
+        });
+    }
 
-        try {
-            // 1. Ștergem toate înregistrările din baza de date
-            List<Image> images = imageRepository.findByOwnerIdAndType(ownerId, folder.equals("posts") ? ImageType.POST : ImageType.USER);
-            for (Image image : images) {
-                imageRepository.delete(image); // Șterge din baza de date
-            }
+    /**
+     * Citire prin cache: doar la miss se face interogarea, în tranzacția read-only a repository-ului,
+     * deci conexiunea la DB e ținută doar pe durata acelui SELECT.
+     */
+    public List<ImageDto> getImagesByOwnerId(UUID ownerId, ImageType type) {
+        return imageMetrics.record(ImageMetrics.GET, operation -> ownerImagesCache.get(ownerId, type,
+                () -> operation.time(Phase.DB, () -> imageRepository.findByOwnerIdAndType(ownerId, type).stream()
+                        .map(ImageDto::toDto)
+                        .collect(Collectors.toList()))));
+    }
 
-            // 2. Ștergem toate fișierele și subfolderul de pe server
-            if (Files.exists(ownerImagesDir)) {
-                Files.walk(ownerImagesDir)
-                        .sorted(Comparator.reverseOrder()) // Sortează în ordine inversă pentru a șterge fișierele înaintea folderelor
-                        .forEach(file -> {
-                            try {
-                                Files.delete(file);
-                            } catch (IOException e) {
-                                throw new ImageDeletionException("Error deleting file: " + file.toString(), e);
-                            }
-                        });
+    /**
+     * Imaginile pentru mai mulți owneri: cele din cache se folosesc direct, restul vin dintr-o singură
+     * interogare owner_id IN (...). Rezultatul e livrat owner cu owner, în ordinea cererii, ca să poată fi
+     * scris în răspuns pe măsură ce e produs. Owner-ii fără imagini primesc o listă goală.
+     */
+    public void forEachOwnerImages(Collection<UUID> ownerIds, ImageType type, BiConsumer<UUID, List<ImageDto>> consumer) {
+        Map<UUID, List<ImageDto>> cached = new HashMap<>();
+        List<UUID> missing = new ArrayList<>();
+        for (UUID ownerId : ownerIds) {
+            List<ImageDto> images = ownerImagesCache.getIfPresent(ownerId, type);
+            if (images != null) {
+                cached.put(ownerId, images);
             } else {
-                throw new FileNotFoundException("Directory not found: " + ownerImagesDir.toString());
+                missing.add(ownerId);
             }
-        } catch (IOException e) {
-            throw new ImageDeletionException("Error deleting all images for owner ID: " + ownerId, e);
         }
-    }
 
-    @Transactional
-    public List<ImageDto> getImagesByOwnerId(UUID ownerId, ImageType type) {
-        List<Image> images = imageRepository.findByOwnerIdAndType(ownerId, type);
-        return images.stream().map(ImageDto::toDto).collect(Collectors.toList());
+        // Rezultatele interogării nu se pun în cache: o invalidare concurentă le-ar putea face depășite
+        Map<UUID, List<ImageDto>> loaded = missing.isEmpty() ? Map.of() : imageRepository.findByOwnerIdInAndType(missing, type).stream()
+                .collect(Collectors.groupingBy(Image::getOwnerId, Collectors.mapping(ImageDto::toDto, Collectors.toList())));
+
+        for (UUID ownerId : ownerIds) {
+            List<ImageDto> images = cached.containsKey(ownerId) ? cached.get(ownerId) : loaded.getOrDefault(ownerId, List.of());
+            consumer.accept(ownerId, images);
+        }
     }
 
     /**
      * Construiește DTO-urile pentru imagini în funcție de owner (post sau user).
+     * Folosește o singură interogare pe indexul (owner_id, type), fără scanarea directorului.
      */
     private List<ImageDto> constructImageDtosForOwner(UUID ownerId, ImageType type) {
-        String folder = type == ImageType.POST ? "posts" : "users";
-        String baseUrl = externalLinkUrl + folder + '/' + ownerId + '/';
+        return imageRepository.findByOwnerIdAndType(ownerId, type).stream()
+                .map(ImageDto::toDto)
+                .collect(Collectors.toList());
+    }
 
-        Path ownerImagesDir = Paths.get(uploadDir, folder, ownerId.toString()).toAbsolutePath().normalize();
-        List<ImageDto> imageDtos = new ArrayList<>();
+    /**
+     * Scrie fișierele unei cereri în paralel pe uploadExecutor, cu cel mult
+     * upload.executor.per-request-parallelism scrieri simultane. Dacă un fișier eșuează,
+     * le ștergem pe cele deja scrise, ca cererea să nu lase nimic în urmă.
+     */
+    private List<StoredFile> writeFilesInParallel(List<MultipartFile> files, List<String> keys, UUID ownerId) {
+        Semaphore permits = new Semaphore(perRequestParallelism);
+        List<CompletableFuture<StoredFile>> writes = new ArrayList<>(files.size());
 
         try {
-            if (Files.exists(ownerImagesDir)) {
-                Files.list(ownerImagesDir).forEach(filePath -> {
-                    if (Files.isRegularFile(filePath)) {
-                        String imageUrl = baseUrl + filePath.getFileName().toString();
-
-                        // Retrieve the image entity from the database using the fileName
-                        Optional<Image> imageOpt = imageRepository.findByFileName(filePath.getFileName().toString());
-
-                        // If the image is found, create the ImageDto
-                        if (imageOpt.isPresent()) {
-                            Image image = imageOpt.get();
-                            ImageDto imageDto = new ImageDto();
-                            imageDto.setId(image.getId());  // Set the ID from the image entity
-                            imageDto.setFileName(image.getFileName());
-                            imageDto.setFileUrl(imageUrl);
-                            imageDtos.add(imageDto);
+            for (int i = 0; i < files.size(); i++) {
+                MultipartFile file = files.get(i);
+                String key = keys.get(i);
+                permits.acquire();
+                try {
+                    writes.add(CompletableFuture.supplyAsync(() -> {
+                        try {
+                            return storageBackend.write(key, file.getInputStream(), multipartMaxFileSize.toBytes());
+                        } catch (IOException e) {
+                            throw new ImageUploadException("Error uploading images for owner ID: " + ownerId, e);
+                        } finally {
+                            permits.release();
                         }
-                    }
-                });
+                    }, uploadExecutor));
+                } catch (RuntimeException e) {
+                    permits.release();
+                    throw e;
+                }
+            }
+            CompletableFuture.allOf(writes.toArray(CompletableFuture[]::new)).join();
+            List<StoredFile> storedFiles = writes.stream().map(CompletableFuture::join).collect(Collectors.toList());
+            storedFiles.forEach(storedFile -> imageMetrics.bytesWritten(storedFile.size()));
+            return storedFiles;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cleanUpWrites(writes, keys);
+            throw new ImageUploadException("Upload interrupted for owner ID: " + ownerId, e);
+        } catch (RuntimeException e) {
+            cleanUpWrites(writes, keys);
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new ImageUploadException("Error uploading images for owner ID: " + ownerId, cause);
+        }
+    }
+
+    private void cleanUpWrites(List<? extends CompletableFuture<?>> writes, List<String> keys) {
+        // Așteptăm și scrierile încă în curs, altfel ar putea crea fișierul după ștergere
+        writes.forEach(write -> write.handle((result, error) -> null).join());
+        keys.forEach(key -> {
+            deleteQuietly(key);
+            deleteQuietly(ImageOptimizer.originalKey(key));
+        });
+    }
+
+    /**
+     * Trece fișierele scrise prin ImageOptimizer, pe pool-ul lui. Cu optimizarea dezactivată
+     * rezultatele sunt imediate; dacă păstrarea unui fișier optimizat eșuează, cererea e anulată ca la scriere.
+     */
+    private List<ImageOptimizer.Result> optimizeAll(List<StoredFile> storedFiles, List<String> keys, UUID ownerId) {
+        List<CompletableFuture<ImageOptimizer.Result>> optimizations = storedFiles.stream()
+                .map(imageOptimizer::optimizeAsync)
+                .collect(Collectors.toList());
+        try {
+            return optimizations.stream().map(CompletableFuture::join).collect(Collectors.toList());
+        } catch (RuntimeException e) {
+            cleanUpWrites(optimizations, keys);
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new ImageUploadException("Error optimizing images for owner ID: " + ownerId, cause);
+        }
+    }
+
+    /**
+     * Salvează rândurile pentru fișierele scrise, într-un singur batch. În modul deduplicat fișierele
+     * sunt preluate de ContentAddressedStore și imaginea referă blob-ul după hash.
+     * Calea salvată este cheia din stocare, relativă la upload.dir, iar URL-ul public o folosește direct.
+     */
+    private List<Image> persistImages(List<ImageOptimizer.Result> optimizedFiles, UUID ownerId, ImageType type) {
+        List<Image> images = new ArrayList<>(optimizedFiles.size());
+        try {
+            for (ImageOptimizer.Result optimized : optimizedFiles) {
+                StoredFile storedFile = optimized.storedFile();
+                Image image = new Image();
+                image.setFileName(storedFile.fileName());
+                String key = storedFile.key();
+                if (dedupEnabled) {
+                    key = contentAddressedStore.adopt(storedFile);
+                    image.setContentHash(storedFile.sha256());
+                }
+                image.setFilePath(key);
+                image.setFileUrl(externalLinkUrl + key);
+                image.setSizeBytes(storedFile.size());
+                image.setOriginalSizeBytes(optimized.originalSize());
+                image.setOriginalPath(optimized.originalKey());
+                image.setOwnerId(ownerId);
+                image.setType(type);
+                images.add(image);
             }
-        } catch (IOException e) {
-            throw new ImageUploadException("Error constructing image DTOs for owner ID: " + ownerId, e);
+            imageRepository.saveAllAndFlush(images);
+        } catch (RuntimeException e) {
+            // Blob-urile create și mutate de această tranzacție sunt șterse de ContentAddressedStore la rollback
+            optimizedFiles.forEach(optimized -> {
+                deleteQuietly(optimized.storedFile().key());
+                if (optimized.originalKey() != null) {
+                    deleteQuietly(optimized.originalKey());
+                }
+            });
+            throw e;
+        }
+
+        if (imageVariantProperties.isEager()) {
+            imageVariantService.generateAllAsync(images.stream()
+                    .map(Image::getFilePath)
+                    .collect(Collectors.toList()));
         }
+        return images;
+    }
 
-        return imageDtos;
+    private void deleteQuietly(String key) {
+        try {
+            storageBackend.delete(key);
+        } catch (IOException | RuntimeException ignored) {
+            // Fișierul rămas va fi eliminat la următoarea curățare
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,374 @@
+package com.asusoftware.image_api.service;
+
+import com.asusoftware.image_api.config.ImageVariantProperties;
+import com.asusoftware.image_api.exception.ImageUploadException;
+import com.asusoftware.image_api.exception.InvalidRequestException;
+import com.asusoftware.image_api.exception.ResourceNotFoundException;
+import com.asusoftware.image_api.exception.UploadRejectedException;
+import com.asusoftware.image_api.storage.StorageBackend;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Generează și păstrează variante redimensionate ale imaginilor (doar ImageIO/Java2D, rulează headless).
+ * Originalele se citesc prin StorageBackend, deci și din S3. Variantele stau într-un cache pe discul local
+ * al instanței, limitat ca dimensiune, cu evacuare LRU; cererile simultane pentru aceeași variantă
+ * declanșează o singură generare. Generările simultane sunt limitate, iar cele eager rulează pe un pool propriu.
+ */
+@Service
+public class ImageVariantService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageVariantService.class);
+
+    private final ImageVariantProperties properties;
+    private final StorageBackend storageBackend;
+
+    // Decodarea și redimensionarea țin CPU și heap; peste limită cererile așteaptă, apoi primesc 503
+    private final Semaphore generations;
+
+    // Generarea după upload (eager), separată de uploadExecutor, ca să nu întârzie scrierile
+    private final ThreadPoolExecutor eagerWorkers;
+
+    private Path cacheRoot;
+
+    private int[] widths;
+
+    // Generările în curs, ca o variantă să fie produsă o singură dată chiar dacă e cerută simultan
+    private final Map<Path, CompletableFuture<Optional<Path>>> inFlight = new ConcurrentHashMap<>();
+
+    // Variantele din cache în ordinea accesului (cea mai veche prima) și dimensiunea lor
+    private final LinkedHashMap<Path, Long> lru = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes;
+
+    public ImageVariantService(ImageVariantProperties properties, StorageBackend storageBackend) {
+        this.properties = properties;
+        this.storageBackend = storageBackend;
+        this.generations = new Semaphore(properties.getMaxConcurrentGenerations());
+        // Coadă limitată și AbortPolicy: la o rafală de upload-uri variantele rămase se generează la prima cerere
+        this.eagerWorkers = new ThreadPoolExecutor(properties.getEagerThreads(), properties.getEagerThreads(), 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getEagerQueueCapacity()), new CustomizableThreadFactory("variants-"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        eagerWorkers.shutdownNow();
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        cacheRoot = Paths.get(properties.getCacheDir()).toAbsolutePath().normalize();
+        widths = properties.getSizes().values().stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+        if (widths.length == 0) {
+            throw new IllegalStateException("At least one image variant size must be configured.");
+        }
+        Files.createDirectories(cacheRoot);
+
+        // Reconstruim indexul LRU din fișierele existente, în ordinea ultimei modificări
+        List<Map.Entry<Path, BasicFileAttributes>> existing = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(cacheRoot)) {
+            files.filter(Files::isRegularFile).forEach(file -> {
+                try {
+                    existing.add(Map.entry(file, Files.readAttributes(file, BasicFileAttributes.class)));
+                } catch (IOException ignored) {
+                    // Fișierul a dispărut între timp
+                }
+            });
+        }
+        existing.sort(Comparator.comparing(entry -> entry.getValue().lastModifiedTime()));
+        synchronized (lru) {
+            existing.forEach(entry -> register(entry.getKey(), entry.getValue().size()));
+        }
+    }
+
+    /**
+     * Întoarce calea către varianta cu lățimea cea mai apropiată de cea cerută, generând-o dacă lipsește.
+     * {@code relativePath} este cheia imaginii în stocare (aceeași ca în URL-ul /images/...).
+     * Dacă originalul e deja mai mic, are prea mulți pixeli sau formatul nu e suportat de ImageIO, întoarce empty:
+     * se servește originalul. Aruncă UploadRejectedException (503) dacă nu se eliberează un loc de generare la timp
+     * și ResourceNotFoundException dacă originalul nu mai există, chiar dacă varianta e încă în cache.
+     */
+    public Optional<Path> getVariant(String relativePath, int requestedWidth) {
+        return getVariant(relativePath, requestedWidth, false);
+    }
+
+    // background = generare eager, pe pool-ul propriu: așteaptă un loc oricât, în loc să fie respinsă
+    private Optional<Path> getVariant(String relativePath, int requestedWidth, boolean background) {
+        if (requestedWidth <= 0) {
+            throw new InvalidRequestException("Width must be a positive number.");
+        }
+        String key;
+        try {
+            key = storageBackend.keyOf(relativePath);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Invalid image path.");
+        }
+        if (ImageOptimizer.isOriginalKey(key)) {
+            throw new ResourceNotFoundException("Image not found: " + key);  // Originalele nu sunt publice
+        }
+
+        int width = snapWidth(requestedWidth);
+        Path variant = cacheRoot.resolve(Integer.toString(width)).resolve(key).normalize();
+        if (!variant.startsWith(cacheRoot)) {
+            throw new InvalidRequestException("Invalid image path.");
+        }
+        if (Files.isRegularFile(variant)) {
+            // Cache-ul e local, iar originalul poate fi șters de altă instanță: varianta se servește doar cât există originalul
+            if (!originalExists(key)) {
+                evict(key);
+                throw new ResourceNotFoundException("Image not found: " + key);
+            }
+            touch(variant);
+            return Optional.of(variant);
+        }
+
+        CompletableFuture<Optional<Path>> generation = new CompletableFuture<>();
+        CompletableFuture<Optional<Path>> existing = inFlight.putIfAbsent(variant, generation);
+        if (existing != null) {
+            return join(existing, relativePath);
+        }
+
+        try {
+            acquireGenerationSlot(background);
+            try {
+                generation.complete(generate(key, variant, width));
+            } finally {
+                generations.release();
+            }
+        } catch (RuntimeException e) {
+            generation.completeExceptionally(e);
+        } finally {
+            inFlight.remove(variant, generation);
+        }
+        return join(generation, relativePath);
+    }
+
+    /**
+     * Generează în fundal toate variantele configurate pentru imaginile tocmai încărcate.
+     */
+    public void generateAllAsync(Collection<String> relativePaths) {
+        for (String relativePath : relativePaths) {
+            try {
+                eagerWorkers.execute(() -> {
+                    for (int width : widths) {
+                        try {
+                            getVariant(relativePath, width, true);
+                        } catch (RuntimeException e) {
+                            log.warn("Could not pre-generate {}px variant for {}", width, relativePath, e);
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                log.debug("Variant pre-generation queue is full, {} will be resized on first request", relativePath);
+            }
+        }
+    }
+
+    /**
+     * Șterge din cache-ul acestei instanțe toate variantele imaginii cu cheia dată; se apelează după ce
+     * originalul a fost șters din stocare.
+     */
+    public void evict(String key) {
+        for (int width : widths) {
+            Path variant = cacheRoot.resolve(Integer.toString(width)).resolve(key).normalize();
+            if (!variant.startsWith(cacheRoot)) {
+                return;
+            }
+            synchronized (lru) {
+                Long size = lru.remove(variant);
+                if (size != null) {
+                    cachedBytes -= size;
+                }
+            }
+            try {
+                Files.deleteIfExists(variant);
+            } catch (IOException e) {
+                log.warn("Could not evict cached variant {}", variant, e);
+            }
+        }
+    }
+
+    private boolean originalExists(String key) {
+        try {
+            return storageBackend.exists(key);
+        } catch (IOException e) {
+            throw new ImageUploadException("Error checking image " + key, e);
+        }
+    }
+
+    private void acquireGenerationSlot(boolean background) {
+        try {
+            if (background) {
+                generations.acquire();
+            } else if (!generations.tryAcquire(properties.getGenerationWait().toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new UploadRejectedException("Too many image variants are being generated, retry later.",
+                        HttpStatus.SERVICE_UNAVAILABLE, Math.max(1, properties.getGenerationWait().toSeconds()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ImageUploadException("Interrupted while waiting to generate an image variant", e);
+        }
+    }
+
+    // Rotunjim în sus la cea mai mică variantă configurată, ca numărul de fișiere din cache să rămână limitat
+    private int snapWidth(int requestedWidth) {
+        for (int width : widths) {
+            if (width >= requestedWidth) {
+                return width;
+            }
+        }
+        return widths[widths.length - 1];
+    }
+
+    private Optional<Path> generate(String key, Path variant, int width) {
+        try (InputStream content = storageBackend.open(key);
+             ImageInputStream input = ImageIO.createImageInputStream(content)) {
+            Iterator<ImageReader> readers = input == null ? Collections.emptyIterator() : ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return Optional.empty();  // Format necunoscut pentru ImageIO, servim originalul
+            }
+            ImageReader reader = readers.next();
+            String formatName = reader.getFormatName();
+            BufferedImage source;
+            try {
+                reader.setInput(input, true, true);
+                int sourceWidth = reader.getWidth(0);
+                if (sourceWidth <= width) {
+                    return Optional.empty();  // Nu mărim imaginile
+                }
+                // Dimensiunile din antet nu costă nimic de declarat: o "bombă" de decompresie nu ajunge la decodare
+                if ((long) sourceWidth * reader.getHeight(0) > properties.getMaxSourcePixels()) {
+                    log.debug("Not resizing {}: {}x{} pixels exceed the limit", key, sourceWidth, reader.getHeight(0));
+                    return Optional.empty();
+                }
+                // Decodăm subeșantionat, la cel puțin dublul lățimii cerute, ca memoria să depindă de variantă
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, sourceWidth / (2 * width));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                source = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+
+            BufferedImage resized = resize(source, width, !formatName.equalsIgnoreCase("jpeg"));
+            Files.createDirectories(variant.getParent());
+            Path tempFile = Files.createTempFile(variant.getParent(), ".variant", ".tmp");
+            try {
+                if (!ImageIO.write(resized, formatName, tempFile.toFile())) {
+                    return Optional.empty();
+                }
+                Files.move(tempFile, variant, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+            touch(variant);
+            return Optional.of(variant);
+        } catch (NoSuchFileException e) {
+            throw new ResourceNotFoundException("Image not found: " + key);
+        } catch (IOException e) {
+            throw new ImageUploadException("Error generating " + width + "px variant for " + key, e);
+        }
+    }
+
+    /**
+     * Micșorează în pași de cel mult jumătate, ceea ce dă o calitate apropiată de filtrele bicubice
+     * folosind doar interpolarea biliniară rapidă din Java2D.
+     */
+    static BufferedImage resize(BufferedImage source, int targetWidth, boolean keepAlpha) {
+        int targetHeight = Math.max(1, (int) Math.round((double) source.getHeight() * targetWidth / source.getWidth()));
+        int imageType = keepAlpha && source.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        BufferedImage current = source;
+        int currentWidth = source.getWidth();
+        int currentHeight = source.getHeight();
+        do {
+            currentWidth = Math.max(targetWidth, currentWidth / 2);
+            currentHeight = Math.max(targetHeight, currentHeight / 2);
+
+            BufferedImage step = new BufferedImage(currentWidth, currentHeight, imageType);
+            Graphics2D graphics = step.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = step;
+        } while (currentWidth != targetWidth);
+        return current;
+    }
+
+    private void touch(Path variant) {
+        long size;
+        try {
+            size = Files.size(variant);
+        } catch (IOException e) {
+            return;
+        }
+        List<Path> evicted = new ArrayList<>();
+        synchronized (lru) {
+            register(variant, size);
+            Iterator<Map.Entry<Path, Long>> eldest = lru.entrySet().iterator();
+            while (cachedBytes > properties.getCacheMaxSize().toBytes() && eldest.hasNext()) {
+                Map.Entry<Path, Long> entry = eldest.next();
+                if (entry.getKey().equals(variant)) {
+                    continue;  // Nu evacuăm varianta pe care tocmai o servim
+                }
+                cachedBytes -= entry.getValue();
+                evicted.add(entry.getKey());
+                eldest.remove();
+            }
+        }
+        // Ștergerile de pe disc se fac în afara lock-ului
+        evicted.forEach(path -> {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                log.warn("Could not evict cached variant {}", path, e);
+            }
+        });
+    }
+
+    private void register(Path variant, long size) {
+        Long previous = lru.put(variant, size);
+        cachedBytes += size - (previous == null ? 0 : previous);
+    }
+
+    private static Optional<Path> join(CompletableFuture<Optional<Path>> generation, String filename) {
+        try {
+            return generation.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new ImageUploadException("Error generating variant for " + filename, e.getCause());
+        }
+    }
+}
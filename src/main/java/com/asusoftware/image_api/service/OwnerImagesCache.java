@@ -0,0 +1,67 @@
+package com.asusoftware.image_api.service;
+
+import com.asusoftware.image_api.model.ImageType;
+import com.asusoftware.image_api.model.dto.ImageDto;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Cache read-through pentru lista de imagini a unui owner, cheiat după (ownerId, type).
+ * Listele păstrate sunt imutabile; orice modificare a imaginilor owner-ului invalidează intrarea.
+ * Cache-ul e al unei singure instanțe: invalidarea nu ajunge la celelalte, care văd modificarea abia după
+ * expirarea intrării (plafonată la upload.s3.owner-images-cache-ttl când rulează mai multe instanțe, pe S3).
+ */
+@Component
+public class OwnerImagesCache {
+
+    public static final String CACHE_NAME = "imagesByOwner";
+
+    private final Cache cache;
+
+    public OwnerImagesCache(CacheManager cacheManager) {
+        this.cache = Objects.requireNonNull(cacheManager.getCache(CACHE_NAME), "Cache not configured: " + CACHE_NAME);
+    }
+
+    record Key(UUID ownerId, ImageType type) {
+    }
+
+    /**
+     * Întoarce lista din cache sau o încarcă o singură dată, chiar dacă mai multe cereri o cer simultan.
+     */
+    public List<ImageDto> get(UUID ownerId, ImageType type, Supplier<List<ImageDto>> loader) {
+        return cache.get(new Key(ownerId, type), () -> List.copyOf(loader.get()));
+    }
+
+    /**
+     * Întoarce lista din cache fără a o încărca, sau null dacă lipsește.
+     */
+    @SuppressWarnings("unchecked")
+    public List<ImageDto> getIfPresent(UUID ownerId, ImageType type) {
+        return cache.get(new Key(ownerId, type), List.class);
+    }
+
+    /**
+     * Invalidează intrarea imediat și încă o dată după încheierea tranzacției curente, ca o citire
+     * făcută între timp să nu repună în cache date necomise sau deja depășite.
+     */
+    public void evict(UUID ownerId, ImageType type) {
+        Key key = new Key(ownerId, type);
+        cache.evict(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.evict(key);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package com.asusoftware.image_api.service;
+
+import com.asusoftware.image_api.exception.FileTooLargeException;
+import com.asusoftware.image_api.exception.ImageUploadException;
+import com.asusoftware.image_api.exception.InvalidRequestException;
+import com.asusoftware.image_api.exception.ResourceNotFoundException;
+import com.asusoftware.image_api.exception.UploadConflictException;
+import com.asusoftware.image_api.model.ImageType;
+import com.asusoftware.image_api.model.UploadSession;
+import com.asusoftware.image_api.model.dto.ImageDto;
+import com.asusoftware.image_api.repository.UploadSessionRepository;
+import com.asusoftware.image_api.storage.StorageBackend;
+import com.asusoftware.image_api.storage.StorageLayout;
+import com.asusoftware.image_api.storage.StoredFile;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Upload-uri reluabile pentru fișiere mari și conexiuni instabile: sesiunea se creează cu dimensiunea totală,
+ * bucățile se scriu prin FileChannel la offset-ul lor într-un fișier de lucru prealocat, iar clientul poate
+ * afla oricând offset-ul de la care să continue. Finalizarea mută fișierul în stocare (o redenumire, pe același
+ * disc) și creează rândul Image în tranzacția care șterge sesiunea. Nimic nu trece prin heap.
+ * Cu mai multe instanțe, upload.resumable.dir trebuie să fie partajat sau rutarea să țină cont de sesiune.
+ */
+@Service
+public class ResumableUploadService {
+
+    private static final Logger log = LoggerFactory.getLogger(ResumableUploadService.class);
+
+    private static final long TRANSFER_CHUNK = 1024 * 1024;
+    private static final Pattern SHA256_HEX = Pattern.compile("[0-9a-fA-F]{64}");
+
+    @Value("${upload.resumable.dir}")
+    private String sessionDir;
+
+    @Value("${upload.resumable.max-file-size}")
+    private DataSize maxFileSize;
+
+    @Value("${upload.resumable.session-ttl}")
+    private Duration sessionTtl;
+
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Autowired
+    private StorageBackend storageBackend;
+
+    @Autowired
+    private StorageLayout storageLayout;
+
+    @Autowired
+    private ImageService imageService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Path root;
+
+    // Sesiunile cu o bucată sau o finalizare în curs pe această instanță
+    private final Set<UUID> busy = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    void init() throws IOException {
+        root = Files.createDirectories(Paths.get(sessionDir).toAbsolutePath().normalize());
+    }
+
+    /**
+     * Creează sesiunea și prealocă fișierul de lucru la dimensiunea anunțată.
+     */
+    public UploadSession create(UUID ownerId, ImageType type, String originalFilename, long length, String expectedSha256) {
+        String filename = ImageFileNames.sanitize(originalFilename);
+        if (filename == null || !ImageFileNames.hasExtension(filename)) {
+            throw new InvalidRequestException("Invalid file name or no extension found.");
+        }
+        if (length <= 0) {
+            throw new InvalidRequestException("Upload-Length must be a positive number.");
+        }
+        if (length > maxFileSize.toBytes()) {
+            throw new FileTooLargeException("File exceeds the maximum allowed size of " + maxFileSize.toBytes() + " bytes.");
+        }
+        if (expectedSha256 != null && !SHA256_HEX.matcher(expectedSha256).matches()) {
+            throw new InvalidRequestException("X-Content-SHA256 must be a hex-encoded SHA-256 digest.");
+        }
+
+        Instant now = Instant.now();
+        UploadSession session = new UploadSession();
+        session.setOwnerId(ownerId);
+        session.setType(type);
+        session.setTargetKey(storageLayout.fileKey(type, ownerId, ImageFileNames.unique(filename)));
+        session.setUploadLength(length);
+        session.setExpectedSha256(expectedSha256 == null ? null : expectedSha256.toLowerCase());
+        session.setCreatedAt(now);
+        session.setExpiresAt(now.plus(sessionTtl));
+        uploadSessionRepository.save(session);
+
+        try (RandomAccessFile file = new RandomAccessFile(file(session.getId()).toFile(), "rw")) {
+            file.setLength(length);
+        } catch (IOException e) {
+            uploadSessionRepository.delete(session);
+            throw new ImageUploadException("Could not create upload session for owner ID: " + ownerId, e);
+        }
+        return session;
+    }
+
+    public UploadSession get(UUID id) {
+        return uploadSessionRepository.findById(id)
+                .filter(session -> session.getExpiresAt().isAfter(Instant.now()))
+                .orElseThrow(() -> new ResourceNotFoundException("Upload session not found: " + id));
+    }
+
+    /**
+     * Scrie bucata începând de la {@code offset}, care trebuie să fie exact offset-ul curent al sesiunii.
+     * Dacă conexiunea cade la jumătate, tot ce a ajuns pe disc rămâne înregistrat, iar clientul reia de acolo.
+     * Întoarce noul offset.
+     */
+    public long append(UUID id, long offset, InputStream content) {
+        UploadSession session = get(id);
+        if (offset != session.getUploadOffset()) {
+            throw new UploadConflictException("Upload-Offset " + offset + " does not match the current offset " + session.getUploadOffset() + ".");
+        }
+        if (!busy.add(id)) {
+            throw new UploadConflictException("Another request is already writing to upload " + id + ".");
+        }
+        try {
+            long remaining = session.getUploadLength() - offset;
+            long written = 0;
+            IOException interrupted = null;
+            boolean tooLong = false;
+            try (ReadableByteChannel source = Channels.newChannel(content);
+                 FileChannel channel = FileChannel.open(file(id), StandardOpenOption.WRITE)) {
+                try {
+                    while (written < remaining) {
+                        long transferred = channel.transferFrom(source, offset + written, Math.min(TRANSFER_CHUNK, remaining - written));
+                        if (transferred <= 0) {
+                            break;
+                        }
+                        written += transferred;
+                    }
+                    tooLong = written == remaining && source.read(ByteBuffer.allocate(1)) > 0;
+                } catch (IOException e) {
+                    interrupted = e;  // Conexiune întreruptă: păstrăm ce s-a scris complet
+                }
+                // Offset-ul înregistrat nu trebuie să depășească ce e efectiv pe disc
+                channel.force(false);
+            } catch (NoSuchFileException e) {
+                throw new ResourceNotFoundException("Upload session not found: " + id);  // Anulată între timp
+            } catch (IOException e) {
+                throw new ImageUploadException("Error writing to upload " + id, e);
+            }
+
+            long newOffset = offset + written;
+            if (written > 0) {
+                Instant expiresAt = Instant.now().plus(sessionTtl);
+                int updated = transactionTemplate.execute(status -> uploadSessionRepository.advance(id, offset, newOffset, expiresAt));
+                if (updated == 0) {
+                    if (!uploadSessionRepository.existsById(id)) {
+                        throw new ResourceNotFoundException("Upload session not found: " + id);
+                    }
+                    throw new UploadConflictException("Upload " + id + " was changed by another request.");
+                }
+            }
+            if (tooLong) {
+                throw new FileTooLargeException("Upload " + id + " received more than the declared " + session.getUploadLength() + " bytes.");
+            }
+            if (interrupted != null) {
+                log.debug("Chunk for upload {} interrupted at offset {}", id, newOffset, interrupted);
+            }
+            return newOffset;
+        } finally {
+            busy.remove(id);
+        }
+    }
+
+    /**
+     * Verifică hash-ul (dacă a fost anunțat), mută fișierul în stocare și creează imaginea.
+     * Dacă înregistrarea eșuează, sesiunea este ștearsă odată cu fișierul.
+     */
+    public ImageDto complete(UUID id) {
+        UploadSession session = get(id);
+        if (session.getUploadOffset() != session.getUploadLength()) {
+            throw new UploadConflictException("Upload " + id + " is incomplete: " + session.getUploadOffset()
+                    + " of " + session.getUploadLength() + " bytes received.");
+        }
+        if (!busy.add(id)) {
+            throw new UploadConflictException("Another request is already writing to upload " + id + ".");
+        }
+        try {
+            Path file = file(id);
+            StoredFile storedFile;
+            try {
+                String sha256 = sha256(file);
+                if (session.getExpectedSha256() != null && !session.getExpectedSha256().equals(sha256)) {
+                    // Conținutul greșit nu se mai poate corecta prin reluare
+                    cancel(id);
+                    throw new InvalidRequestException("Content hash mismatch for upload " + id + ".");
+                }
+                storedFile = storageBackend.moveIn(file, session.getTargetKey(), sha256);
+            } catch (NoSuchFileException e) {
+                throw new ResourceNotFoundException("Upload session not found: " + id);  // Anulată între timp
+            } catch (IOException e) {
+                throw new ImageUploadException("Error completing upload " + id, e);
+            }
+
+            try {
+                return imageService.registerStoredFile(storedFile, session.getOwnerId(), session.getType(), () -> {
+                    if (uploadSessionRepository.deleteSession(id) != 1) {
+                        throw new UploadConflictException("Upload " + id + " was cancelled or expired.");
+                    }
+                });
+            } catch (RuntimeException e) {
+                // Fișierul mutat în stocare a fost deja șters, deci sesiunea nu mai poate fi finalizată:
+                // o eliminăm, ca reîncercările să primească 404 în loc de o eroare la citirea fișierului lipsă
+                cancel(id);
+                throw e;
+            }
+        } finally {
+            busy.remove(id);
+        }
+    }
+
+    public void cancel(UUID id) {
+        transactionTemplate.executeWithoutResult(status -> uploadSessionRepository.deleteSession(id));
+        deleteQuietly(id);
+    }
+
+    /**
+     * Șterge sesiunile abandonate (fără nicio bucată primită în upload.resumable.session-ttl) și fișierele lor.
+     */
+    @Scheduled(fixedDelayString = "${upload.resumable.cleanup-interval}")
+    public void expireSessions() {
+        try {
+            List<UploadSession> expired;
+            do {
+                expired = uploadSessionRepository.findExpired(Instant.now(), PageRequest.of(0, 500));
+                expired.forEach(session -> deleteQuietly(session.getId()));
+                List<UploadSession> batch = expired;
+                transactionTemplate.executeWithoutResult(status -> uploadSessionRepository.deleteAllInBatch(batch));
+                if (!expired.isEmpty()) {
+                    log.info("Expired {} abandoned upload sessions", expired.size());
+                }
+            } while (expired.size() == 500);
+        } catch (RuntimeException e) {
+            log.warn("Upload session cleanup failed, will retry on the next run", e);
+        }
+    }
+
+    private Path file(UUID id) {
+        return root.resolve(id + ".upload");
+    }
+
+    private void deleteQuietly(UUID id) {
+        try {
+            Files.deleteIfExists(file(id));
+        } catch (IOException e) {
+            log.warn("Could not delete upload file for session {}", id, e);
+        }
+    }
+
+    private static String sha256(Path file) throws IOException {
+        MessageDigest digest = StreamingFileWriter.sha256();
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) TRANSFER_CHUNK);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) > 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
@@ -0,0 +1,238 @@
+package com.asusoftware.image_api.service;
+
+import com.asusoftware.image_api.model.Image;
+import com.asusoftware.image_api.repository.ImageRepository;
+import com.asusoftware.image_api.storage.StorageBackend;
+import com.asusoftware.image_api.storage.StorageLayout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Mută online fișierele stocate per owner în layout-ul configurat (upload.layout), în loturi, fără oprirea
+ * serviciului. Pentru fiecare fișier: copie (hard link pe disc local) la noua cheie, apoi, într-o tranzacție
+ * scurtă, rândul primește noua cale și noul URL, iar vechea cale e programată pentru ștergere după
+ * o perioadă de grație, ca URL-urile deja distribuite să mai funcționeze. Originalul păstrat la optimizare
+ * ({owner}/originals/) se mută odată cu fișierul, în același lot și în aceeași tranzacție; la imaginile
+ * deduplicate blob-ul rămâne pe loc și se mută doar originalul.
+ * Rularea e reluabilă: rândurile deja migrate sunt sărite, iar parcurgerea poate porni după un id dat.
+ */
+@Service
+public class StorageMigrationService {
+
+    private static final Logger log = LoggerFactory.getLogger(StorageMigrationService.class);
+
+    private static final UUID FIRST_ID = new UUID(0L, 0L);
+
+    @Value("${external-link.url}")
+    private String externalLinkUrl;
+
+    @Value("${upload.migration.batch-size}")
+    private int batchSize;
+
+    @Value("${upload.migration.grace-period}")
+    private Duration gracePeriod;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private StorageBackend storageBackend;
+
+    @Autowired
+    private StorageLayout storageLayout;
+
+    @Autowired
+    private FileReclaimer fileReclaimer;
+
+    @Autowired
+    private OwnerImagesCache ownerImagesCache;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    @Qualifier("uploadExecutor")
+    private AsyncTaskExecutor uploadExecutor;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile boolean stopRequested;
+
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile UUID lastId;
+    private volatile long scanned;
+    private volatile long migrated;
+    private volatile long failed;
+    private volatile String lastError;
+
+    public record Status(boolean running, Instant startedAt, Instant finishedAt, UUID lastId,
+                         long scanned, long migrated, long failed, String lastError) {
+    }
+
+    /**
+     * Pornește migrarea în fundal, după {@code after} (sau de la început). Întoarce false dacă rulează deja.
+     */
+    public boolean start(UUID after) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        stopRequested = false;
+        startedAt = Instant.now();
+        finishedAt = null;
+        lastId = after;
+        scanned = 0;
+        migrated = 0;
+        failed = 0;
+        lastError = null;
+        try {
+            uploadExecutor.execute(() -> run(after == null ? FIRST_ID : after));
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+        return true;
+    }
+
+    // Oprirea are loc după lotul curent; lastId arată de unde se poate relua
+    public void stop() {
+        stopRequested = true;
+    }
+
+    public Status status() {
+        return new Status(running.get(), startedAt, finishedAt, lastId, scanned, migrated, failed, lastError);
+    }
+
+    private void run(UUID after) {
+        try {
+            while (!stopRequested) {
+                List<Image> page = imageRepository.findStoredPerOwnerAfter(after, PageRequest.of(0, batchSize));
+                if (page.isEmpty()) {
+                    break;
+                }
+                migrateBatch(page);
+                after = page.get(page.size() - 1).getId();
+                lastId = after;
+            }
+            log.info("Storage migration {}: {} scanned, {} migrated, {} failed, last id {}",
+                    stopRequested ? "stopped" : "finished", scanned, migrated, failed, lastId);
+        } catch (RuntimeException e) {
+            lastError = e.toString();
+            log.error("Storage migration aborted after id {}", lastId, e);
+        } finally {
+            finishedAt = Instant.now();
+            running.set(false);
+        }
+    }
+
+    // O cheie de mutat: copied = false când doar forma căii se schimbă (cale absolută veche care indică deja
+    // aceeași cheie), deci nu rămâne nimic de șters în urmă
+    private record Move(String sourceKey, String targetKey, boolean copied) {
+    }
+
+    // file sau original e null când acea cale rămâne pe loc (deja în layout, blob deduplicat, fără original)
+    private record Relocation(Image image, Move file, Move original) {
+
+        String filePath() {
+            return file == null ? image.getFilePath() : file.targetKey();
+        }
+
+        String originalPath() {
+            return original == null ? image.getOriginalPath() : original.targetKey();
+        }
+
+        List<Move> moves() {
+            List<Move> moves = new ArrayList<>(2);
+            if (file != null) {
+                moves.add(file);
+            }
+            if (original != null) {
+                moves.add(original);
+            }
+            return moves;
+        }
+    }
+
+    private void migrateBatch(List<Image> page) {
+        // 1. Copiem fișierele (și originalele păstrate la optimizare) în afara tranzacției
+        List<Relocation> relocations = new ArrayList<>();
+        for (Image image : page) {
+            scanned++;
+            String targetKey = storageLayout.fileKey(image.getType(), image.getOwnerId(), image.getFileName());
+            String fileSource = image.getContentHash() == null && !targetKey.equals(image.getFilePath()) ? image.getFilePath() : null;
+            String originalTarget = ImageOptimizer.originalKey(targetKey);
+            String originalSource = image.getOriginalPath() != null && !originalTarget.equals(image.getOriginalPath())
+                    ? image.getOriginalPath() : null;
+            if (fileSource == null && originalSource == null) {
+                continue;  // Deja în layout-ul curent
+            }
+            Move file = null;
+            try {
+                file = fileSource == null ? null : copy(fileSource, targetKey);
+                Move original = originalSource == null ? null : copy(originalSource, originalTarget);
+                relocations.add(new Relocation(image, file, original));
+            } catch (IOException | RuntimeException e) {
+                failed++;
+                lastError = image.getId() + ": " + e;
+                log.warn("Could not copy the files of image {} to {}", image.getId(), targetKey, e);
+                if (file != null && file.copied()) {
+                    fileReclaimer.enqueue(file.targetKey());  // Copia fișierului nu e referită fără cea a originalului
+                }
+            }
+        }
+        if (relocations.isEmpty()) {
+            return;
+        }
+
+        // 2. Mutăm rândurile; dacă un rând s-a schimbat între timp (ștergere, actualizare), renunțăm la copii
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Relocation relocation : relocations) {
+                Image image = relocation.image();
+                String fileUrl = relocation.file() == null ? image.getFileUrl() : externalLinkUrl + relocation.filePath();
+                int updated = imageRepository.relocate(image.getId(), image.getFilePath(), relocation.filePath(), fileUrl,
+                        image.getOriginalPath(), relocation.originalPath());
+                for (Move move : relocation.moves()) {
+                    if (!move.copied()) {
+                        continue;
+                    }
+                    if (updated == 1) {
+                        fileReclaimer.enqueue(move.sourceKey(), gracePeriod);
+                    } else {
+                        fileReclaimer.enqueue(move.targetKey());
+                    }
+                }
+                if (updated == 1) {
+                    ownerImagesCache.evict(image.getOwnerId(), image.getType());
+                    migrated++;
+                }
+            }
+        });
+    }
+
+    private Move copy(String sourceKey, String targetKey) throws IOException {
+        if (storageBackend.keyOf(sourceKey).equals(targetKey)) {
+            return new Move(sourceKey, targetKey, false);
+        }
+        try {
+            storageBackend.copy(sourceKey, targetKey);
+        } catch (FileAlreadyExistsException e) {
+            // Copiat într-o rulare întreruptă înainte de commit
+        }
+        return new Move(sourceKey, targetKey, true);
+    }
+}
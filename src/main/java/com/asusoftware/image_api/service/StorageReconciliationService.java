@@ -0,0 +1,660 @@
+package com.asusoftware.image_api.service;
+
+import com.asusoftware.image_api.model.Image;
+import com.asusoftware.image_api.model.ImageBlob;
+import com.asusoftware.image_api.model.ImageType;
+import com.asusoftware.image_api.model.ReconciliationCheckpoint;
+import com.asusoftware.image_api.repository.ImageBlobRepository;
+import com.asusoftware.image_api.repository.ImageRepository;
+import com.asusoftware.image_api.repository.ReclaimTaskRepository;
+import com.asusoftware.image_api.repository.ReconciliationCheckpointRepository;
+import com.asusoftware.image_api.storage.LocalStorageBackend;
+import com.asusoftware.image_api.storage.StorageBackend;
+import com.asusoftware.image_api.storage.StorageLayout;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Reconcilierea dintre fișierele din stocare și rândurile din images, în două faze:
+ * <ol>
+ *     <li>FILES (doar pe disc local): directoarele de owner din upload.dir sunt parcurse în paralel (fork-join),
+ *     iar fiecare fișier e comparat cu rândurile owner-ului (filePath și originalPath); fișierele din blobs/ sunt
+ *     comparate cu image_blobs. Un fișier nereferit, neatins în perioada de grație și fără o ștergere deja
+ *     programată este orfan.</li>
+ *     <li>ROWS: rândurile sunt citite în loturi (keyset pe id), iar existența fișierelor e verificată în paralel.</li>
+ * </ol>
+ * În modul report discrepanțele sunt doar numărate și scrise în log. În modul repair fișierele orfane sunt
+ * programate pentru ștergere prin {@link FileReclaimer}, rândurile fără fișier sunt șterse, rândurile fără
+ * original își pierd originalPath, iar directoarele de owner goale sunt eliminate.
+ * Progresul se salvează în reconciliation_checkpoints după fiecare director de prim nivel (posts/ab) și după
+ * fiecare lot de rânduri; memoria folosită depinde de un lot și de un director, nu de numărul total de fișiere.
+ */
+@Service
+public class StorageReconciliationService {
+
+    private static final Logger log = LoggerFactory.getLogger(StorageReconciliationService.class);
+
+    private static final UUID FIRST_ID = new UUID(0L, 0L);
+    private static final String CHECKPOINT = "storage";
+    private static final String ORIGINALS_FOLDER = "originals";
+    // În ordine lexicografică, ca pozițiile din checkpoint (blobs/ab, posts/cd, users/ef) să poată fi comparate direct
+    private static final List<String> FOLDERS = List.of(ContentAddressedStore.BLOBS_FOLDER,
+            StorageLayout.folder(ImageType.POST), StorageLayout.folder(ImageType.USER));
+    private static final int MAX_LOGGED_DISCREPANCIES = 1000;
+
+    public enum Phase {
+        FILES, ROWS
+    }
+
+    @Value("${upload.reconciliation.repair}")
+    private boolean repairByDefault;
+
+    @Value("${upload.reconciliation.on-startup}")
+    private boolean onStartup;
+
+    @Value("${upload.reconciliation.grace-period}")
+    private Duration gracePeriod;
+
+    @Value("${upload.reconciliation.batch-size}")
+    private int batchSize;
+
+    @Value("${upload.reconciliation.parallelism}")
+    private int parallelism;
+
+    @Value("${upload.reconciliation.max-deleted-rows}")
+    private long maxDeletedRows;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private ImageBlobRepository imageBlobRepository;
+
+    @Autowired
+    private ReclaimTaskRepository reclaimTaskRepository;
+
+    @Autowired
+    private ReconciliationCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private StorageBackend storageBackend;
+
+    @Autowired
+    private ContentAddressedStore contentAddressedStore;
+
+    @Autowired
+    private FileReclaimer fileReclaimer;
+
+    @Autowired
+    private OwnerImagesCache ownerImagesCache;
+
+    @Autowired
+    private StorageMigrationService storageMigrationService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("uploadExecutor")
+    private AsyncTaskExecutor uploadExecutor;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile boolean stopRequested;
+    private volatile boolean repair;
+    private volatile boolean deletionLimitReached;
+
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile Phase phase;
+    private volatile String position;
+    private volatile String lastError;
+    private final AtomicLong filesScanned = new AtomicLong();
+    private final AtomicLong rowsScanned = new AtomicLong();
+    private final AtomicLong orphanFiles = new AtomicLong();
+    private final AtomicLong orphanBytes = new AtomicLong();
+    private final AtomicLong missingFiles = new AtomicLong();
+    private final AtomicLong missingOriginals = new AtomicLong();
+    private final AtomicLong repaired = new AtomicLong();
+    private final AtomicLong deletedRows = new AtomicLong();
+    private final AtomicLong prunedDirectories = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong loggedDiscrepancies = new AtomicLong();
+
+    private final Map<String, Counter> discrepancies = new HashMap<>();
+    private Counter repairs;
+
+    public record Status(boolean running, boolean repair, Instant startedAt, Instant finishedAt, Phase phase, String position,
+                         long filesScanned, long rowsScanned, long orphanFiles, long orphanBytes, long missingFiles,
+                         long missingOriginals, long repaired, long prunedDirectories, long failed, String lastError) {
+    }
+
+    @PostConstruct
+    void registerMetrics() {
+        for (String kind : new String[]{"orphan_file", "missing_file", "missing_original"}) {
+            discrepancies.put(kind, Counter.builder("image.reconciliation.discrepancies")
+                    .description("Inconsistencies between stored files and image rows found by reconciliation, by kind")
+                    .tag("kind", kind)
+                    .register(meterRegistry));
+        }
+        repairs = Counter.builder("image.reconciliation.repaired")
+                .description("Inconsistencies repaired by reconciliation")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Pornește reconcilierea în fundal. {@code repair} null înseamnă upload.reconciliation.repair; cu
+     * {@code resume} continuă de la checkpoint-ul unei rulări neterminate. Întoarce false dacă rulează deja
+     * sau dacă o migrare de layout e în curs (copiile ei încă nereferite ar părea orfane).
+     */
+    public boolean start(Boolean repair, boolean resume) {
+        if (storageMigrationService.status().running()) {
+            log.info("Storage reconciliation not started: a storage migration is running");
+            return false;
+        }
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        stopRequested = false;
+        this.repair = repair != null ? repair : repairByDefault;
+        startedAt = Instant.now();
+        finishedAt = null;
+        phase = null;
+        position = null;
+        lastError = null;
+        deletionLimitReached = false;
+        for (AtomicLong counter : List.of(filesScanned, rowsScanned, orphanFiles, orphanBytes, missingFiles,
+                missingOriginals, repaired, deletedRows, prunedDirectories, failed, loggedDiscrepancies)) {
+            counter.set(0);
+        }
+        try {
+            uploadExecutor.execute(() -> run(resume));
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+        return true;
+    }
+
+    // Oprirea are loc după directorul sau lotul curent; checkpoint-ul rămâne pentru reluare
+    public void stop() {
+        stopRequested = true;
+    }
+
+    public Status status() {
+        return new Status(running.get(), repair, startedAt, finishedAt, phase, position, filesScanned.get(),
+                rowsScanned.get(), orphanFiles.get(), orphanBytes.get(), missingFiles.get(), missingOriginals.get(),
+                repaired.get(), prunedDirectories.get(), failed.get(), lastError);
+    }
+
+    // Reia și o rulare întreruptă de oprirea aplicației
+    @EventListener(ApplicationReadyEvent.class)
+    public void startOnStartup() {
+        if (onStartup) {
+            start(null, true);
+        }
+    }
+
+    @Scheduled(cron = "${upload.reconciliation.cron}")
+    public void startScheduled() {
+        start(null, true);
+    }
+
+    private void run(boolean resume) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            ReconciliationCheckpoint checkpoint = resume ? checkpointRepository.findById(CHECKPOINT).orElse(null) : null;
+            Phase firstPhase = checkpoint == null ? Phase.FILES : Phase.valueOf(checkpoint.getPhase());
+            if (checkpoint != null) {
+                log.info("Resuming storage reconciliation at {} {}", checkpoint.getPhase(), checkpoint.getPosition());
+            }
+            if (firstPhase == Phase.FILES) {
+                reconcileFiles(pool, checkpoint == null ? null : checkpoint.getPosition());
+            }
+            if (!stopRequested) {
+                reconcileRows(pool, firstPhase == Phase.ROWS ? UUID.fromString(checkpoint.getPosition()) : FIRST_ID);
+            }
+            if (!stopRequested) {
+                checkpointRepository.deleteById(CHECKPOINT);
+            }
+            log.info("Storage reconciliation {} ({}): {} files and {} rows scanned, {} orphan files ({} bytes), "
+                            + "{} rows without file, {} without original, {} repaired, {} directories pruned, {} failed",
+                    stopRequested ? "stopped" : "finished", repair ? "repair" : "report", filesScanned, rowsScanned,
+                    orphanFiles, orphanBytes, missingFiles, missingOriginals, repaired, prunedDirectories, failed);
+        } catch (RuntimeException e) {
+            lastError = e.toString();
+            log.error("Storage reconciliation aborted at {} {}", phase, position, e);
+        } finally {
+            pool.shutdownNow();
+            finishedAt = Instant.now();
+            running.set(false);
+        }
+    }
+
+    // Faza FILES -----------------------------------------------------------------------------------------------
+
+    private void reconcileFiles(ForkJoinPool pool, String after) {
+        if (!(storageBackend instanceof LocalStorageBackend local)) {
+            log.info("Storage backend is not local: skipping the file scan, only rows are reconciled");
+            return;
+        }
+        Path root = local.root();
+
+        // Directoarele de prim nivel (256 per folder în layout-ul sharded) sunt unitățile de checkpoint
+        List<String> units = new ArrayList<>();
+        for (String folder : FOLDERS) {
+            Path directory = root.resolve(folder);
+            if (!Files.isDirectory(directory, LinkOption.NOFOLLOW_LINKS)) {
+                continue;
+            }
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                for (Path entry : entries) {
+                    if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+                        units.add(folder + '/' + entry.getFileName());
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not list " + directory, e);
+            }
+        }
+        Collections.sort(units);
+
+        // Cel mult 2 * parallelism unități în lucru; le așteptăm în ordine, ca checkpoint-ul să acopere
+        // doar un prefix terminat complet
+        Deque<Map.Entry<String, ForkJoinTask<Void>>> inFlight = new ArrayDeque<>();
+        Iterator<String> remaining = units.stream().filter(unit -> after == null || unit.compareTo(after) > 0).iterator();
+        while (!stopRequested && (remaining.hasNext() || !inFlight.isEmpty())) {
+            while (remaining.hasNext() && inFlight.size() < 2 * parallelism) {
+                String unit = remaining.next();
+                inFlight.add(Map.entry(unit, pool.submit(new DirectoryScan(root, root.resolve(unit)))));
+            }
+            Map.Entry<String, ForkJoinTask<Void>> next = inFlight.poll();
+            next.getValue().join();
+            if (!stopRequested) {
+                saveCheckpoint(Phase.FILES, next.getKey());
+            }
+        }
+    }
+
+    /**
+     * Un director de sub upload.dir: directoarele de owner (numite după UUID) sunt reconciliate, celelalte
+     * (shard-urile ab/cd) doar împărțite mai departe. În blobs/ se verifică fișierele fiecărui director.
+     */
+    private final class DirectoryScan extends RecursiveAction {
+
+        private final Path root;
+        private final Path directory;
+
+        private DirectoryScan(Path root, Path directory) {
+            this.root = root;
+            this.directory = directory;
+        }
+
+        @Override
+        protected void compute() {
+            if (stopRequested) {
+                return;
+            }
+            String key = keyOf(root, directory);
+            String[] segments = key.split("/");
+            boolean blobs = segments[0].equals(ContentAddressedStore.BLOBS_FOLDER);
+            UUID ownerId = blobs ? null : parseUuid(segments[segments.length - 1]);
+            try {
+                if (ownerId != null) {
+                    ImageType type = segments[0].equals(StorageLayout.folder(ImageType.POST)) ? ImageType.POST : ImageType.USER;
+                    reconcileOwner(root, directory, type, ownerId);
+                    return;
+                }
+                List<DirectoryScan> subdirectories = new ArrayList<>();
+                List<Path> files = new ArrayList<>();
+                try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                    for (Path entry : entries) {
+                        if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+                            subdirectories.add(new DirectoryScan(root, entry));
+                        } else if (blobs) {
+                            files.add(entry);
+                        }
+                    }
+                }
+                if (!files.isEmpty()) {
+                    reconcileBlobs(root, files);
+                }
+                invokeAll(subdirectories);
+            } catch (IOException | RuntimeException e) {
+                failed.incrementAndGet();
+                lastError = key + ": " + e;
+                log.warn("Could not reconcile {}", key, e);
+            }
+        }
+    }
+
+    private record Orphan(String key, long size) {
+    }
+
+    private void reconcileOwner(Path root, Path directory, ImageType type, UUID ownerId) throws IOException {
+        Path originals = directory.resolve(ORIGINALS_FOLDER);
+        List<Path> files = new ArrayList<>();
+        collectFiles(directory, files);
+        if (Files.isDirectory(originals, LinkOption.NOFOLLOW_LINKS)) {
+            collectFiles(originals, files);
+        }
+        if (files.isEmpty()) {
+            pruneIfEmpty(directory, originals);
+            return;
+        }
+        filesScanned.addAndGet(files.size());
+
+        Set<String> referenced = new HashSet<>();
+        for (Image image : imageRepository.findByOwnerIdAndType(ownerId, type)) {
+            referenced.add(canonicalKey(image.getFilePath()));
+            if (image.getOriginalPath() != null) {
+                referenced.add(canonicalKey(image.getOriginalPath()));
+            }
+        }
+        List<Orphan> candidates = new ArrayList<>();
+        for (Path file : files) {
+            String key = keyOf(root, file);
+            if (!referenced.contains(key)) {
+                addIfOld(candidates, file, key);
+            }
+        }
+        handleOrphans(candidates);
+    }
+
+    // Blob-urile se numesc <hash>-<generație>.<ext>; fișierul e referit doar dacă image_blobs indică exact această generație
+    private void reconcileBlobs(Path root, List<Path> files) throws IOException {
+        filesScanned.addAndGet(files.size());
+        for (int from = 0; from < files.size(); from += batchSize) {
+            List<Path> batch = files.subList(from, Math.min(from + batchSize, files.size()));
+            Set<String> hashes = batch.stream().map(file -> hashOf(file.getFileName().toString())).collect(Collectors.toSet());
+            Set<String> blobKeys = imageBlobRepository.findAllById(hashes).stream()
+                    .map(ImageBlob::getFilePath)
+                    .collect(Collectors.toSet());
+            List<Orphan> candidates = new ArrayList<>();
+            for (Path file : batch) {
+                String key = keyOf(root, file);
+                if (!blobKeys.contains(key)) {
+                    addIfOld(candidates, file, key);
+                }
+            }
+            handleOrphans(candidates);
+        }
+    }
+
+    /**
+     * Fișierele proaspete pot aparține unei scrieri care nu a ajuns încă în DB (upload în curs, actualizare
+     * în două faze), deci sunt luate în seamă doar după perioada de grație. Contează și ctime: un hard link
+     * (copia din migrare) sau o redenumire (finalizarea unui upload reluabil) păstrează mtime-ul vechi.
+     * Fișierele ".part" rămase după o scriere întreruptă nu sunt referite niciodată și cad tot aici.
+     */
+    private void addIfOld(List<Orphan> candidates, Path file, String key) throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (NoSuchFileException e) {
+            return;  // Șters între timp
+        }
+        if (!attributes.isRegularFile()) {
+            return;
+        }
+        Instant changedAt = attributes.lastModifiedTime().toInstant();
+        try {
+            Instant inodeChangedAt = ((FileTime) Files.getAttribute(file, "unix:ctime", LinkOption.NOFOLLOW_LINKS)).toInstant();
+            if (inodeChangedAt.isAfter(changedAt)) {
+                changedAt = inodeChangedAt;
+            }
+        } catch (UnsupportedOperationException | IllegalArgumentException e) {
+            // Sistem de fișiere fără atribute unix: rămâne mtime
+        }
+        if (changedAt.isBefore(Instant.now().minus(gracePeriod))) {
+            candidates.add(new Orphan(key, attributes.size()));
+        }
+    }
+
+    private void handleOrphans(List<Orphan> candidates) {
+        if (candidates.isEmpty()) {
+            return;
+        }
+        // Vechile căi ale fișierelor migrate și fișierele deja în curs de ștergere au un task programat
+        Set<String> scheduled = new HashSet<>(reclaimTaskRepository.findScheduledPaths(
+                candidates.stream().map(Orphan::key).toList()));
+        List<Orphan> orphans = candidates.stream().filter(orphan -> !scheduled.contains(orphan.key())).toList();
+        for (Orphan orphan : orphans) {
+            orphanFiles.incrementAndGet();
+            orphanBytes.addAndGet(orphan.size());
+            report("orphan_file", "Orphan file {} ({} bytes) has no image row", orphan.key(), orphan.size());
+        }
+        if (repair && !orphans.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> orphans.forEach(orphan -> fileReclaimer.enqueue(orphan.key())));
+            repaired(orphans.size());
+        }
+    }
+
+    // Directorul unui owner fără imagini (de ex. după ștergerea tuturor) nu mai e folosit la nimic.
+    // Doar după perioada de grație, ca un upload care tocmai l-a creat să nu-l piardă.
+    private void pruneIfEmpty(Path directory, Path originals) throws IOException {
+        if (!repair) {
+            return;
+        }
+        Instant cutoff = Instant.now().minus(gracePeriod);
+        try {
+            if (Files.getLastModifiedTime(directory).toInstant().isAfter(cutoff)) {
+                return;
+            }
+            if (Files.isDirectory(originals, LinkOption.NOFOLLOW_LINKS)) {
+                Files.delete(originals);
+            }
+            Files.delete(directory);
+            prunedDirectories.incrementAndGet();
+        } catch (DirectoryNotEmptyException | NoSuchFileException e) {
+            // Un fișier nou a ajuns între timp sau directorul a dispărut deja
+        }
+    }
+
+    private static void collectFiles(Path directory, List<Path> files) throws IOException {
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (Path entry : entries) {
+                if (!Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+                    files.add(entry);
+                }
+            }
+        }
+    }
+
+    // Faza ROWS ------------------------------------------------------------------------------------------------
+
+    private record RowCheck(Image image, boolean fileMissing, boolean originalMissing) {
+
+        boolean broken() {
+            return fileMissing || originalMissing;
+        }
+    }
+
+    private void reconcileRows(ForkJoinPool pool, UUID after) {
+        saveCheckpoint(Phase.ROWS, after.toString());
+        while (!stopRequested) {
+            List<Image> page = imageRepository.findAllAfter(after, PageRequest.of(0, batchSize));
+            if (page.isEmpty()) {
+                break;
+            }
+            rowsScanned.addAndGet(page.size());
+
+            // Verificările de existență (stat pe disc, HEAD pe S3) rulează în paralel, în pool-ul reconcilierii
+            List<RowCheck> broken = pool.submit(() -> page.parallelStream().map(this::check).toList()).join()
+                    .stream()
+                    .filter(check -> check != null && check.broken())
+                    .toList();
+            for (RowCheck check : broken) {
+                Image image = check.image();
+                if (check.fileMissing()) {
+                    missingFiles.incrementAndGet();
+                    report("missing_file", "Image {} of owner {} points to missing file {}", image.getId(), image.getOwnerId(), image.getFilePath());
+                }
+                if (check.originalMissing()) {
+                    missingOriginals.incrementAndGet();
+                    report("missing_original", "Image {} of owner {} points to missing original {}", image.getId(), image.getOwnerId(), image.getOriginalPath());
+                }
+            }
+            if (repair && !broken.isEmpty()) {
+                repairRows(broken);
+            }
+
+            after = page.get(page.size() - 1).getId();
+            saveCheckpoint(Phase.ROWS, after.toString());
+        }
+    }
+
+    private RowCheck check(Image image) {
+        try {
+            boolean fileMissing = !storageBackend.exists(image.getFilePath());
+            boolean originalMissing = image.getOriginalPath() != null && !storageBackend.exists(image.getOriginalPath());
+            return new RowCheck(image, fileMissing, originalMissing);
+        } catch (IOException | RuntimeException e) {
+            failed.incrementAndGet();
+            lastError = image.getId() + ": " + e;
+            log.warn("Could not check the files of image {}", image.getId(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Rândurile sunt modificate doar dacă indică încă aceeași cale: unul șters sau mutat între timp
+     * (ștergere, actualizare, migrare) rămâne neatins. Numărul de rânduri șterse într-o rulare e plafonat
+     * de upload.reconciliation.max-deleted-rows, ca un disc nemontat să nu golească tabela.
+     */
+    private void repairRows(List<RowCheck> broken) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (RowCheck check : broken) {
+                Image image = check.image();
+                if (check.fileMissing()) {
+                    if (deletedRows.get() >= maxDeletedRows) {
+                        if (!deletionLimitReached) {
+                            deletionLimitReached = true;
+                            log.error("Storage reconciliation reached upload.reconciliation.max-deleted-rows ({}); "
+                                    + "remaining rows without file are only reported", maxDeletedRows);
+                        }
+                        continue;
+                    }
+                    if (imageRepository.deleteIfPathUnchanged(image.getId(), image.getFilePath()) == 1) {
+                        deletedRows.incrementAndGet();
+                        if (image.getContentHash() != null) {
+                            contentAddressedStore.release(image.getContentHash(), 1);
+                        }
+                        if (image.getOriginalPath() != null && !check.originalMissing()) {
+                            fileReclaimer.enqueue(image.getOriginalPath());
+                        }
+                        ownerImagesCache.evict(image.getOwnerId(), image.getType());
+                        repaired(1);
+                    }
+                } else if (imageRepository.clearOriginalPath(image.getId(), image.getOriginalPath()) == 1) {
+                    ownerImagesCache.evict(image.getOwnerId(), image.getType());
+                    repaired(1);
+                }
+            }
+        });
+    }
+
+    // ----------------------------------------------------------------------------------------------------------
+
+    private void saveCheckpoint(Phase phase, String position) {
+        ReconciliationCheckpoint checkpoint = checkpointRepository.findById(CHECKPOINT).orElseGet(() -> {
+            ReconciliationCheckpoint created = new ReconciliationCheckpoint();
+            created.setName(CHECKPOINT);
+            created.setStartedAt(startedAt);
+            return created;
+        });
+        checkpoint.setPhase(phase.name());
+        checkpoint.setPosition(position);
+        checkpoint.setUpdatedAt(Instant.now());
+        checkpointRepository.save(checkpoint);
+        this.phase = phase;
+        this.position = position;
+    }
+
+    // Jurnalul primește primele discrepanțe ale unei rulări; restul apar doar în contoare
+    private void report(String kind, String message, Object... arguments) {
+        discrepancies.get(kind).increment();
+        if (loggedDiscrepancies.incrementAndGet() <= MAX_LOGGED_DISCREPANCIES) {
+            log.warn(message, arguments);
+        }
+    }
+
+    private void repaired(int count) {
+        repaired.addAndGet(count);
+        repairs.increment(count);
+    }
+
+    private String canonicalKey(String storedPath) {
+        try {
+            return storageBackend.keyOf(storedPath);
+        } catch (IllegalArgumentException e) {
+            return storedPath;  // Cale din afara upload.dir: nu se potrivește cu niciun fișier de aici
+        }
+    }
+
+    private static String keyOf(Path root, Path path) {
+        return root.relativize(path).toString().replace(File.separatorChar, '/');
+    }
+
+    private static String hashOf(String blobFileName) {
+        int separator = blobFileName.indexOf('-');
+        return separator > 0 ? blobFileName.substring(0, separator) : blobFileName;
+    }
+
+    private static UUID parseUuid(String value) {
+        if (value.length() != 36) {
+            return null;
+        }
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
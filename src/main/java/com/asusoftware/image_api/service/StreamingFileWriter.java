@@ -0,0 +1,75 @@
+package com.asusoftware.image_api.service;
+
+import com.asusoftware.image_api.exception.FileTooLargeException;
+import com.asusoftware.image_api.exception.ImageUploadException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Scrie un stream direct în fișierul final prin FileChannel, calculând SHA-256 și
+ * verificând dimensiunea în timpul scrierii (fără buffer intermediar în heap).
+ */
+public final class StreamingFileWriter {
+
+    private static final long TRANSFER_CHUNK = 1024 * 1024;
+
+    private StreamingFileWriter() {
+    }
+
+    public record WrittenFile(Path path, long size, String sha256) {
+    }
+
+    /**
+     * Scrie conținutul în {@code target}. Datele ajung întâi într-un fișier ".part" din același
+     * director, mutat atomic la final, ca să nu fie servit niciodată un fișier incomplet.
+     */
+    public static WrittenFile write(InputStream in, Path target, long maxBytes) throws IOException {
+        MessageDigest digest = sha256();
+        Path partFile = target.resolveSibling(target.getFileName() + ".part");
+        long written = 0;
+
+        try (ReadableByteChannel source = Channels.newChannel(new DigestInputStream(in, digest));
+             FileChannel channel = FileChannel.open(partFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            while (true) {
+                // Cerem cel mult un byte peste limită, suficient pentru a detecta depășirea
+                long count = Math.min(TRANSFER_CHUNK, maxBytes + 1 - written);
+                long transferred = channel.transferFrom(source, written, count);
+                if (transferred <= 0) {
+                    break;
+                }
+                written += transferred;
+                if (written > maxBytes) {
+                    throw new FileTooLargeException("File exceeds the maximum allowed size of " + maxBytes + " bytes.");
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partFile);
+            throw e;
+        }
+
+        try {
+            Files.move(partFile, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(partFile);
+            throw e;
+        }
+        return new WrittenFile(target, written, HexFormat.of().formatHex(digest.digest()));
+    }
+
+    public static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new ImageUploadException("SHA-256 is not available on this JVM.", e);
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package com.asusoftware.image_api.service;
+
+import com.asusoftware.image_api.config.UploadAdmissionProperties;
+import com.asusoftware.image_api.exception.InvalidRequestException;
+import com.asusoftware.image_api.exception.UploadRejectedException;
+import com.asusoftware.image_api.storage.StorageBackend;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admiterea cererilor care scriu imagini: concurență și debit limitate global și per owner, plus spațiul
+ * liber din stocare. Deciziile se iau fără așteptare, înainte ca serverul să citească corpul cererii: ce nu
+ * încape primește imediat 503/429 cu Retry-After, în loc să ocupe un thread Tomcat și o conexiune la DB.
+ */
+@Component
+public class UploadAdmission {
+
+    private static final Logger log = LoggerFactory.getLogger(UploadAdmission.class);
+
+    private static final long BUSY_RETRY_AFTER_SECONDS = 1;
+    private static final long DISK_FULL_RETRY_AFTER_SECONDS = 60;
+
+    private final UploadAdmissionProperties properties;
+    private final StorageBackend storageBackend;
+    private final Semaphore globalPermits;
+    private final ByteRate globalRate;
+    private final Map<UUID, OwnerState> owners = new ConcurrentHashMap<>();
+    private final Map<String, Counter> rejected = new ConcurrentHashMap<>();
+    private final Counter admitted;
+
+    public UploadAdmission(UploadAdmissionProperties properties, StorageBackend storageBackend, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.storageBackend = storageBackend;
+        this.globalPermits = properties.getMaxConcurrent() > 0 ? new Semaphore(properties.getMaxConcurrent()) : null;
+        this.globalRate = ByteRate.of(properties.getMaxBytesPerSecond().toBytes(), properties.getBurst());
+
+        this.admitted = Counter.builder("image.admission.admitted")
+                .description("Write requests admitted by upload admission control")
+                .register(meterRegistry);
+        for (String reason : new String[]{"concurrency", "rate", "owner_concurrency", "owner_rate", "disk_space"}) {
+            rejected.put(reason, Counter.builder("image.admission.rejected")
+                    .description("Write requests rejected by upload admission control, by reason")
+                    .tag("reason", reason)
+                    .register(meterRegistry));
+        }
+        Gauge.builder("image.admission.in_flight", this, admission -> admission.inFlight())
+                .description("Write requests currently admitted")
+                .register(meterRegistry);
+        Gauge.builder("image.admission.owners", owners, Map::size)
+                .description("Owners with admitted requests or outstanding rate debt")
+                .register(meterRegistry);
+        limitGauge(meterRegistry, "concurrent", properties.getMaxConcurrent());
+        limitGauge(meterRegistry, "concurrent_per_owner", properties.getMaxConcurrentPerOwner());
+        limitGauge(meterRegistry, "bytes_per_second", properties.getMaxBytesPerSecond().toBytes());
+        limitGauge(meterRegistry, "bytes_per_second_per_owner", properties.getMaxBytesPerSecondPerOwner().toBytes());
+    }
+
+    /**
+     * Admite o cerere care anunță {@code declaredBytes} (sau -1 dacă nu se știe) pentru {@code ownerId}
+     * (null dacă nu reiese din URL; se poate lega ulterior prin {@link Permit#bindOwner(UUID)}) ori aruncă
+     * {@link UploadRejectedException}. Permisiunea trebuie închisă la sfârșitul cererii.
+     */
+    public Permit admit(UUID ownerId, long declaredBytes) {
+        if (!properties.isEnabled()) {
+            return new Permit(null, false, 0);
+        }
+        long now = System.nanoTime();
+        checkFreeSpace();
+        if (globalPermits != null && !globalPermits.tryAcquire()) {
+            throw reject("concurrency", HttpStatus.SERVICE_UNAVAILABLE, BUSY_RETRY_AFTER_SECONDS, "Too many concurrent uploads, retry later.");
+        }
+        long charged = Math.max(declaredBytes, 0);
+        try {
+            // Verificarea și contabilizarea debitului global sunt un singur pas, altfel cereri simultane ar trece toate
+            if (globalRate != null) {
+                long delay = globalRate.tryCharge(now, charged);
+                if (delay > 0) {
+                    throw reject("rate", HttpStatus.SERVICE_UNAVAILABLE, seconds(delay), "Upload capacity exceeded, retry later.");
+                }
+            }
+            if (ownerId != null) {
+                try {
+                    admitOwner(ownerId, charged, now);
+                } catch (RuntimeException e) {
+                    if (globalRate != null) {
+                        globalRate.refund(charged);  // Cererea respinsă nu consumă din debitul celorlalți
+                    }
+                    throw e;
+                }
+            }
+        } catch (RuntimeException e) {
+            if (globalPermits != null) {
+                globalPermits.release();
+            }
+            throw e;
+        }
+        admitted.increment();
+        return new Permit(ownerId, globalPermits != null, charged);
+    }
+
+    private void admitOwner(UUID ownerId, long bytes, long now) {
+        owners.compute(ownerId, (id, state) -> {
+            OwnerState owner = state != null ? state
+                    : new OwnerState(ByteRate.of(properties.getMaxBytesPerSecondPerOwner().toBytes(), properties.getBurst()));
+            if (properties.getMaxConcurrentPerOwner() > 0 && owner.inFlight >= properties.getMaxConcurrentPerOwner()) {
+                throw reject("owner_concurrency", HttpStatus.TOO_MANY_REQUESTS, BUSY_RETRY_AFTER_SECONDS,
+                        "Too many concurrent uploads for owner " + ownerId + ".");
+            }
+            if (owner.rate != null) {
+                long delay = owner.rate.tryCharge(now, bytes);
+                if (delay > 0) {
+                    throw reject("owner_rate", HttpStatus.TOO_MANY_REQUESTS, seconds(delay),
+                            "Upload rate exceeded for owner " + ownerId + ".");
+                }
+            }
+            owner.inFlight++;
+            return owner;
+        });
+    }
+
+    private void checkFreeSpace() {
+        long minFreeSpace = properties.getMinFreeSpace().toBytes();
+        if (minFreeSpace <= 0) {
+            return;
+        }
+        long usableSpace;
+        try {
+            usableSpace = storageBackend.usableSpace();
+        } catch (IOException e) {
+            log.warn("Could not determine free storage space, admitting upload", e);
+            return;
+        }
+        if (usableSpace < minFreeSpace) {
+            throw reject("disk_space", HttpStatus.SERVICE_UNAVAILABLE, DISK_FULL_RETRY_AFTER_SECONDS, "Storage is almost full, retry later.");
+        }
+    }
+
+    // Owner-ii fără cereri în curs și fără datorie de debit nu mai au nevoie de stare
+    @Scheduled(fixedDelayString = "PT1M")
+    public void evictIdleOwners() {
+        long now = System.nanoTime();
+        owners.keySet().forEach(ownerId -> owners.computeIfPresent(ownerId, (id, state) -> state.idle(now) ? null : state));
+    }
+
+    private int inFlight() {
+        return globalPermits == null ? 0 : properties.getMaxConcurrent() - globalPermits.availablePermits();
+    }
+
+    private UploadRejectedException reject(String reason, HttpStatus status, long retryAfterSeconds, String message) {
+        rejected.get(reason).increment();
+        return new UploadRejectedException(message, status, retryAfterSeconds);
+    }
+
+    private static long seconds(long nanos) {
+        return Math.max(1, (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private static void limitGauge(MeterRegistry meterRegistry, String limit, long value) {
+        Gauge.builder("image.admission.limit", () -> value)
+                .description("Configured upload admission limits (0 = unlimited)")
+                .tag("limit", limit)
+                .register(meterRegistry);
+    }
+
+    /**
+     * O cerere admisă; {@link #charge(long)} adaugă bytes-ii citiți peste cei anunțați (de ex. corp chunked).
+     * Folosită de thread-ul cererii.
+     */
+    public final class Permit implements AutoCloseable {
+
+        private UUID ownerId;
+        private final boolean holdsGlobalPermit;
+        private final long declaredBytes;
+        private boolean closed;
+
+        private Permit(UUID ownerId, boolean holdsGlobalPermit, long declaredBytes) {
+            this.ownerId = ownerId;
+            this.holdsGlobalPermit = holdsGlobalPermit;
+            this.declaredBytes = declaredBytes;
+        }
+
+        /**
+         * Aplică limitele per owner unei cereri al cărei owner nu reiese din URL, ci din corp (câmpul ownerId
+         * al unui formular multipart, partea JSON a unei actualizări), imediat ce e cunoscut. Aruncă
+         * {@link UploadRejectedException} (429); permisiunea globală rămâne până la {@link #close()}.
+         * Nu face nimic dacă același owner era deja cunoscut la admitere; un alt owner decât cel din URL
+         * înseamnă {@link InvalidRequestException}, altfel limitele s-ar aplica pe seama altcuiva.
+         */
+        public void bindOwner(UUID ownerId) {
+            if (!properties.isEnabled() || closed || ownerId == null) {
+                return;
+            }
+            if (this.ownerId != null) {
+                if (!this.ownerId.equals(ownerId)) {
+                    throw new InvalidRequestException("ownerId in the URL does not match the one in the request body.");
+                }
+                return;
+            }
+            admitOwner(ownerId, declaredBytes, System.nanoTime());
+            this.ownerId = ownerId;
+        }
+
+        public void charge(long bytesRead) {
+            long extra = bytesRead - declaredBytes;
+            if (extra <= 0 || !properties.isEnabled()) {
+                return;
+            }
+            long now = System.nanoTime();
+            if (globalRate != null) {
+                globalRate.charge(now, extra);
+            }
+            if (ownerId != null) {
+                owners.computeIfPresent(ownerId, (id, state) -> {
+                    if (state.rate != null) {
+                        state.rate.charge(now, extra);
+                    }
+                    return state;
+                });
+            }
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (holdsGlobalPermit) {
+                globalPermits.release();
+            }
+            if (ownerId != null) {
+                long now = System.nanoTime();
+                owners.computeIfPresent(ownerId, (id, state) -> {
+                    state.inFlight--;
+                    return state.idle(now) ? null : state;
+                });
+            }
+        }
+    }
+
+    private static final class OwnerState {
+
+        private final ByteRate rate;
+        private int inFlight;  // Modificat doar în compute(), sub blocajul intrării din map
+
+        private OwnerState(ByteRate rate) {
+            this.rate = rate;
+        }
+
+        private boolean idle(long now) {
+            return inFlight == 0 && (rate == null || rate.settled(now));
+        }
+    }
+
+    /**
+     * Debit în bytes/secundă după algoritmul GCRA, cu datorie: cererea se admite cât timp bytes-ii deja
+     * acceptați nu depășesc debitul cu mai mult decât rafala permisă, apoi i se adaugă propriii bytes.
+     * Așa o cerere mare nu trebuie să aștepte un "bucket" suficient de mare, dar le amână pe următoarele.
+     */
+    static final class ByteRate {
+
+        private final double nanosPerByte;
+        private final long toleranceNanos;
+        private long theoreticalArrival;  // Momentul la care toți bytes-ii acceptați ar fi "consumați" la debitul configurat
+
+        private ByteRate(long bytesPerSecond, Duration burst, long now) {
+            this.nanosPerByte = (double) TimeUnit.SECONDS.toNanos(1) / bytesPerSecond;
+            this.toleranceNanos = burst.toNanos();
+            this.theoreticalArrival = now;
+        }
+
+        static ByteRate of(long bytesPerSecond, Duration burst) {
+            return bytesPerSecond > 0 ? new ByteRate(bytesPerSecond, burst, System.nanoTime()) : null;
+        }
+
+        // Admite și contabilizează {@code bytes} dacă se poate acum (întoarce 0), altfel întoarce cât mai trebuie așteptat
+        synchronized long tryCharge(long now, long bytes) {
+            long delay = theoreticalArrival - toleranceNanos - now;
+            if (delay > 0) {
+                return delay;
+            }
+            charge(now, bytes);
+            return 0;
+        }
+
+        synchronized void charge(long now, long bytes) {
+            theoreticalArrival = Math.max(theoreticalArrival, now) + (long) (bytes * nanosPerByte);
+        }
+
+        // Anulează un tryCharge reușit al unei cereri respinse ulterior
+        synchronized void refund(long bytes) {
+            theoreticalArrival -= (long) (bytes * nanosPerByte);
+        }
+
+        synchronized boolean settled(long now) {
+            return theoreticalArrival - now <= 0;
+        }
+    }
+}
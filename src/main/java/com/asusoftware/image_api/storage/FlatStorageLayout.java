@@ -0,0 +1,16 @@
+package com.asusoftware.image_api.storage;
+
+import com.asusoftware.image_api.model.ImageType;
+
+import java.util.UUID;
+
+/**
+ * Layout-ul inițial: {posts|users}/{ownerId}/, toți ownerii direct în același director.
+ */
+public class FlatStorageLayout implements StorageLayout {
+
+    @Override
+    public String ownerDirectory(ImageType type, UUID ownerId) {
+        return StorageLayout.folder(type) + '/' + ownerId;
+    }
+}
@@ -0,0 +1,142 @@
+package com.asusoftware.image_api.storage;
+
+import com.asusoftware.image_api.service.StreamingFileWriter;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Stocarea pe discul local, sub upload.dir. Rândurile vechi care păstrează căi absolute
+ * sunt acceptate ca chei, cât timp rămân în interiorul upload.dir.
+ */
+@Component
+@ConditionalOnProperty(name = "upload.backend", havingValue = "local", matchIfMissing = true)
+public class LocalStorageBackend implements StorageBackend {
+
+    @Value("${upload.dir}")
+    private String uploadDir;
+
+    private Path root;
+
+    @PostConstruct
+    void init() {
+        root = Paths.get(uploadDir).toAbsolutePath().normalize();
+    }
+
+    // Directorul upload.dir, absolut și normalizat
+    public Path root() {
+        return root;
+    }
+
+    public Path resolve(String key) {
+        Path path = root.resolve(key).normalize();
+        if (!path.startsWith(root) || path.equals(root)) {
+            throw new IllegalArgumentException("Storage key points outside the upload directory: " + key);
+        }
+        return path;
+    }
+
+    @Override
+    public String keyOf(String storedPath) {
+        return root.relativize(resolve(storedPath)).toString().replace(File.separatorChar, '/');
+    }
+
+    @Override
+    public StoredFile write(String key, InputStream content, long maxBytes) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        StreamingFileWriter.WrittenFile writtenFile = StreamingFileWriter.write(content, target, maxBytes);
+        return new StoredFile(key, writtenFile.size(), writtenFile.sha256());
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.exists(resolve(key));
+    }
+
+    // Pe același sistem de fișiere e o simplă redenumire; altfel copiem printr-un fișier ".part"
+    @Override
+    public StoredFile moveIn(Path source, String key, String sha256) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        long size = Files.size(source);
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Path partFile = target.resolveSibling(target.getFileName() + ".part");
+            try {
+                Files.copy(source, partFile, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(partFile, target, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(partFile);
+            }
+            Files.delete(source);
+        }
+        return new StoredFile(key, size, sha256);
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return Files.newInputStream(resolve(key));
+    }
+
+    @Override
+    public void move(String sourceKey, String targetKey) throws IOException {
+        Path target = resolve(targetKey);
+        Files.createDirectories(target.getParent());
+        if (Files.exists(target)) {
+            throw new FileAlreadyExistsException(targetKey);
+        }
+        Files.move(resolve(sourceKey), target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public void copy(String sourceKey, String targetKey) throws IOException {
+        Path source = resolve(sourceKey);
+        Path target = resolve(targetKey);
+        Files.createDirectories(target.getParent());
+        try {
+            // Pe același sistem de fișiere un hard link e instantaneu și nu ocupă spațiu în plus
+            Files.createLink(target, source);
+        } catch (FileAlreadyExistsException e) {
+            throw e;
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            Path partFile = target.resolveSibling(target.getFileName() + ".part");
+            try {
+                Files.copy(source, partFile, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(partFile, target, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(partFile);
+            }
+        }
+    }
+
+    @Override
+    public long delete(String key) throws IOException {
+        Path path = resolve(key);
+        try {
+            long size = Files.readAttributes(path, BasicFileAttributes.class).size();
+            Files.delete(path);
+            return size;
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+    }
+
+    // upload.dir poate să nu existe încă; măsurăm sistemul de fișiere al celui mai apropiat părinte existent
+    @Override
+    public long usableSpace() throws IOException {
+        Path existing = root;
+        while (existing != null && !Files.exists(existing)) {
+            existing = existing.getParent();
+        }
+        return existing == null ? Long.MAX_VALUE : Files.getFileStore(existing).getUsableSpace();
+    }
+}
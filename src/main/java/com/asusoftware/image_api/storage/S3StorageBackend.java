@@ -0,0 +1,354 @@
+package com.asusoftware.image_api.storage;
+
+import com.asusoftware.image_api.config.ImageCaching;
+import com.asusoftware.image_api.config.S3StorageProperties;
+import com.asusoftware.image_api.exception.FileTooLargeException;
+import com.asusoftware.image_api.service.StreamingFileWriter;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Stocarea într-un bucket S3 (sau compatibil S3), ca toate instanțele din spatele load balancer-ului
+ * să vadă aceleași fișiere. Fișierele mai mari de o parte se încarcă multipart, cu părțile trimise
+ * în paralel pe măsură ce sunt citite din cerere; clienții primesc imaginile prin URL-uri presemnate.
+ */
+@Component
+@ConditionalOnProperty(name = "upload.backend", havingValue = "s3")
+public class S3StorageBackend implements StorageBackend {
+
+    // Buffer-ul inițial pentru prima parte; crește prin dublare până la partSize doar dacă fișierul e mare
+    static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    private final S3Client s3Client;
+    private final S3Presigner s3Presigner;
+    private final String bucket;
+    private final int partSize;
+    private final Duration presignTtl;
+
+    private final ExecutorService uploadWorkers;
+    // Limitează părțile aflate în transfer (și deci bufferele din memorie) pe toate încărcările
+    private final Semaphore partPermits;
+
+    public S3StorageBackend(S3Client s3Client, S3Presigner s3Presigner, S3StorageProperties properties) {
+        if (!StringUtils.hasText(properties.getBucket())) {
+            throw new IllegalStateException("upload.s3.bucket must be set when upload.backend=s3");
+        }
+        if (properties.getPartSize().toBytes() < 5 * 1024 * 1024 || properties.getPartSize().toBytes() > Integer.MAX_VALUE) {
+            throw new IllegalStateException("upload.s3.part-size must be between 5MB and 2GB");
+        }
+        this.s3Client = s3Client;
+        this.s3Presigner = s3Presigner;
+        this.bucket = properties.getBucket();
+        this.partSize = (int) properties.getPartSize().toBytes();
+        this.presignTtl = properties.getPresignTtl();
+        this.uploadWorkers = Executors.newFixedThreadPool(properties.getUploadConcurrency(), new CustomizableThreadFactory("s3-upload-"));
+        this.partPermits = new Semaphore(properties.getUploadConcurrency());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        uploadWorkers.shutdownNow();
+    }
+
+    @Override
+    public StoredFile write(String key, InputStream content, long maxBytes) throws IOException {
+        validate(key);
+        MessageDigest digest = StreamingFileWriter.sha256();
+        InputStream in = new DigestInputStream(content, digest);
+
+        Part first = readFirstPart(in, partSize, maxBytes);
+        long size;
+        if (first.length() < partSize) {
+            // Încape într-o singură cerere
+            try {
+                s3Client.putObject(builder -> builder.bucket(bucket).key(key)
+                                .contentType(contentType(key))
+                                .cacheControl(ImageCaching.IMMUTABLE.getHeaderValue()),
+                        RequestBody.fromInputStream(new ByteArrayInputStream(first.buffer(), 0, first.length()), first.length()));
+            } catch (SdkException e) {
+                throw failure("upload", key, e);
+            }
+            size = first.length();
+        } else {
+            size = writeMultipart(key, in, first.buffer(), maxBytes);
+        }
+        return new StoredFile(key, size, HexFormat.of().formatHex(digest.digest()));
+    }
+
+    /**
+     * Fiecare parte citită pleacă imediat pe un worker, iar citirea continuă cu următoarea; dacă o parte
+     * eșuează sau fișierul depășește limita, încărcarea e anulată și părțile deja trimise sunt eliminate.
+     */
+    private long writeMultipart(String key, InputStream in, byte[] first, long maxBytes) throws IOException {
+        String uploadId;
+        try {
+            uploadId = s3Client.createMultipartUpload(builder -> builder.bucket(bucket).key(key)
+                    .contentType(contentType(key))
+                    .cacheControl(ImageCaching.IMMUTABLE.getHeaderValue())).uploadId();
+        } catch (SdkException e) {
+            throw failure("upload", key, e);
+        }
+
+        List<CompletableFuture<CompletedPart>> parts = new ArrayList<>();
+        try {
+            byte[] buffer = first;
+            int length = partSize;
+            long size = 0;
+            while (length > 0) {
+                parts.add(uploadPart(key, uploadId, parts.size() + 1, buffer, length));
+                size += length;
+                if (length < partSize || parts.stream().anyMatch(CompletableFuture::isCompletedExceptionally)) {
+                    break;
+                }
+                buffer = new byte[partSize];
+                length = readPart(in, buffer, maxBytes, size);
+            }
+
+            List<CompletedPart> completed = new ArrayList<>(parts.size());
+            for (CompletableFuture<CompletedPart> part : parts) {
+                completed.add(part.join());
+            }
+            s3Client.completeMultipartUpload(builder -> builder.bucket(bucket).key(key).uploadId(uploadId)
+                    .multipartUpload(upload -> upload.parts(completed)));
+            return size;
+        } catch (IOException | RuntimeException e) {
+            abort(key, uploadId, parts);
+            if (e instanceof CompletionException && e.getCause() instanceof SdkException cause) {
+                throw failure("upload", key, cause);
+            }
+            if (e instanceof SdkException cause) {
+                throw failure("upload", key, cause);
+            }
+            throw e;
+        }
+    }
+
+    private CompletableFuture<CompletedPart> uploadPart(String key, String uploadId, int partNumber,
+                                                        byte[] buffer, int length) throws IOException {
+        try {
+            partPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while uploading " + key);
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                String eTag = s3Client.uploadPart(builder -> builder.bucket(bucket).key(key)
+                                .uploadId(uploadId).partNumber(partNumber).contentLength((long) length),
+                        RequestBody.fromInputStream(new ByteArrayInputStream(buffer, 0, length), length)).eTag();
+                return CompletedPart.builder().partNumber(partNumber).eTag(eTag).build();
+            }, uploadWorkers).whenComplete((part, error) -> partPermits.release());
+        } catch (RuntimeException e) {
+            partPermits.release();
+            throw e;
+        }
+    }
+
+    // Așteptăm părțile în curs, altfel o parte terminată după abort ar rămâne stocată (și facturată)
+    private void abort(String key, String uploadId, List<CompletableFuture<CompletedPart>> parts) {
+        CompletableFuture.allOf(parts.toArray(CompletableFuture[]::new)).handle((ignored, error) -> null).join();
+        try {
+            s3Client.abortMultipartUpload(builder -> builder.bucket(bucket).key(key).uploadId(uploadId));
+        } catch (SdkException ignored) {
+            // Încărcările rămase neterminate sunt curățate de regula de lifecycle a bucket-ului
+        }
+    }
+
+    // Conținutul citit într-un buffer; length poate fi mai mic decât buffer.length
+    record Part(byte[] buffer, int length) {
+    }
+
+    /**
+     * Citește până la {@code partSize} octeți într-un buffer care pornește de la INITIAL_BUFFER_SIZE și se
+     * dublează doar cât e nevoie: cele mai multe imagini sunt mult mai mici decât o parte, deci nu alocăm
+     * partSize pentru fiecare scriere. Un fișier de cel puțin o parte ajunge la un buffer de exact partSize.
+     */
+    static Part readFirstPart(InputStream in, int partSize, long maxBytes) throws IOException {
+        byte[] buffer = new byte[Math.min(INITIAL_BUFFER_SIZE, partSize)];
+        int length = 0;
+        while (true) {
+            int read = in.readNBytes(buffer, length, buffer.length - length);
+            length += read;
+            if (length > maxBytes) {
+                throw new FileTooLargeException("File exceeds the maximum allowed size of " + maxBytes + " bytes.");
+            }
+            if (length < buffer.length || buffer.length == partSize) {
+                return new Part(buffer, length);
+            }
+            buffer = Arrays.copyOf(buffer, (int) Math.min((long) buffer.length * 2, partSize));
+        }
+    }
+
+    // Umple buffer-ul cât permite stream-ul și verifică limita cu datele citite până acum
+    private static int readPart(InputStream in, byte[] buffer, long maxBytes, long alreadyRead) throws IOException {
+        int length = in.readNBytes(buffer, 0, buffer.length);
+        if (alreadyRead + length > maxBytes) {
+            throw new FileTooLargeException("File exceeds the maximum allowed size of " + maxBytes + " bytes.");
+        }
+        return length;
+    }
+
+    @Override
+    public StoredFile moveIn(Path source, String key, String sha256) throws IOException {
+        StoredFile stored;
+        try (InputStream content = Files.newInputStream(source)) {
+            stored = write(key, content, Long.MAX_VALUE - 1);
+        }
+        Files.delete(source);
+        return stored;
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        return size(key) >= 0;
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        validate(key);
+        try {
+            return s3Client.getObject(builder -> builder.bucket(bucket).key(key));
+        } catch (NoSuchKeyException e) {
+            throw new NoSuchFileException(key);
+        } catch (SdkException e) {
+            throw failure("read", key, e);
+        }
+    }
+
+    @Override
+    public String keyOf(String storedPath) {
+        validate(storedPath);
+        return storedPath;
+    }
+
+    // S3 nu are redenumire: copiem și ștergem sursa
+    @Override
+    public void move(String sourceKey, String targetKey) throws IOException {
+        copy(sourceKey, targetKey);
+        delete(sourceKey);
+    }
+
+    @Override
+    public void copy(String sourceKey, String targetKey) throws IOException {
+        validate(sourceKey);
+        if (exists(targetKey)) {
+            throw new FileAlreadyExistsException(targetKey);
+        }
+        try {
+            s3Client.copyObject(builder -> builder.sourceBucket(bucket).sourceKey(sourceKey)
+                    .destinationBucket(bucket).destinationKey(targetKey));
+        } catch (NoSuchKeyException e) {
+            throw new NoSuchFileException(sourceKey);
+        } catch (SdkException e) {
+            throw failure("copy", sourceKey, e);
+        }
+    }
+
+    @Override
+    public long delete(String key) throws IOException {
+        long size = size(key);
+        if (size < 0) {
+            return 0;
+        }
+        try {
+            s3Client.deleteObject(builder -> builder.bucket(bucket).key(key));
+        } catch (SdkException e) {
+            throw failure("delete", key, e);
+        }
+        return size;
+    }
+
+    @Override
+    public long usableSpace() {
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * URL presemnat prin care clientul descarcă fișierul direct din S3, valabil upload.s3.presign-ttl.
+     */
+    public URI presignedUrl(String key) {
+        validate(key);
+        try {
+            return s3Presigner.presignGetObject(request -> request.signatureDuration(presignTtl)
+                    .getObjectRequest(builder -> builder.bucket(bucket).key(key))).url().toURI();
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException("Presigned URL is not a valid URI for key " + key, e);
+        }
+    }
+
+    public Duration presignTtl() {
+        return presignTtl;
+    }
+
+    // Dimensiunea obiectului sau -1 dacă nu există
+    private long size(String key) throws IOException {
+        validate(key);
+        try {
+            return s3Client.headObject(builder -> builder.bucket(bucket).key(key)).contentLength();
+        } catch (NoSuchKeyException e) {
+            return -1;
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return -1;
+            }
+            throw failure("stat", key, e);
+        } catch (SdkException e) {
+            throw failure("stat", key, e);
+        }
+    }
+
+    // Aceleași reguli ca pe discul local: chei relative, fără segmente "." sau ".."
+    private static void validate(String key) {
+        if (!StringUtils.hasText(key) || key.startsWith("/") || key.contains("\\")) {
+            throw new IllegalArgumentException("Invalid storage key: " + key);
+        }
+        for (String segment : key.split("/", -1)) {
+            if (segment.isEmpty() || segment.equals(".") || segment.equals("..")) {
+                throw new IllegalArgumentException("Invalid storage key: " + key);
+            }
+        }
+    }
+
+    private static String contentType(String key) {
+        return MediaTypeFactory.getMediaType(key).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+    }
+
+    private static IOException failure(String operation, String key, SdkException e) {
+        return new IOException("S3 " + operation + " failed for " + key + ": " + e.getMessage(), e);
+    }
+}
@@ -0,0 +1,21 @@
+package com.asusoftware.image_api.storage;
+
+import com.asusoftware.image_api.model.ImageType;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * {posts|users}/ab/cd/{ownerId}/, unde ab/cd sunt primele caractere din MD5-ul ownerId-ului.
+ * Cele 65536 de directoare de pe al doilea nivel țin în jur de 15 owneri fiecare la un milion de owneri,
+ * iar hash-ul împrăștie uniform și UUID-urile ordonate în timp.
+ */
+public class ShardedStorageLayout implements StorageLayout {
+
+    @Override
+    public String ownerDirectory(ImageType type, UUID ownerId) {
+        String hash = DigestUtils.md5DigestAsHex(ownerId.toString().getBytes(StandardCharsets.US_ASCII));
+        return StorageLayout.folder(type) + '/' + hash.substring(0, 2) + '/' + hash.substring(2, 4) + '/' + ownerId;
+    }
+}
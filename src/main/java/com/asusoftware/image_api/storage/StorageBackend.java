@@ -0,0 +1,58 @@
+package com.asusoftware.image_api.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * Locul în care se păstrează fișierele imaginilor. Fișierele sunt adresate prin chei de forma
+ * posts/ab/cd/{ownerId}/{fileName}, relative la rădăcina stocării; cheia este și calea din URL-ul public.
+ * Implementarea se alege prin upload.backend: local (discul din upload.dir) sau s3.
+ */
+public interface StorageBackend {
+
+    /**
+     * Scrie conținutul sub {@code key}, verificând dimensiunea și calculând SHA-256 în timpul scrierii.
+     * Fișierul devine vizibil doar după ce a fost scris complet.
+     */
+    StoredFile write(String key, InputStream content, long maxBytes) throws IOException;
+
+    boolean exists(String key) throws IOException;
+
+    /**
+     * Aduce în stocare, sub {@code key}, un fișier local complet (de ex. un upload reluabil terminat).
+     * Fișierul sursă nu mai există după apel; {@code sha256} e hash-ul deja calculat al conținutului.
+     */
+    StoredFile moveIn(Path source, String key, String sha256) throws IOException;
+
+    /**
+     * Deschide conținutul pentru citire; aruncă NoSuchFileException dacă fișierul lipsește.
+     */
+    InputStream open(String key) throws IOException;
+
+    /**
+     * Forma canonică a unei căi salvate în DB (rândurile vechi pot avea căi absolute).
+     */
+    String keyOf(String storedPath);
+
+    /**
+     * Mută fișierul; aruncă FileAlreadyExistsException dacă ținta există deja.
+     */
+    void move(String sourceKey, String targetKey) throws IOException;
+
+    /**
+     * Copiază fișierul lăsând sursa neatinsă (unde se poate, fără a duplica datele).
+     * Aruncă FileAlreadyExistsException dacă ținta există deja.
+     */
+    void copy(String sourceKey, String targetKey) throws IOException;
+
+    /**
+     * Șterge fișierul și întoarce câți bytes au fost eliberați; un fișier lipsă nu este o eroare (întoarce 0).
+     */
+    long delete(String key) throws IOException;
+
+    /**
+     * Spațiul disponibil pentru fișiere noi, în bytes; Long.MAX_VALUE unde stocarea nu are o limită proprie (S3).
+     */
+    long usableSpace() throws IOException;
+}
@@ -0,0 +1,21 @@
+package com.asusoftware.image_api.storage;
+
+import com.asusoftware.image_api.model.ImageType;
+
+import java.util.UUID;
+
+/**
+ * Decide sub ce cheie se păstrează fișierele unui owner.
+ */
+public interface StorageLayout {
+
+    String ownerDirectory(ImageType type, UUID ownerId);
+
+    default String fileKey(ImageType type, UUID ownerId, String fileName) {
+        return ownerDirectory(type, ownerId) + '/' + fileName;
+    }
+
+    static String folder(ImageType type) {
+        return type == ImageType.POST ? "posts" : "users";
+    }
+}
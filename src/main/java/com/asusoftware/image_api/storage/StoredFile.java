@@ -0,0 +1,11 @@
+package com.asusoftware.image_api.storage;
+
+/**
+ * Un fișier scris în stocare: cheia lui (relativă la rădăcina stocării), dimensiunea și SHA-256 al conținutului.
+ */
+public record StoredFile(String key, long size, String sha256) {
+
+    public String fileName() {
+        return key.substring(key.lastIndexOf('/') + 1);
+    }
+}
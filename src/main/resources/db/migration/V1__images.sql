@@ -0,0 +1,11 @@
+-- Schema inițial, așa cum îl crea ddl-auto: update. Instrucțiunile sunt idempotente, ca migrarea să poată
+-- rula și peste o bază creată de Hibernate (spring.flyway.baseline-version = 0).
+CREATE TABLE IF NOT EXISTS images (
+    id        uuid         NOT NULL,
+    file_name varchar(255) NOT NULL,
+    file_path varchar(255) NOT NULL,
+    file_url  varchar(255) NOT NULL,
+    owner_id  uuid         NOT NULL,
+    type      varchar(255) NOT NULL CHECK (type IN ('POST', 'USER')),
+    PRIMARY KEY (id)
+);
@@ -0,0 +1,54 @@
+-- Tot ce a apărut peste schema inițială: indecși, dimensiuni și originale, deduplicare, ștergerea
+-- amânată a fișierelor, upload-uri reluabile și checkpoint-ul reconcilierii. Idempotent, ca V1.
+ALTER TABLE images ADD COLUMN IF NOT EXISTS content_hash varchar(64);
+ALTER TABLE images ADD COLUMN IF NOT EXISTS size_bytes bigint;
+ALTER TABLE images ADD COLUMN IF NOT EXISTS original_size_bytes bigint;
+ALTER TABLE images ADD COLUMN IF NOT EXISTS original_path varchar(255);
+
+CREATE INDEX IF NOT EXISTS idx_images_owner_type ON images (owner_id, type);
+CREATE UNIQUE INDEX IF NOT EXISTS uk_images_file_name ON images (file_name);
+
+CREATE TABLE IF NOT EXISTS image_blobs (
+    hash       varchar(64)  NOT NULL,
+    file_path  varchar(255) NOT NULL,
+    size_bytes bigint       NOT NULL,
+    ref_count  bigint       NOT NULL,
+    PRIMARY KEY (hash)
+);
+
+CREATE TABLE IF NOT EXISTS reclaim_tasks (
+    id              bigint GENERATED BY DEFAULT AS IDENTITY,
+    path            varchar(1024)                           NOT NULL,
+    attempts        integer                                 NOT NULL,
+    next_attempt_at timestamp(6) with time zone             NOT NULL,
+    last_error      varchar(1024),
+    created_at      timestamp(6) with time zone             NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_reclaim_tasks_next_attempt ON reclaim_tasks (next_attempt_at);
+CREATE INDEX IF NOT EXISTS idx_reclaim_tasks_path ON reclaim_tasks (path);
+
+CREATE TABLE IF NOT EXISTS upload_sessions (
+    id              uuid                        NOT NULL,
+    owner_id        uuid                        NOT NULL,
+    type            varchar(255)                NOT NULL CHECK (type IN ('POST', 'USER')),
+    target_key      varchar(1024)               NOT NULL,
+    upload_length   bigint                      NOT NULL,
+    upload_offset   bigint                      NOT NULL,
+    expected_sha256 varchar(64),
+    created_at      timestamp(6) with time zone NOT NULL,
+    expires_at      timestamp(6) with time zone NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_upload_sessions_expires_at ON upload_sessions (expires_at);
+
+CREATE TABLE IF NOT EXISTS reconciliation_checkpoints (
+    name       varchar(64)                 NOT NULL,
+    phase      varchar(16)                 NOT NULL,
+    position   varchar(1024)               NOT NULL,
+    started_at timestamp(6) with time zone NOT NULL,
+    updated_at timestamp(6) with time zone NOT NULL,
+    PRIMARY KEY (name)
+);
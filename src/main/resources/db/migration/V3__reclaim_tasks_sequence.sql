@@ -0,0 +1,6 @@
+-- reclaim_tasks primește id-urile dintr-o secvență alocată în blocuri de 50, ca inserările să poată fi trimise
+-- în batch. Rândurile existente (create cu IDENTITY) sunt mutate pe id-uri negative, păstrându-și ordinea, ca să
+-- nu se ciocnească de cele din secvență; ordinea după id rămâne cea de la creare.
+CREATE SEQUENCE IF NOT EXISTS reclaim_tasks_seq START WITH 1 INCREMENT BY 50;
+
+UPDATE reclaim_tasks SET id = id - (SELECT MAX(id) FROM reclaim_tasks) - 1;
@@ -0,0 +1,37 @@
+package com.asusoftware.image_api;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.annotation.AliasFor;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Contextul complet al aplicației pe H2 (migrările Flyway rulează în modul PostgreSQL), fără Eureka și cu
+ * stocarea locală sub target/test-storage. Ștergerea în fundal nu rulează singură: testele apelează
+ * FileReclaimer.reclaimBatch() când au nevoie de ea. Clasele care folosesc aceleași proprietăți
+ * împart contextul și baza de date, deci fiecare test lucrează cu owneri și conținut proprii.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@SpringBootTest(properties = {
+		"eureka.client.enabled=false",
+		"spring.datasource.url=jdbc:h2:mem:image-api;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+		"upload.dir=target/test-storage/uploads",
+		"upload.resumable.dir=target/test-storage/upload-sessions",
+		"image.variants.cache-dir=target/test-storage/cache",
+		"upload.reclaim.interval=PT1H"
+})
+public @interface H2ApplicationTest {
+
+	@AliasFor(annotation = SpringBootTest.class)
+	SpringBootTest.WebEnvironment webEnvironment() default SpringBootTest.WebEnvironment.MOCK;
+}
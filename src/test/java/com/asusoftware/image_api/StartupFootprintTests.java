@@ -0,0 +1,117 @@
+package com.asusoftware.image_api;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Compară pornirea cu profilul implicit și cu fast-start: timpul raportat de Spring Boot până la "Started"
+ * și memoria rezidentă (VmRSS) imediat după, mediana a câte 3 porniri, fiecare într-un JVM separat, pe H2
+ * și fără Eureka. E o măsurătoare manuală, nu o poartă de build: durează peste un minut, depinde de mașină
+ * și nu rulează în CI (nici în mvn test obișnuit). Se rulează înainte de a schimba profilul fast-start:
+ * mvn test -Dtest=StartupFootprintTests -Dstartup.comparison=true
+ * AOT și arhiva CDS au nevoie de JAR-ul din Dockerfile și nu sunt măsurate aici.
+ */
+@EnabledIfSystemProperty(named = "startup.comparison", matches = "true")
+class StartupFootprintTests {
+
+	private static final Pattern STARTED = Pattern.compile("Started ImageApiApplication in ([0-9.]+) seconds");
+	private static final Pattern RSS = Pattern.compile("VmRSS:\\s+(\\d+) kB");
+	private static final int RUNS = 3;
+	private static final double TOLERANCE = 1.1;
+
+	private static final Logger log = LoggerFactory.getLogger(StartupFootprintTests.class);
+
+	@TempDir
+	private Path workDir;
+
+	private record Footprint(double startupSeconds, long rssKb) {
+	}
+
+	@Test
+	void fastStartProfileStartsNoSlowerAndNoLargerThanDefault() throws Exception {
+		assumeTrue(Files.exists(Path.of("/proc/self/status")), "RSS is read from /proc");
+
+		Footprint standard = measure("default");
+		Footprint fastStart = measure("fast-start");
+		log.info("default: started in {}s with {}MB RSS; fast-start: started in {}s with {}MB RSS",
+				standard.startupSeconds(), standard.rssKb() / 1024, fastStart.startupSeconds(), fastStart.rssKb() / 1024);
+
+		// Toleranță pentru zgomotul dintre porniri
+		assertThat(fastStart.startupSeconds())
+				.as("fast-start startup (default: %.2fs)", standard.startupSeconds())
+				.isLessThanOrEqualTo(standard.startupSeconds() * TOLERANCE);
+		assertThat((double) fastStart.rssKb())
+				.as("fast-start RSS in kB (default: %d kB)", standard.rssKb())
+				.isLessThanOrEqualTo(standard.rssKb() * TOLERANCE);
+	}
+
+	private Footprint measure(String profile) throws Exception {
+		List<Footprint> runs = new ArrayList<>();
+		for (int i = 0; i < RUNS; i++) {
+			runs.add(start(profile, workDir.resolve(profile + "-" + i)));
+		}
+		runs.sort(Comparator.comparingDouble(Footprint::startupSeconds));
+		Footprint startup = runs.get(RUNS / 2);
+		runs.sort(Comparator.comparingLong(Footprint::rssKb));
+		return new Footprint(startup.startupSeconds(), runs.get(RUNS / 2).rssKb());
+	}
+
+	private static Footprint start(String profile, Path dir) throws Exception {
+		Process process = new ProcessBuilder(
+				Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+				"-cp", System.getProperty("java.class.path"),
+				"-Dspring.profiles.active=" + profile,
+				ImageApiApplication.class.getName(),
+				"--server.port=0",
+				"--eureka.client.enabled=false",
+				"--spring.datasource.url=jdbc:h2:mem:startup;MODE=PostgreSQL",
+				"--spring.datasource.driver-class-name=org.h2.Driver",
+				"--spring.datasource.username=sa",
+				"--spring.datasource.password=",
+				"--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+				"--upload.dir=" + dir.resolve("uploads"),
+				"--upload.resumable.dir=" + dir.resolve("upload-sessions"),
+				"--image.variants.cache-dir=" + dir.resolve("cache"))
+				.redirectErrorStream(true)
+				.start();
+		try (BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = output.readLine()) != null) {
+				Matcher started = STARTED.matcher(line);
+				if (started.find()) {
+					return new Footprint(Double.parseDouble(started.group(1)), rss(process.pid()));
+				}
+			}
+			throw new IllegalStateException("Application with profile " + profile + " exited before starting");
+		} finally {
+			process.destroy();
+			process.waitFor();
+		}
+	}
+
+	private static long rss(long pid) throws IOException {
+		Matcher matcher = RSS.matcher(Files.readString(Path.of("/proc", String.valueOf(pid), "status")));
+		if (!matcher.find()) {
+			throw new IllegalStateException("VmRSS is missing from /proc/" + pid + "/status");
+		}
+		return Long.parseLong(matcher.group(1));
+	}
+}
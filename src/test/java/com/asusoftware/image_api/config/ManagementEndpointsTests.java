@@ -0,0 +1,65 @@
+package com.asusoftware.image_api.config;
+
+import com.asusoftware.image_api.H2ApplicationTest;
+import com.asusoftware.image_api.controller.StorageMigrationEndpoint;
+import com.asusoftware.image_api.controller.StorageReconciliationEndpoint;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.OperationType;
+import org.springframework.boot.actuate.endpoint.invoke.OperationParameter;
+import org.springframework.boot.actuate.endpoint.invoke.reflect.OperationMethod;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.TestPropertySource;
+
+import java.lang.reflect.Method;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@H2ApplicationTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(properties = "management.server.port=0")
+class ManagementEndpointsTests {
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@LocalManagementPort
+	private int managementPort;
+
+	@Test
+	void actuatorIsServedOnlyOnTheManagementPort() {
+		assertThat(restTemplate.getForEntity("/actuator/health", String.class).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+		assertThat(restTemplate.getForEntity(management("/actuator/health"), String.class).getStatusCode()).isEqualTo(HttpStatus.OK);
+	}
+
+	@Test
+	void endpointsThatWriteAreNotExposedByDefault() {
+		assertThat(restTemplate.getForEntity(management("/actuator/storagemigration"), String.class).getStatusCode())
+				.isEqualTo(HttpStatus.NOT_FOUND);
+		assertThat(restTemplate.getForEntity(management("/actuator/reconciliation"), String.class).getStatusCode())
+				.isEqualTo(HttpStatus.NOT_FOUND);
+	}
+
+	@Test
+	void migrationCanBeStartedWithoutParameters() throws NoSuchMethodException {
+		Method start = StorageMigrationEndpoint.class.getMethod("start", UUID.class);
+
+		assertThat(new OperationMethod(start, OperationType.WRITE).getParameters())
+				.noneMatch(OperationParameter::isMandatory);
+	}
+
+	@Test
+	void reconciliationCanBeStartedWithoutParameters() throws NoSuchMethodException {
+		Method start = StorageReconciliationEndpoint.class.getMethod("start", Boolean.class, Boolean.class);
+
+		assertThat(new OperationMethod(start, OperationType.WRITE).getParameters())
+				.noneMatch(OperationParameter::isMandatory);
+	}
+
+	private String management(String path) {
+		return "http://localhost:" + managementPort + path;
+	}
+}
@@ -0,0 +1,31 @@
+package com.asusoftware.image_api.config;
+
+import com.asusoftware.image_api.model.Image;
+import com.asusoftware.image_api.model.dto.ImageArchiveManifest;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NativeHintsConfigTests {
+
+	private final RuntimeHints hints = new RuntimeHints();
+
+	NativeHintsConfigTests() {
+		new NativeHintsConfig.ImageApiRuntimeHints().registerHints(hints, getClass().getClassLoader());
+	}
+
+	@Test
+	void archiveManifestAndItsEntriesCanBeBoundByJackson() throws Exception {
+		assertThat(RuntimeHintsPredicates.reflection().onMethod(ImageArchiveManifest.class.getMethod("getImages"))).accepts(hints);
+		assertThat(RuntimeHintsPredicates.reflection().onMethod(ImageArchiveManifest.Entry.class.getMethod("setPath", String.class))).accepts(hints);
+	}
+
+	@Test
+	void entityAccessorsAndMigrationsAreIncluded() {
+		assertThat(RuntimeHintsPredicates.reflection().onType(Image.class).withMemberCategory(MemberCategory.INVOKE_DECLARED_METHODS)).accepts(hints);
+		assertThat(RuntimeHintsPredicates.resource().forResource("db/migration/V1__images.sql")).accepts(hints);
+	}
+}
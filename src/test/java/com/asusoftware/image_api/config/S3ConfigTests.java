@@ -0,0 +1,62 @@
+package com.asusoftware.image_api.config;
+
+import com.asusoftware.image_api.service.OwnerImagesCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class S3ConfigTests {
+
+	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+			.withConfiguration(AutoConfigurations.of(CacheAutoConfiguration.class))
+			.withUserConfiguration(CachingWithS3Properties.class, S3Config.class)
+			.withPropertyValues(
+					"spring.cache.type=caffeine",
+					"spring.cache.cache-names=" + OwnerImagesCache.CACHE_NAME,
+					"spring.cache.caffeine.spec=maximumSize=100,expireAfterWrite=10m",
+					"upload.backend=s3",
+					"upload.s3.owner-images-cache-ttl=30s");
+
+	@Test
+	void ownerImagesCacheExpiresAfterTheS3CapInTheContext() {
+		contextRunner.run(context -> {
+			Cache<?, ?> cache = (Cache<?, ?>) context.getBean(CacheManager.class).getCache(OwnerImagesCache.CACHE_NAME).getNativeCache();
+			assertThat(cache.policy().expireAfterWrite().orElseThrow().getExpiresAfter(TimeUnit.SECONDS)).isEqualTo(30);
+		});
+	}
+
+	@Test
+	void ownerImagesCacheTtlIsCappedForSeveralInstances() {
+		assertThat(S3Config.capExpireAfterWrite("maximumSize=50000,expireAfterWrite=10m,recordStats", Duration.ofSeconds(30)))
+				.isEqualTo("maximumSize=50000,recordStats,expireAfterWrite=30s");
+	}
+
+	@Test
+	void shorterConfiguredTtlIsKept() {
+		assertThat(S3Config.capExpireAfterWrite("maximumSize=100,expireAfterWrite=5s", Duration.ofSeconds(30)))
+				.isEqualTo("maximumSize=100,expireAfterWrite=5s");
+	}
+
+	@Test
+	void specWithoutExpiryGetsTheCap() {
+		assertThat(S3Config.capExpireAfterWrite("maximumSize=100", Duration.ofMinutes(1)))
+				.isEqualTo("maximumSize=100,expireAfterWrite=60s");
+	}
+
+	@Configuration
+	@EnableCaching
+	@EnableConfigurationProperties(S3StorageProperties.class)
+	static class CachingWithS3Properties {
+	}
+}
@@ -0,0 +1,259 @@
+package com.asusoftware.image_api.controller;
+
+import com.asusoftware.image_api.H2ApplicationTest;
+import com.asusoftware.image_api.model.Image;
+import com.asusoftware.image_api.repository.ImageRepository;
+import com.asusoftware.image_api.model.ImageType;
+import com.asusoftware.image_api.model.dto.ImageDto;
+import com.asusoftware.image_api.service.FileReclaimer;
+import com.asusoftware.image_api.service.ImageOptimizer;
+import com.asusoftware.image_api.service.ImageService;
+import com.asusoftware.image_api.service.UploadAdmission;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static com.asusoftware.image_api.model.ImageFixtures.images;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@H2ApplicationTest
+@AutoConfigureMockMvc
+class ImageControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private UploadAdmission uploadAdmission;
+
+	@Autowired
+	private ImageRepository imageRepository;
+
+	@Autowired
+	private ImageService imageService;
+
+	@Autowired
+	private FileReclaimer fileReclaimer;
+
+	@Value("${image.batch.max-owners}")
+	private int batchMaxOwners;
+
+	@Value("${upload.dir}")
+	private String uploadDir;
+
+	@Value("${upload.admission.max-concurrent-per-owner}")
+	private int maxConcurrentPerOwner;
+
+	@Value("${upload.archive.export-timeout}")
+	private Duration exportTimeout;
+
+	@Test
+	void ownerSentAsFormFieldIsHeldToItsUploadLimits() throws Exception {
+		UUID ownerId = UUID.randomUUID();
+		List<UploadAdmission.Permit> held = new ArrayList<>();
+		try {
+			// Owner-ul are deja toate upload-urile simultane permise
+			for (int i = 0; i < maxConcurrentPerOwner; i++) {
+				held.add(uploadAdmission.admit(ownerId, 0));
+			}
+
+			mockMvc.perform(multipart("/api/v1/images")
+							.file(new MockMultipartFile("images", "photo.jpg", "image/jpeg", new byte[]{1, 2, 3}))
+							.param("ownerId", ownerId.toString())
+							.param("type", "POST"))
+					.andExpect(status().isTooManyRequests())
+					.andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+		} finally {
+			held.forEach(UploadAdmission.Permit::close);
+		}
+	}
+
+	@Test
+	void ownerSentInTheQueryStringIsRejectedBeforeTheBodyIsParsed() throws Exception {
+		UUID ownerId = UUID.randomUUID();
+		List<UploadAdmission.Permit> held = new ArrayList<>();
+		try {
+			for (int i = 0; i < maxConcurrentPerOwner; i++) {
+				held.add(uploadAdmission.admit(ownerId, 0));
+			}
+
+			MvcResult result = mockMvc.perform(multipart("/api/v1/images?ownerId=" + ownerId)
+							.file(new MockMultipartFile("images", "photo.jpg", "image/jpeg", new byte[]{1, 2, 3}))
+							.param("type", "POST"))
+					.andExpect(status().isTooManyRequests())
+					.andExpect(header().exists(HttpHeaders.RETRY_AFTER))
+					.andReturn();
+			// Filtrul a răspuns singur: cererea n-a ajuns la controller, deci corpul multipart n-a fost parsat
+			assertThat(result.getHandler()).isNull();
+		} finally {
+			held.forEach(UploadAdmission.Permit::close);
+		}
+	}
+
+	@Test
+	void ownerInTheQueryStringMustMatchTheUpdateBody() throws Exception {
+		mockMvc.perform(multipart(HttpMethod.PUT, "/api/v1/images?ownerId=" + UUID.randomUUID())
+						.file(new MockMultipartFile("data", "", MediaType.APPLICATION_JSON_VALUE,
+								("{\"ownerId\":\"" + UUID.randomUUID() + "\",\"type\":\"POST\",\"existingImages\":[]}").getBytes())))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void batchGroupsImagesByOwnerInRequestOrder() throws Exception {
+		UUID first = UUID.randomUUID();
+		UUID second = UUID.randomUUID();
+		UUID withoutImages = UUID.randomUUID();
+		List<Image> images = new ArrayList<>(images(first, 2));
+		images.addAll(images(second, 1));
+		imageRepository.saveAllAndFlush(images);
+
+		MvcResult result = mockMvc.perform(post("/api/v1/images/batch")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"ownerIds\":[\"" + second + "\",\"" + withoutImages + "\",\"" + first + "\",\"" + second + "\"],"
+								+ "\"type\":\"POST\"}"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+
+		String body = mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(3))
+				.andExpect(jsonPath("$['" + first + "'].length()").value(2))
+				.andExpect(jsonPath("$['" + second + "'][0].id").value(images.get(2).getId().toString()))
+				.andExpect(jsonPath("$['" + withoutImages + "']").isEmpty())
+				.andReturn().getResponse().getContentAsString();
+		// Owner-ii apar în ordinea cererii, fără duplicate
+		assertThat(body.indexOf(second.toString())).isLessThan(body.indexOf(withoutImages.toString()));
+		assertThat(body.indexOf(withoutImages.toString())).isLessThan(body.indexOf(first.toString()));
+	}
+
+	@Test
+	void batchAboveTheOwnerLimitIsRejected() throws Exception {
+		MvcResult atLimit = mockMvc.perform(post("/api/v1/images/batch")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"ownerIds\":[" + ownerIds(batchMaxOwners) + "],\"type\":\"POST\"}"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		mockMvc.perform(asyncDispatch(atLimit))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(batchMaxOwners));
+
+		mockMvc.perform(post("/api/v1/images/batch")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"ownerIds\":[" + ownerIds(batchMaxOwners + 1) + "],\"type\":\"POST\"}"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(post("/api/v1/images/batch")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"ownerIds\":[],\"type\":\"POST\"}"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void exportIsStreamedWithItsOwnTimeout() throws Exception {
+		UUID ownerId = UUID.randomUUID();
+		imageService.uploadImages(List.of(new MockMultipartFile("images", "photo.png", "image/png", png(40, 20))),
+				ownerId, ImageType.POST);
+
+		MvcResult result = mockMvc.perform(get("/api/v1/images/" + ownerId + "/POST/archive"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		assertThat(result.getRequest().getAsyncContext().getTimeout()).isEqualTo(exportTimeout.toMillis());
+
+		byte[] archive = mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CONTENT_TYPE, "application/zip"))
+				.andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, containsString(ownerId + "-post.zip")))
+				.andReturn().getResponse().getContentAsByteArray();
+		List<String> entries = new ArrayList<>();
+		try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive))) {
+			for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+				entries.add(entry.getName());
+			}
+		}
+		assertThat(entries).hasSize(2).contains("manifest.json");
+	}
+
+	@Test
+	void preservedOriginalsAreNotServed() throws Exception {
+		String key = "posts/" + UUID.randomUUID() + "/photo.jpg";
+		Path published = Path.of(uploadDir).resolve(key);
+		Path original = Path.of(uploadDir).resolve(ImageOptimizer.originalKey(key));
+		Files.createDirectories(original.getParent());
+		Files.write(published, new byte[]{1, 2, 3});
+		Files.write(original, new byte[]{4, 5, 6});
+
+		mockMvc.perform(get("/images/" + key))
+				.andExpect(status().isOk());
+		mockMvc.perform(get("/images/" + ImageOptimizer.originalKey(key)))
+				.andExpect(status().isNotFound());
+		mockMvc.perform(get("/images/" + ImageOptimizer.originalKey(key)).param("w", "200"))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void variantOfADeletedImageIsNotServed() throws Exception {
+		UUID ownerId = UUID.randomUUID();
+		ImageDto image = imageService.uploadImages(List.of(new MockMultipartFile("images", "photo.png", "image/png", png(800, 400))),
+				ownerId, ImageType.POST).get(0);
+		String path = image.getFileUrl().substring(image.getFileUrl().indexOf("/images/"));
+		mockMvc.perform(get(path).param("w", "200"))
+				.andExpect(status().isOk());
+
+		imageService.deleteImage(image.getFileName(), "posts", ownerId);
+		fileReclaimer.reclaimDue();
+
+		mockMvc.perform(get(path).param("w", "200"))
+				.andExpect(status().isNotFound());
+		mockMvc.perform(get(path))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void actuatorStaysOnTheApiPortUnlessConfigured() throws Exception {
+		mockMvc.perform(get("/actuator/health"))
+				.andExpect(status().isOk());
+	}
+
+	private static byte[] png(int width, int height) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", output);
+		return output.toByteArray();
+	}
+
+	private static String ownerIds(int count) {
+		return IntStream.range(0, count)
+				.mapToObj(i -> "\"" + UUID.randomUUID() + "\"")
+				.collect(Collectors.joining(","));
+	}
+}
@@ -0,0 +1,34 @@
+package com.asusoftware.image_api.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Rânduri Image pentru teste, nesalvate; numele fișierelor sunt unice, ca testele să nu se calce pe picioare.
+ */
+public final class ImageFixtures {
+
+	private ImageFixtures() {
+	}
+
+	public static List<Image> images(UUID ownerId, int count) {
+		List<Image> images = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			String fileName = UUID.randomUUID() + "_photo" + i + ".jpg";
+			images.add(image(ownerId, ImageType.POST, "uploads/posts/" + ownerId + "/" + fileName));
+		}
+		return images;
+	}
+
+	// Imaginea unui owner, salvată sub cheia dată
+	public static Image image(UUID ownerId, ImageType type, String key) {
+		Image image = new Image();
+		image.setFileName(key.substring(key.lastIndexOf('/') + 1));
+		image.setFilePath(key);
+		image.setFileUrl("http://localhost:8085/images/" + key);
+		image.setOwnerId(ownerId);
+		image.setType(type);
+		return image;
+	}
+}
@@ -0,0 +1,107 @@
+package com.asusoftware.image_api.repository;
+
+import com.asusoftware.image_api.model.Image;
+import com.asusoftware.image_api.model.ImageType;
+import com.asusoftware.image_api.model.ReclaimTask;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static com.asusoftware.image_api.model.ImageFixtures.images;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+		"spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class ImageRepositoryBatchTests {
+
+	@Autowired
+	private ImageRepository imageRepository;
+
+	@Autowired
+	private ReclaimTaskRepository reclaimTaskRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void uploadOfFiftyImagesIsSentAsOneInsertBatch() {
+		UUID ownerId = UUID.randomUUID();
+
+		imageRepository.saveAllAndFlush(images(ownerId, 50));
+
+		assertThat(statistics.getEntityInsertCount()).isEqualTo(50);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	@Test
+	void fiftyReclaimTasksAreSentAsOneInsertBatch() {
+		List<ReclaimTask> tasks = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			ReclaimTask task = new ReclaimTask();
+			task.setPath("posts/" + UUID.randomUUID() + "/photo" + i + ".jpg");
+			task.setNextAttemptAt(Instant.now());
+			task.setCreatedAt(Instant.now());
+			tasks.add(task);
+		}
+
+		reclaimTaskRepository.saveAllAndFlush(tasks);
+
+		assertThat(statistics.getEntityInsertCount()).isEqualTo(50);
+		// Un INSERT în batch, plus citirile din secvență pentru blocul de id-uri
+		assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3);
+	}
+
+	@Test
+	void ownerWipeOfFiftyImagesIsASingleDelete() {
+		UUID ownerId = UUID.randomUUID();
+		imageRepository.saveAllAndFlush(images(ownerId, 50));
+		statistics.clear();
+
+		int deleted = imageRepository.deleteByOwnerIdAndType(ownerId, ImageType.POST);
+
+		assertThat(deleted).isEqualTo(50);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	@Test
+	void imagesOfSeveralOwnersAreReadWithOneQuery() {
+		UUID first = UUID.randomUUID();
+		UUID second = UUID.randomUUID();
+		UUID withoutImages = UUID.randomUUID();
+		List<Image> images = new ArrayList<>(images(first, 2));
+		images.addAll(images(second, 3));
+		Image avatar = images(second, 1).get(0);
+		avatar.setType(ImageType.USER);
+		images.add(avatar);
+		imageRepository.saveAllAndFlush(images);
+		statistics.clear();
+
+		List<Image> found = imageRepository.findByOwnerIdInAndType(List.of(first, second, withoutImages), ImageType.POST);
+
+		assertThat(found).hasSize(5).allSatisfy(image -> assertThat(image.getType()).isEqualTo(ImageType.POST));
+		assertThat(found.stream().collect(Collectors.groupingBy(Image::getOwnerId, Collectors.counting())))
+				.containsExactlyInAnyOrderEntriesOf(Map.of(first, 2L, second, 3L));
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+}
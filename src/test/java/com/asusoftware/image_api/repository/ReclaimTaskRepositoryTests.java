@@ -0,0 +1,87 @@
+package com.asusoftware.image_api.repository;
+
+import com.asusoftware.image_api.model.Image;
+import com.asusoftware.image_api.model.ImageType;
+import com.asusoftware.image_api.model.ReclaimTask;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+import static com.asusoftware.image_api.model.ImageFixtures.images;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+class ReclaimTaskRepositoryTests {
+
+	@Autowired
+	private ImageRepository imageRepository;
+
+	@Autowired
+	private ReclaimTaskRepository reclaimTaskRepository;
+
+	@Test
+	void ownerWipeEnqueuesOneTaskPerStoredFileButNotForDedupedBlobs() {
+		UUID ownerId = UUID.randomUUID();
+		List<Image> images = images(ownerId, 3);
+		images.get(0).setContentHash("a".repeat(64));
+		imageRepository.saveAllAndFlush(images);
+
+		int enqueued = reclaimTaskRepository.enqueueFilesOfOwner(ownerId, ImageType.POST, Instant.now());
+
+		assertThat(enqueued).isEqualTo(2);
+		assertThat(reclaimTaskRepository.findAll())
+				.extracting(ReclaimTask::getPath)
+				.containsExactlyInAnyOrder(images.get(1).getFilePath(), images.get(2).getFilePath());
+	}
+
+	@Test
+	void tasksEnqueuedBySelectAndSavedOnesGetDistinctIds() {
+		UUID ownerId = UUID.randomUUID();
+		imageRepository.saveAllAndFlush(images(ownerId, 3));
+		ReclaimTask saved = task("saved.jpg", Instant.now(), 0);
+
+		reclaimTaskRepository.enqueueFilesOfOwner(ownerId, ImageType.POST, Instant.now());
+		ReclaimTask savedAfter = task("saved-after.jpg", Instant.now(), 0);
+
+		List<ReclaimTask> tasks = reclaimTaskRepository.findAll();
+		assertThat(tasks).hasSize(5);
+		assertThat(tasks).extracting(ReclaimTask::getId).doesNotHaveDuplicates()
+				.contains(saved.getId(), savedAfter.getId());
+	}
+
+	@Test
+	void onlyDueTasksBelowTheAttemptLimitAreClaimed() {
+		Instant now = Instant.now();
+		ReclaimTask due = task("due.jpg", now.minus(1, ChronoUnit.MINUTES), 0);
+		task("later.jpg", now.plus(1, ChronoUnit.MINUTES), 0);
+		task("abandoned.jpg", now.minus(1, ChronoUnit.MINUTES), 10);
+
+		List<ReclaimTask> claimed = reclaimTaskRepository.findDue(now, 10, PageRequest.of(0, 100));
+
+		assertThat(claimed).extracting(ReclaimTask::getId).containsExactly(due.getId());
+	}
+
+	@Test
+	void scheduledPathsAreFoundAmongCandidates() {
+		task("posts/ab/cd/old.jpg", Instant.now().plus(7, ChronoUnit.DAYS), 0);
+
+		List<String> scheduled = reclaimTaskRepository.findScheduledPaths(List.of("posts/ab/cd/old.jpg", "posts/ab/cd/orphan.jpg"));
+
+		assertThat(scheduled).containsExactly("posts/ab/cd/old.jpg");
+	}
+
+	private ReclaimTask task(String path, Instant nextAttemptAt, int attempts) {
+		ReclaimTask task = new ReclaimTask();
+		task.setPath(path);
+		task.setNextAttemptAt(nextAttemptAt);
+		task.setAttempts(attempts);
+		task.setCreatedAt(Instant.now());
+		return reclaimTaskRepository.saveAndFlush(task);
+	}
+}
@@ -0,0 +1,61 @@
+package com.asusoftware.image_api.repository;
+
+import com.asusoftware.image_api.model.ImageType;
+import com.asusoftware.image_api.model.UploadSession;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+class UploadSessionRepositoryTests {
+
+	@Autowired
+	private UploadSessionRepository uploadSessionRepository;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Test
+	void offsetOnlyAdvancesFromTheOffsetTheWriterStartedAt() {
+		UploadSession session = session(Instant.now().plus(1, ChronoUnit.HOURS));
+		Instant expiresAt = Instant.now().plus(2, ChronoUnit.HOURS);
+
+		int first = uploadSessionRepository.advance(session.getId(), 0, 400, expiresAt);
+		int stale = uploadSessionRepository.advance(session.getId(), 0, 300, expiresAt);
+
+		assertThat(first).isEqualTo(1);
+		assertThat(stale).isZero();
+		entityManager.clear();
+		assertThat(uploadSessionRepository.findById(session.getId()).orElseThrow().getUploadOffset()).isEqualTo(400);
+	}
+
+	@Test
+	void onlySessionsPastTheirExpiryAreFound() {
+		Instant now = Instant.now();
+		UploadSession abandoned = session(now.minus(1, ChronoUnit.MINUTES));
+		session(now.plus(1, ChronoUnit.MINUTES));
+
+		assertThat(uploadSessionRepository.findExpired(now, PageRequest.of(0, 100)))
+				.extracting(UploadSession::getId)
+				.containsExactly(abandoned.getId());
+	}
+
+	private UploadSession session(Instant expiresAt) {
+		UploadSession session = new UploadSession();
+		session.setOwnerId(UUID.randomUUID());
+		session.setType(ImageType.POST);
+		session.setTargetKey("posts/" + UUID.randomUUID() + "/a.jpg");
+		session.setUploadLength(1000);
+		session.setCreatedAt(Instant.now());
+		session.setExpiresAt(expiresAt);
+		return uploadSessionRepository.saveAndFlush(session);
+	}
+}
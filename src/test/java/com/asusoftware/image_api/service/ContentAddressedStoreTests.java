@@ -0,0 +1,153 @@
+package com.asusoftware.image_api.service;
+
+import com.asusoftware.image_api.H2ApplicationTest;
+import com.asusoftware.image_api.repository.ImageBlobRepository;
+import com.asusoftware.image_api.repository.ReclaimTaskRepository;
+import com.asusoftware.image_api.storage.StorageBackend;
+import com.asusoftware.image_api.storage.StoredFile;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@H2ApplicationTest
+class ContentAddressedStoreTests {
+
+	@Autowired
+	private ContentAddressedStore contentAddressedStore;
+
+	@Autowired
+	private ImageBlobRepository imageBlobRepository;
+
+	@Autowired
+	private ReclaimTaskRepository reclaimTaskRepository;
+
+	@Autowired
+	private FileReclaimer fileReclaimer;
+
+	@Autowired
+	private StorageBackend storageBackend;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Test
+	void duplicateContentReusesTheExistingBlob() throws IOException {
+		byte[] content = randomContent();
+		StoredFile first = write(content);
+		StoredFile second = write(content);
+
+		String firstBlob = adopt(first);
+		String secondBlob = adopt(second);
+
+		assertThat(secondBlob).isEqualTo(firstBlob).startsWith(ContentAddressedStore.BLOBS_FOLDER + '/');
+		assertThat(imageBlobRepository.findRefCountByHash(first.sha256())).contains(2L);
+		assertThat(storageBackend.exists(firstBlob)).isTrue();
+		assertThat(storageBackend.exists(first.key())).isFalse();
+		assertThat(storageBackend.exists(second.key())).isFalse();
+	}
+
+	@Test
+	void lastReleaseDeletesTheBlobRowAndItsFile() throws IOException {
+		StoredFile storedFile = write(randomContent());
+		String blobKey = adopt(storedFile);
+		adopt(write(storedFile));
+
+		release(storedFile.sha256());
+		assertThat(imageBlobRepository.findRefCountByHash(storedFile.sha256())).contains(1L);
+		assertThat(reclaimTaskRepository.findScheduledPaths(List.of(blobKey))).isEmpty();
+
+		release(storedFile.sha256());
+		assertThat(imageBlobRepository.findFilePathByHash(storedFile.sha256())).isEmpty();
+		assertThat(reclaimTaskRepository.findScheduledPaths(List.of(blobKey))).containsExactly(blobKey);
+
+		fileReclaimer.reclaimBatch();
+		assertThat(storageBackend.exists(blobKey)).isFalse();
+	}
+
+	@Test
+	void rolledBackAdoptionDeletesTheMovedFile() throws IOException {
+		StoredFile storedFile = write(randomContent());
+
+		String blobKey = transactionTemplate.execute(status -> {
+			String key = contentAddressedStore.adopt(storedFile);
+			status.setRollbackOnly();
+			return key;
+		});
+
+		assertThat(imageBlobRepository.findFilePathByHash(storedFile.sha256())).isEmpty();
+		assertThat(storageBackend.exists(blobKey)).isFalse();
+	}
+
+	@Test
+	void concurrentAdoptAndReleaseLeaveTheReferencedBlobOnStorage() throws Exception {
+		for (int round = 0; round < 20; round++) {
+			StoredFile existing = write(randomContent());
+			adopt(existing);
+			StoredFile duplicate = write(existing);
+
+			CountDownLatch start = new CountDownLatch(1);
+			CompletableFuture<Void> release = CompletableFuture.runAsync(() -> {
+				await(start);
+				release(existing.sha256());
+			});
+			CompletableFuture<String> adopt = CompletableFuture.supplyAsync(() -> {
+				await(start);
+				return adopt(duplicate);
+			});
+			start.countDown();
+			release.get(10, TimeUnit.SECONDS);
+			String blobKey = adopt.get(10, TimeUnit.SECONDS);
+
+			// Referința rămasă e a celui care a adoptat: blob-ul ei există și nu e programat pentru ștergere
+			assertThat(imageBlobRepository.findRefCountByHash(existing.sha256())).contains(1L);
+			assertThat(imageBlobRepository.findFilePathByHash(existing.sha256())).contains(blobKey);
+			fileReclaimer.reclaimBatch();
+			assertThat(storageBackend.exists(blobKey)).as("blob of round %d", round).isTrue();
+		}
+	}
+
+	private String adopt(StoredFile storedFile) {
+		return transactionTemplate.execute(status -> contentAddressedStore.adopt(storedFile));
+	}
+
+	private void release(String hash) {
+		transactionTemplate.executeWithoutResult(status -> contentAddressedStore.release(hash, 1));
+	}
+
+	// O copie nouă a aceluiași conținut, ca la un upload repetat
+	private StoredFile write(StoredFile storedFile) throws IOException {
+		try (var in = storageBackend.open(imageBlobRepository.findFilePathByHash(storedFile.sha256()).orElseThrow())) {
+			return write(in.readAllBytes());
+		}
+	}
+
+	private StoredFile write(byte[] content) throws IOException {
+		return storageBackend.write("posts/cas-tests/" + UUID.randomUUID() + ".jpg", new ByteArrayInputStream(content), content.length);
+	}
+
+	private static byte[] randomContent() {
+		byte[] content = new byte[1024];
+		ThreadLocalRandom.current().nextBytes(content);
+		return content;
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,212 @@
+package com.asusoftware.image_api.service;
+
+import com.asusoftware.image_api.H2ApplicationTest;
+import com.asusoftware.image_api.config.ImageOptimizationProperties;
+import com.asusoftware.image_api.exception.FileTooLargeException;
+import com.asusoftware.image_api.exception.InvalidRequestException;
+import com.asusoftware.image_api.model.Image;
+import com.asusoftware.image_api.model.ImageType;
+import com.asusoftware.image_api.model.dto.ImageDto;
+import com.asusoftware.image_api.repository.ImageRepository;
+import com.asusoftware.image_api.storage.StorageBackend;
+import com.asusoftware.image_api.storage.StorageLayout;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@H2ApplicationTest
+class ImageArchiveServiceTests {
+
+	@Autowired
+	private ImageArchiveService imageArchiveService;
+
+	@Autowired
+	private ImageRepository imageRepository;
+
+	@Autowired
+	private StorageBackend storageBackend;
+
+	@Autowired
+	private StorageLayout storageLayout;
+
+	@Autowired
+	private ImageOptimizationProperties optimizationProperties;
+
+	@Value("${upload.dir}")
+	private Path uploadDir;
+
+	private Object maxFiles;
+	private Object maxFileSize;
+	private boolean optimizationEnabled;
+	private int maxDimension;
+
+	@BeforeEach
+	void saveLimits() {
+		maxFiles = ReflectionTestUtils.getField(imageArchiveService, "maxFiles");
+		maxFileSize = ReflectionTestUtils.getField(imageArchiveService, "maxFileSize");
+		optimizationEnabled = optimizationProperties.isEnabled();
+		maxDimension = optimizationProperties.getMaxDimension();
+	}
+
+	@AfterEach
+	void restoreLimits() {
+		ReflectionTestUtils.setField(imageArchiveService, "maxFiles", maxFiles);
+		ReflectionTestUtils.setField(imageArchiveService, "maxFileSize", maxFileSize);
+		optimizationProperties.setEnabled(optimizationEnabled);
+		optimizationProperties.setMaxDimension(maxDimension);
+	}
+
+	@Test
+	void exportedArchiveImportsBackWithTheSameContent() throws IOException {
+		UUID source = UUID.randomUUID();
+		UUID target = UUID.randomUUID();
+		Map<String, byte[]> files = new LinkedHashMap<>();
+		files.put("images/first.png", png(40, 20));
+		files.put("images/second.png", png(20, 40));
+		imageArchiveService.importArchive(source, ImageType.POST, zip(files, null));
+
+		ByteArrayOutputStream exported = new ByteArrayOutputStream();
+		imageArchiveService.exportArchive(source, ImageType.POST, exported);
+		List<ImageDto> imported = imageArchiveService.importArchive(target, ImageType.POST, new ByteArrayInputStream(exported.toByteArray()));
+
+		assertThat(imported).hasSize(2);
+		List<Image> images = imageRepository.findByOwnerIdAndType(target, ImageType.POST);
+		assertThat(images).extracting(image -> ImageFileNames.withoutUniquePrefix(image.getFileName()))
+				.containsExactlyInAnyOrder("first.png", "second.png");
+		for (Image image : images) {
+			assertThat(image.getFilePath()).startsWith(storageLayout.ownerDirectory(ImageType.POST, target) + "/");
+			String entry = "images/" + ImageFileNames.withoutUniquePrefix(image.getFileName());
+			assertThat(read(image.getFilePath())).isEqualTo(files.get(entry));
+		}
+	}
+
+	@Test
+	void manifestEntryMissingFromTheArchiveRejectsTheWholeImport() throws IOException {
+		UUID ownerId = UUID.randomUUID();
+		String manifest = "{\"version\":1,\"images\":[{\"fileName\":\"a.png\",\"path\":\"images/a.png\"},"
+				+ "{\"fileName\":\"b.png\",\"path\":\"images/b.png\"}]}";
+
+		assertThatThrownBy(() -> imageArchiveService.importArchive(ownerId, ImageType.POST,
+				zip(Map.of("images/a.png", png(10, 10)), manifest)))
+				.isInstanceOf(InvalidRequestException.class)
+				.hasMessageContaining("images/b.png");
+
+		assertThat(imageRepository.findByOwnerIdAndType(ownerId, ImageType.POST)).isEmpty();
+		assertThat(filesOf(ownerId)).isEmpty();
+	}
+
+	@Test
+	void archiveAboveTheFileLimitIsRejected() throws IOException {
+		ReflectionTestUtils.setField(imageArchiveService, "maxFiles", 2);
+		UUID ownerId = UUID.randomUUID();
+		Map<String, byte[]> files = new LinkedHashMap<>();
+		for (int i = 0; i < 3; i++) {
+			files.put("images/photo" + i + ".png", png(10, 10));
+		}
+
+		assertThatThrownBy(() -> imageArchiveService.importArchive(ownerId, ImageType.POST, zip(files, null)))
+				.isInstanceOf(InvalidRequestException.class);
+
+		assertThat(imageRepository.findByOwnerIdAndType(ownerId, ImageType.POST)).isEmpty();
+		assertThat(filesOf(ownerId)).isEmpty();
+	}
+
+	@Test
+	void entryAboveTheFileSizeLimitIsRejected() throws IOException {
+		ReflectionTestUtils.setField(imageArchiveService, "maxFileSize", DataSize.ofBytes(1000));
+		UUID ownerId = UUID.randomUUID();
+		Map<String, byte[]> files = new LinkedHashMap<>();
+		files.put("images/small.png", new byte[500]);
+		files.put("images/large.png", new byte[1001]);
+
+		assertThatThrownBy(() -> imageArchiveService.importArchive(ownerId, ImageType.POST, zip(files, null)))
+				.isInstanceOf(FileTooLargeException.class);
+
+		assertThat(imageRepository.findByOwnerIdAndType(ownerId, ImageType.POST)).isEmpty();
+		assertThat(filesOf(ownerId)).isEmpty();
+	}
+
+	@Test
+	void importedImagesAreOptimizedLikeUploads() throws IOException {
+		optimizationProperties.setEnabled(true);
+		optimizationProperties.setMaxDimension(100);
+		UUID ownerId = UUID.randomUUID();
+
+		imageArchiveService.importArchive(ownerId, ImageType.POST, zip(Map.of("images/large.png", png(400, 200)), null));
+
+		Image image = imageRepository.findByOwnerIdAndType(ownerId, ImageType.POST).get(0);
+		BufferedImage stored = ImageIO.read(new ByteArrayInputStream(read(image.getFilePath())));
+		assertThat(stored.getWidth()).isEqualTo(100);
+		assertThat(stored.getHeight()).isEqualTo(50);
+		assertThat(image.getSizeBytes()).isLessThan(image.getOriginalSizeBytes());
+	}
+
+	private byte[] read(String key) throws IOException {
+		try (InputStream content = storageBackend.open(key)) {
+			return content.readAllBytes();
+		}
+	}
+
+	private List<Path> filesOf(UUID ownerId) throws IOException {
+		Path ownerDir = uploadDir.resolve(storageLayout.ownerDirectory(ImageType.POST, ownerId));
+		if (!Files.exists(ownerDir)) {
+			return List.of();
+		}
+		try (Stream<Path> files = Files.walk(ownerDir)) {
+			return files.filter(Files::isRegularFile).toList();
+		}
+	}
+
+	private static InputStream zip(Map<String, byte[]> files, String manifest) throws IOException {
+		ByteArrayOutputStream archive = new ByteArrayOutputStream();
+		try (ZipOutputStream zip = new ZipOutputStream(archive)) {
+			for (Map.Entry<String, byte[]> file : files.entrySet()) {
+				zip.putNextEntry(new ZipEntry(file.getKey()));
+				zip.write(file.getValue());
+				zip.closeEntry();
+			}
+			if (manifest != null) {
+				zip.putNextEntry(new ZipEntry("manifest.json"));
+				zip.write(manifest.getBytes(StandardCharsets.UTF_8));
+				zip.closeEntry();
+			}
+		}
+		return new ByteArrayInputStream(archive.toByteArray());
+	}
+
+	private static byte[] png(int width, int height) throws IOException {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				image.setRGB(x, y, (x * 31 + y * 17) & 0xFFFFFF);
+			}
+		}
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", output);
+		return output.toByteArray();
+	}
+}
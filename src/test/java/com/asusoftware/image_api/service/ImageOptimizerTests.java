@@ -0,0 +1,96 @@
+package com.asusoftware.image_api.service;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageOptimizerTests {
+
+	@Test
+	void jpegIsRotatedByExifOrientationAndLosesItsMetadata() throws IOException {
+		// 400x200, jumătatea stângă roșie; orientarea 6 (90° orar) o aduce sus
+		byte[] camera = withExif(jpeg(halves(400, 200)), 6, 60 * 1024);
+
+		ImageOptimizer.Encoded encoded = ImageOptimizer.reencode(new ByteArrayInputStream(camera), 2560, 0.8f);
+
+		BufferedImage result = ImageIO.read(new ByteArrayInputStream(encoded.content()));
+		assertThat(encoded.transformed()).isTrue();
+		assertThat(result.getWidth()).isEqualTo(200);
+		assertThat(result.getHeight()).isEqualTo(400);
+		assertThat(new Color(result.getRGB(100, 50)).getRed()).isGreaterThan(200);
+		assertThat(new Color(result.getRGB(100, 350)).getBlue()).isGreaterThan(200);
+		assertThat(new String(encoded.content(), StandardCharsets.ISO_8859_1)).doesNotContain("Exif");
+		assertThat(encoded.content().length).isLessThan(camera.length);
+	}
+
+	@Test
+	void longestSideIsCappedKeepingTheAspectRatio() throws IOException {
+		ByteArrayOutputStream png = new ByteArrayOutputStream();
+		ImageIO.write(halves(1500, 600), "png", png);
+
+		ImageOptimizer.Encoded encoded = ImageOptimizer.reencode(new ByteArrayInputStream(png.toByteArray()), 500, 0.8f);
+
+		BufferedImage result = ImageIO.read(new ByteArrayInputStream(encoded.content()));
+		assertThat(encoded.transformed()).isTrue();
+		assertThat(result.getWidth()).isEqualTo(500);
+		assertThat(result.getHeight()).isEqualTo(200);
+	}
+
+	@Test
+	void formatsImageIoCannotReencodeAreLeftAlone() throws IOException {
+		byte[] notAnImage = "GIF89a but not really".getBytes(StandardCharsets.US_ASCII);
+
+		assertThat(ImageOptimizer.reencode(new ByteArrayInputStream(notAnImage), 2560, 0.8f)).isNull();
+	}
+
+	private static BufferedImage halves(int width, int height) {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = image.createGraphics();
+		graphics.setColor(Color.RED);
+		graphics.fillRect(0, 0, width / 2, height);
+		graphics.setColor(Color.BLUE);
+		graphics.fillRect(width / 2, 0, width - width / 2, height);
+		graphics.dispose();
+		return image;
+	}
+
+	private static byte[] jpeg(BufferedImage image) throws IOException {
+		ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+		ImageIO.write(image, "jpeg", jpeg);
+		return jpeg.toByteArray();
+	}
+
+	// Inserează după SOI un segment APP1 cu un IFD0 big-endian care conține doar Orientation,
+	// urmat de {@code padding} bytes, ca un bloc EXIF de cameră cu previzualizare
+	private static byte[] withExif(byte[] jpeg, int orientation, int padding) {
+		ByteBuffer exif = ByteBuffer.allocate(6 + 8 + 2 + 12 + 4 + padding);
+		exif.put("Exif\0\0".getBytes(StandardCharsets.US_ASCII));
+		exif.put((byte) 'M').put((byte) 'M').putShort((short) 42).putInt(8);
+		exif.putShort((short) 1);
+		exif.putShort((short) 0x0112).putShort((short) 3).putInt(1).putShort((short) orientation).putShort((short) 0);
+		exif.putInt(0);
+
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		result.write(jpeg, 0, 2);
+		result.write(0xFF);
+		result.write(0xE1);
+		int length = exif.capacity() + 2;
+		if (length > 0xFFFF) {
+			throw new IllegalArgumentException("APP1 segment of " + length + " bytes does not fit its 16-bit length");
+		}
+		result.write(length >> 8);
+		result.write(length & 0xFF);
+		result.write(exif.array(), 0, exif.capacity());
+		result.write(jpeg, 2, jpeg.length - 2);
+		return result.toByteArray();
+	}
+}
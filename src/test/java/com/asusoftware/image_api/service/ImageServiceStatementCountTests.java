@@ -0,0 +1,102 @@
+package com.asusoftware.image_api.service;
+
+import com.asusoftware.image_api.H2ApplicationTest;
+import com.asusoftware.image_api.model.ImageType;
+import com.asusoftware.image_api.model.dto.ImageDto;
+import com.asusoftware.image_api.repository.ImageRepository;
+import com.asusoftware.image_api.repository.ReclaimTaskRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Numărul de instrucțiuni SQL trimise de operațiile ImageService, cu tot ce fac în jurul repository-ului
+ * (task-uri de reclaim, referințele blob-urilor, citirea pentru răspuns). Nu trebuie să crească odată cu
+ * numărul de imagini din cerere.
+ */
+@H2ApplicationTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ImageServiceStatementCountTests {
+
+	private static final int IMAGES = 20;
+
+	@Autowired
+	private ImageService imageService;
+
+	@Autowired
+	private ImageRepository imageRepository;
+
+	@Autowired
+	private ReclaimTaskRepository reclaimTaskRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void uploadIsOneInsertBatchAndOneReadForTheResponse() {
+		UUID ownerId = UUID.randomUUID();
+
+		List<ImageDto> uploaded = imageService.uploadImages(files(IMAGES), ownerId, ImageType.POST);
+
+		assertThat(uploaded).hasSize(IMAGES);
+		assertThat(statistics.getEntityInsertCount()).isEqualTo(IMAGES);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+	}
+
+	@Test
+	void updateReplacingTheWholeGalleryUsesAFixedNumberOfStatements() {
+		UUID ownerId = UUID.randomUUID();
+		imageService.uploadImages(files(IMAGES), ownerId, ImageType.POST);
+		statistics.clear();
+
+		List<ImageDto> updated = imageService.updateImagesByOwnerId(ownerId, List.of(), files(IMAGES), ImageType.POST);
+
+		assertThat(updated).hasSize(IMAGES);
+		// Paza fișierelor noi (un batch), citirea galeriei, INSERT ... SELECT pentru fișiere și originale,
+		// DELETE ... WHERE id IN, inserarea rândurilor (un batch), anularea pazei; plus cel mult două citiri
+		// din secvența reclaim_tasks_seq pentru blocul de id-uri al pazei
+		assertThat(statistics.getPrepareStatementCount()).isBetween(7L, 9L);
+		assertThat(imageRepository.findByOwnerIdAndType(ownerId, ImageType.POST)).hasSize(IMAGES);
+	}
+
+	@Test
+	void ownerWipeIsFourStatementsWhateverTheGallerySize() {
+		UUID ownerId = UUID.randomUUID();
+		imageService.uploadImages(files(IMAGES), ownerId, ImageType.POST);
+		long tasksBefore = reclaimTaskRepository.count();
+		statistics.clear();
+
+		imageService.deleteAllImagesAndFolder(ownerId, "posts");
+
+		// countContentHashReferences, INSERT ... SELECT pentru fișiere și pentru originale, DELETE pe owner
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(4);
+		assertThat(imageRepository.findByOwnerIdAndType(ownerId, ImageType.POST)).isEmpty();
+		assertThat(reclaimTaskRepository.count()).isEqualTo(tasksBefore + IMAGES);
+	}
+
+	private static List<MultipartFile> files(int count) {
+		return IntStream.range(0, count)
+				.<MultipartFile>mapToObj(i -> new MockMultipartFile("images", "photo" + i + ".jpg", "image/jpeg", ("photo" + i).getBytes()))
+				.toList();
+	}
+}
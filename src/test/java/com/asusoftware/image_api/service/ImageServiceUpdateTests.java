@@ -0,0 +1,112 @@
+package com.asusoftware.image_api.service;
+
+import com.asusoftware.image_api.H2ApplicationTest;
+import com.asusoftware.image_api.model.Image;
+import com.asusoftware.image_api.model.ImageType;
+import com.asusoftware.image_api.model.ReclaimTask;
+import com.asusoftware.image_api.model.dto.ImageDto;
+import com.asusoftware.image_api.repository.ImageRepository;
+import com.asusoftware.image_api.repository.ReclaimTaskRepository;
+import com.asusoftware.image_api.storage.StorageBackend;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@H2ApplicationTest
+class ImageServiceUpdateTests {
+
+	@Autowired
+	private ImageService imageService;
+
+	@SpyBean
+	private ImageRepository imageRepository;
+
+	@Autowired
+	private ReclaimTaskRepository reclaimTaskRepository;
+
+	@Autowired
+	private StorageBackend storageBackend;
+
+	@Test
+	void unknownIdsInTheRequestAreIgnored() {
+		UUID ownerId = UUID.randomUUID();
+		List<ImageDto> gallery = imageService.uploadImages(files("a.jpg", "b.jpg"), ownerId, ImageType.POST);
+		ImageDto kept = gallery.get(0);
+		ImageDto unknown = new ImageDto();
+		unknown.setId(UUID.randomUUID());
+		ImageDto withoutId = new ImageDto();
+
+		List<ImageDto> updated = imageService.updateImagesByOwnerId(ownerId, List.of(kept, unknown, withoutId), List.of(), ImageType.POST);
+
+		assertThat(updated).extracting(ImageDto::getId).containsExactly(kept.getId());
+		assertThat(imageRepository.findByOwnerIdAndType(ownerId, ImageType.POST))
+				.extracting(Image::getId).containsExactly(kept.getId());
+	}
+
+	@Test
+	void failedDatabasePhaseLeavesNoRowsAndItsFilesGuarded() throws IOException {
+		UUID ownerId = UUID.randomUUID();
+		List<ImageDto> gallery = imageService.uploadImages(files("a.jpg"), ownerId, ImageType.POST);
+		Instant before = Instant.now();
+		// Numele încape pe disc, dar file_path depășește coloana varchar(255), deci inserarea eșuează
+		List<MultipartFile> tooLong = files("x".repeat(205) + ".jpg");
+
+		assertThatThrownBy(() -> imageService.updateImagesByOwnerId(ownerId, List.of(), tooLong, ImageType.POST))
+				.isInstanceOf(RuntimeException.class);
+
+		// Rollback: imaginea scoasă din request rămâne, iar cea nouă nu are rând
+		assertThat(imageRepository.findByOwnerIdAndType(ownerId, ImageType.POST))
+				.extracting(Image::getId).containsExactly(gallery.get(0).getId());
+		// Paza comisă înainte de scriere rămâne, pentru fișierul nou și pentru originalul lui
+		List<ReclaimTask> guards = reclaimTaskRepository.findAll().stream()
+				.filter(task -> task.getPath().contains(ownerId.toString()) && task.getPath().endsWith("x".repeat(205) + ".jpg"))
+				.toList();
+		assertThat(guards).hasSize(2);
+		assertThat(guards).allSatisfy(task -> assertThat(task.getNextAttemptAt()).isAfter(before));
+		for (ReclaimTask guard : guards) {
+			assertThat(storageBackend.exists(guard.getPath())).isFalse();
+		}
+	}
+
+	@Test
+	void responseIsBuiltFromTheDiffWithoutReadingTheGalleryAgain() {
+		UUID ownerId = UUID.randomUUID();
+		List<ImageDto> gallery = imageService.uploadImages(files("a.jpg", "b.jpg", "c.jpg"), ownerId, ImageType.POST);
+		clearInvocations(imageRepository);
+
+		List<ImageDto> updated = imageService.updateImagesByOwnerId(ownerId, List.of(gallery.get(0), gallery.get(2)),
+				files("d.jpg"), ImageType.POST);
+
+		// O singură citire, cea din tranzacția care calculează diferența
+		verify(imageRepository, times(1)).findByOwnerIdAndType(ownerId, ImageType.POST);
+		assertThat(updated).hasSize(3);
+		assertThat(updated).extracting(ImageDto::getId)
+				.contains(gallery.get(0).getId(), gallery.get(2).getId())
+				.doesNotContain(gallery.get(1).getId());
+		assertThat(updated).extracting(image -> ImageFileNames.withoutUniquePrefix(image.getFileName()))
+				.containsExactlyInAnyOrder("a.jpg", "c.jpg", "d.jpg");
+		assertThat(imageRepository.findByOwnerIdAndType(ownerId, ImageType.POST))
+				.extracting(Image::getId)
+				.containsExactlyInAnyOrderElementsOf(updated.stream().map(ImageDto::getId).toList());
+	}
+
+	private static List<MultipartFile> files(String... names) {
+		return Arrays.stream(names)
+				.<MultipartFile>map(name -> new MockMultipartFile("images", name, "image/jpeg", name.getBytes()))
+				.toList();
+	}
+}
@@ -0,0 +1,191 @@
+package com.asusoftware.image_api.service;
+
+import com.asusoftware.image_api.config.ImageVariantProperties;
+import com.asusoftware.image_api.exception.ResourceNotFoundException;
+import com.asusoftware.image_api.exception.UploadRejectedException;
+import com.asusoftware.image_api.storage.StorageBackend;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ImageVariantServiceTests {
+
+	private static final String KEY = "posts/ab/cd/owner/photo.png";
+
+	@TempDir
+	private Path cacheDir;
+
+	private final ImageVariantProperties properties = new ImageVariantProperties();
+	private final StorageBackend storageBackend = mock(StorageBackend.class);
+	private ImageVariantService service;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		properties.setCacheDir(cacheDir.toString());
+		when(storageBackend.keyOf(anyString())).then(returnsFirstArg());
+		when(storageBackend.exists(anyString())).thenReturn(true);
+		byte[] png = png(2000, 1000);
+		when(storageBackend.open(anyString())).thenAnswer(invocation -> new ByteArrayInputStream(png));
+	}
+
+	@AfterEach
+	void tearDown() {
+		if (service != null) {
+			service.shutdown();
+		}
+	}
+
+	@Test
+	void requestedWidthIsRoundedUpToAConfiguredSize() throws IOException {
+		ImageVariantService service = service();
+
+		Path medium = service.getVariant(KEY, 300).orElseThrow();
+		Path large = service.getVariant(KEY, 5000).orElseThrow();
+
+		assertThat(medium).isEqualTo(cacheDir.resolve("640").resolve(KEY));
+		assertThat(ImageIO.read(medium.toFile()).getWidth()).isEqualTo(640);
+		assertThat(large).isEqualTo(cacheDir.resolve("1280").resolve(KEY));
+		assertThat(ImageIO.read(large.toFile()).getWidth()).isEqualTo(1280);
+	}
+
+	@Test
+	void cachedVariantIsServedWithoutReadingTheOriginalAgain() throws IOException {
+		ImageVariantService service = service();
+
+		Optional<Path> first = service.getVariant(KEY, 200);
+		Optional<Path> second = service.getVariant(KEY, 150);
+
+		assertThat(second).isPresent().isEqualTo(first);
+		verify(storageBackend, times(1)).open(KEY);
+	}
+
+	@Test
+	void concurrentRequestsForTheSameVariantGenerateItOnce() throws Exception {
+		CountDownLatch opened = new CountDownLatch(1);
+		CountDownLatch proceed = new CountDownLatch(1);
+		byte[] png = png(2000, 1000);
+		when(storageBackend.open(KEY)).thenAnswer(invocation -> {
+			opened.countDown();
+			proceed.await();
+			return new ByteArrayInputStream(png);
+		});
+		ImageVariantService service = service();
+
+		CompletableFuture<Optional<Path>> leader = CompletableFuture.supplyAsync(() -> service.getVariant(KEY, 640));
+		assertThat(opened.await(5, TimeUnit.SECONDS)).isTrue();
+		List<CompletableFuture<Optional<Path>>> followers = IntStream.range(0, 8)
+				.mapToObj(i -> CompletableFuture.supplyAsync(() -> service.getVariant(KEY, 640)))
+				.toList();
+		proceed.countDown();
+
+		Path variant = leader.get(10, TimeUnit.SECONDS).orElseThrow();
+		for (CompletableFuture<Optional<Path>> follower : followers) {
+			assertThat(follower.get(10, TimeUnit.SECONDS)).contains(variant);
+		}
+		verify(storageBackend, times(1)).open(KEY);
+	}
+
+	@Test
+	void sourceAboveThePixelLimitIsServedAsOriginal() {
+		properties.setMaxSourcePixels(1_000_000);
+
+		assertThat(service().getVariant(KEY, 200)).isEmpty();
+	}
+
+	@Test
+	void cachedVariantOfADeletedImageIsNotServed() throws IOException {
+		ImageVariantService service = service();
+		Path variant = service.getVariant(KEY, 200).orElseThrow();
+
+		when(storageBackend.exists(KEY)).thenReturn(false);
+
+		assertThatThrownBy(() -> service.getVariant(KEY, 200)).isInstanceOf(ResourceNotFoundException.class);
+		assertThat(variant).doesNotExist();
+	}
+
+	@Test
+	void evictRemovesEveryWidthOfTheImage() throws IOException {
+		ImageVariantService service = service();
+		Path small = service.getVariant(KEY, 200).orElseThrow();
+		Path medium = service.getVariant(KEY, 600).orElseThrow();
+
+		service.evict(KEY);
+
+		assertThat(small).doesNotExist();
+		assertThat(medium).doesNotExist();
+	}
+
+	@Test
+	void preservedOriginalsHaveNoPublicVariants() throws IOException {
+		ImageVariantService service = service();
+
+		assertThatThrownBy(() -> service.getVariant(ImageOptimizer.originalKey(KEY), 200))
+				.isInstanceOf(ResourceNotFoundException.class);
+		verify(storageBackend, times(0)).open(anyString());
+	}
+
+	@Test
+	void generationsAboveTheLimitAreRejectedWith503() throws Exception {
+		properties.setMaxConcurrentGenerations(1);
+		properties.setGenerationWait(Duration.ofMillis(50));
+		CountDownLatch opened = new CountDownLatch(1);
+		CountDownLatch proceed = new CountDownLatch(1);
+		byte[] png = png(2000, 1000);
+		when(storageBackend.open(KEY)).thenAnswer(invocation -> {
+			opened.countDown();
+			proceed.await();
+			return new ByteArrayInputStream(png);
+		});
+		ImageVariantService service = service();
+
+		CompletableFuture<Optional<Path>> busy = CompletableFuture.supplyAsync(() -> service.getVariant(KEY, 640));
+		assertThat(opened.await(5, TimeUnit.SECONDS)).isTrue();
+
+		assertThatThrownBy(() -> service.getVariant("posts/ab/cd/owner/other.png", 640))
+				.isInstanceOfSatisfying(UploadRejectedException.class, e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+		proceed.countDown();
+		assertThat(busy.get(10, TimeUnit.SECONDS)).isPresent();
+		assertThat(service.getVariant("posts/ab/cd/owner/other.png", 640)).isPresent();
+	}
+
+	private ImageVariantService service() {
+		service = new ImageVariantService(properties, storageBackend);
+		try {
+			service.init();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return service;
+	}
+
+	private static byte[] png(int width, int height) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out);
+		return out.toByteArray();
+	}
+}
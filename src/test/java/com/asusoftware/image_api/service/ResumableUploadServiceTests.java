@@ -0,0 +1,175 @@
+package com.asusoftware.image_api.service;
+
+import com.asusoftware.image_api.H2ApplicationTest;
+import com.asusoftware.image_api.exception.FileTooLargeException;
+import com.asusoftware.image_api.exception.InvalidRequestException;
+import com.asusoftware.image_api.exception.ResourceNotFoundException;
+import com.asusoftware.image_api.exception.UploadConflictException;
+import com.asusoftware.image_api.model.Image;
+import com.asusoftware.image_api.model.ImageType;
+import com.asusoftware.image_api.model.UploadSession;
+import com.asusoftware.image_api.model.dto.ImageDto;
+import com.asusoftware.image_api.repository.ImageRepository;
+import com.asusoftware.image_api.repository.UploadSessionRepository;
+import com.asusoftware.image_api.storage.StorageBackend;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@H2ApplicationTest
+class ResumableUploadServiceTests {
+
+	@Autowired
+	private ResumableUploadService resumableUploadService;
+
+	@Autowired
+	private UploadSessionRepository uploadSessionRepository;
+
+	@Autowired
+	private ImageRepository imageRepository;
+
+	@Autowired
+	private StorageBackend storageBackend;
+
+	@Value("${upload.resumable.dir}")
+	private Path sessionDir;
+
+	private final byte[] content = randomContent(10_000);
+
+	@Test
+	void chunkAtAnotherOffsetIsAConflict() {
+		UploadSession session = create("photo.jpg", null);
+
+		assertThatThrownBy(() -> resumableUploadService.append(session.getId(), 5, new ByteArrayInputStream(content)))
+				.isInstanceOf(UploadConflictException.class);
+		assertThat(resumableUploadService.get(session.getId()).getUploadOffset()).isZero();
+	}
+
+	@Test
+	void interruptedChunkKeepsItsBytesAndTheUploadResumesFromThem() throws IOException {
+		UploadSession session = create("photo.jpg", null);
+
+		long offset = resumableUploadService.append(session.getId(), 0, failingAfter(4000));
+		assertThat(offset).isEqualTo(4000);
+		assertThat(resumableUploadService.get(session.getId()).getUploadOffset()).isEqualTo(4000);
+
+		offset = resumableUploadService.append(session.getId(), offset, new ByteArrayInputStream(content, 4000, content.length - 4000));
+		assertThat(offset).isEqualTo(content.length);
+		ImageDto image = resumableUploadService.complete(session.getId());
+
+		Image saved = imageRepository.findById(image.getId()).orElseThrow();
+		try (InputStream stored = storageBackend.open(saved.getFilePath())) {
+			assertThat(stored.readAllBytes()).isEqualTo(content);
+		}
+		assertThat(uploadSessionRepository.existsById(session.getId())).isFalse();
+	}
+
+	@Test
+	void bytesBeyondTheDeclaredLengthAreRejectedWith413() {
+		UploadSession session = create("photo.jpg", null);
+		byte[] tooLong = Arrays.copyOf(content, content.length + 1);
+
+		assertThatThrownBy(() -> resumableUploadService.append(session.getId(), 0, new ByteArrayInputStream(tooLong)))
+				.isInstanceOf(FileTooLargeException.class);
+		assertThat(resumableUploadService.get(session.getId()).getUploadOffset()).isEqualTo(content.length);
+	}
+
+	@Test
+	void completionWithAnotherHashDiscardsTheSession() {
+		String otherHash = HexFormat.of().formatHex(new byte[32]);
+		UploadSession session = create("photo.jpg", otherHash);
+		resumableUploadService.append(session.getId(), 0, new ByteArrayInputStream(content));
+
+		assertThatThrownBy(() -> resumableUploadService.complete(session.getId())).isInstanceOf(InvalidRequestException.class);
+		assertThatThrownBy(() -> resumableUploadService.get(session.getId())).isInstanceOf(ResourceNotFoundException.class);
+		assertThat(workingFile(session)).doesNotExist();
+	}
+
+	@Test
+	void failedRegistrationRemovesTheSessionSoRetriesGet404() {
+		// Calea nu încape în images.file_path: fișierul ajunge în stocare, dar rândul nu se poate insera
+		UploadSession session = create("x".repeat(205) + ".jpg", null);
+		resumableUploadService.append(session.getId(), 0, new ByteArrayInputStream(content));
+
+		assertThatThrownBy(() -> resumableUploadService.complete(session.getId()))
+				.isInstanceOf(RuntimeException.class)
+				.isNotInstanceOf(ResourceNotFoundException.class);
+		assertThatThrownBy(() -> resumableUploadService.complete(session.getId())).isInstanceOf(ResourceNotFoundException.class);
+	}
+
+	@Test
+	void chunkRacingACancellationIs404() throws IOException {
+		UploadSession session = create("photo.jpg", null);
+		// Starea din mijlocul unei anulări: rândul încă vizibil, fișierul de lucru deja șters
+		Files.delete(workingFile(session));
+
+		assertThatThrownBy(() -> resumableUploadService.append(session.getId(), 0, new ByteArrayInputStream(content)))
+				.isInstanceOf(ResourceNotFoundException.class);
+	}
+
+	@Test
+	void abandonedSessionsExpireWithTheirFiles() {
+		UploadSession session = create("photo.jpg", null);
+		UploadSession stored = uploadSessionRepository.findById(session.getId()).orElseThrow();
+		stored.setExpiresAt(Instant.now().minusSeconds(1));
+		uploadSessionRepository.save(stored);
+
+		assertThatThrownBy(() -> resumableUploadService.get(session.getId())).isInstanceOf(ResourceNotFoundException.class);
+		resumableUploadService.expireSessions();
+
+		assertThat(uploadSessionRepository.existsById(session.getId())).isFalse();
+		assertThat(workingFile(session)).doesNotExist();
+	}
+
+	private UploadSession create(String filename, String sha256) {
+		return resumableUploadService.create(UUID.randomUUID(), ImageType.POST, filename, content.length, sha256);
+	}
+
+	private Path workingFile(UploadSession session) {
+		return sessionDir.resolve(session.getId() + ".upload");
+	}
+
+	// Conexiunea cade după primii {@code bytes} bytes
+	private InputStream failingAfter(int bytes) {
+		return new InputStream() {
+			private int position;
+
+			@Override
+			public int read() throws IOException {
+				byte[] single = new byte[1];
+				return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+			}
+
+			@Override
+			public int read(byte[] buffer, int offset, int length) throws IOException {
+				if (position >= bytes) {
+					throw new IOException("Connection reset");
+				}
+				int count = Math.min(length, bytes - position);
+				System.arraycopy(content, position, buffer, offset, count);
+				position += count;
+				return count;
+			}
+		};
+	}
+
+	private static byte[] randomContent(int size) {
+		byte[] bytes = new byte[size];
+		ThreadLocalRandom.current().nextBytes(bytes);
+		return bytes;
+	}
+}
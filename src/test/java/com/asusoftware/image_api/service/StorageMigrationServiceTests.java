@@ -0,0 +1,109 @@
+package com.asusoftware.image_api.service;
+
+import com.asusoftware.image_api.H2ApplicationTest;
+import com.asusoftware.image_api.model.Image;
+import com.asusoftware.image_api.model.ImageType;
+import com.asusoftware.image_api.model.ReclaimTask;
+import com.asusoftware.image_api.repository.ImageRepository;
+import com.asusoftware.image_api.repository.ReclaimTaskRepository;
+import com.asusoftware.image_api.storage.StorageBackend;
+import com.asusoftware.image_api.storage.StorageLayout;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.UUID;
+
+import static com.asusoftware.image_api.model.ImageFixtures.image;
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Baza proprie: migrarea parcurge toate rândurile, inclusiv pe ale celorlalte teste
+@H2ApplicationTest
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:storage-migration;MODE=PostgreSQL;DB_CLOSE_DELAY=-1")
+class StorageMigrationServiceTests {
+
+	@Autowired
+	private StorageMigrationService storageMigrationService;
+
+	@Autowired
+	private ImageRepository imageRepository;
+
+	@Autowired
+	private ReclaimTaskRepository reclaimTaskRepository;
+
+	@Autowired
+	private StorageBackend storageBackend;
+
+	@Autowired
+	private StorageLayout storageLayout;
+
+	@Test
+	void originalIsRelocatedTogetherWithItsFile() throws Exception {
+		UUID ownerId = UUID.randomUUID();
+		String fileName = UUID.randomUUID() + "_photo.jpg";
+		String oldKey = "posts/old-layout/" + ownerId + "/" + fileName;
+		write(oldKey, "optimized");
+		write(ImageOptimizer.originalKey(oldKey), "original");
+		Image image = image(ownerId, ImageType.POST, oldKey);
+		image.setOriginalPath(ImageOptimizer.originalKey(oldKey));
+		imageRepository.saveAndFlush(image);
+
+		migrate();
+
+		String newKey = storageLayout.fileKey(ImageType.POST, ownerId, fileName);
+		Image migrated = imageRepository.findById(image.getId()).orElseThrow();
+		assertThat(migrated.getFilePath()).isEqualTo(newKey);
+		assertThat(migrated.getOriginalPath()).isEqualTo(ImageOptimizer.originalKey(newKey));
+		assertThat(read(migrated.getFilePath())).isEqualTo("optimized");
+		assertThat(read(migrated.getOriginalPath())).isEqualTo("original");
+		// Vechile căi se șterg după perioada de grație, amândouă
+		assertThat(reclaimTaskRepository.findAll()).filteredOn(task -> task.getNextAttemptAt().isAfter(Instant.now()))
+				.extracting(ReclaimTask::getPath)
+				.contains(oldKey, ImageOptimizer.originalKey(oldKey));
+	}
+
+	@Test
+	void originalOfADedupedImageIsRelocatedWhileTheBlobStays() throws Exception {
+		UUID ownerId = UUID.randomUUID();
+		String fileName = UUID.randomUUID() + "_photo.jpg";
+		String blobKey = "blobs/ab/cd/" + UUID.randomUUID() + ".jpg";
+		String oldOriginal = ImageOptimizer.originalKey("posts/old-layout/" + ownerId + "/" + fileName);
+		write(oldOriginal, "original");
+		Image image = image(ownerId, ImageType.POST, blobKey);
+		image.setFileName(fileName);
+		image.setContentHash("a".repeat(64));
+		image.setOriginalPath(oldOriginal);
+		imageRepository.saveAndFlush(image);
+
+		migrate();
+
+		Image migrated = imageRepository.findById(image.getId()).orElseThrow();
+		assertThat(migrated.getFilePath()).isEqualTo(blobKey);
+		assertThat(migrated.getFileUrl()).isEqualTo(image.getFileUrl());
+		assertThat(migrated.getOriginalPath())
+				.isEqualTo(ImageOptimizer.originalKey(storageLayout.fileKey(ImageType.POST, ownerId, fileName)));
+		assertThat(read(migrated.getOriginalPath())).isEqualTo("original");
+	}
+
+	private void migrate() throws InterruptedException {
+		assertThat(storageMigrationService.start(null)).isTrue();
+		for (int i = 0; i < 100 && storageMigrationService.status().running(); i++) {
+			Thread.sleep(50);
+		}
+		assertThat(storageMigrationService.status().running()).isFalse();
+	}
+
+	private void write(String key, String content) throws IOException {
+		storageBackend.write(key, new ByteArrayInputStream(content.getBytes()), 1024);
+	}
+
+	private String read(String key) throws IOException {
+		try (InputStream content = storageBackend.open(key)) {
+			return new String(content.readAllBytes());
+		}
+	}
+}
@@ -0,0 +1,202 @@
+package com.asusoftware.image_api.service;
+
+import com.asusoftware.image_api.H2ApplicationTest;
+import com.asusoftware.image_api.model.Image;
+import com.asusoftware.image_api.model.ImageBlob;
+import com.asusoftware.image_api.model.ImageType;
+import com.asusoftware.image_api.model.ReconciliationCheckpoint;
+import com.asusoftware.image_api.repository.ImageBlobRepository;
+import com.asusoftware.image_api.repository.ImageRepository;
+import com.asusoftware.image_api.repository.ReclaimTaskRepository;
+import com.asusoftware.image_api.repository.ReconciliationCheckpointRepository;
+import com.asusoftware.image_api.storage.LocalStorageBackend;
+import com.asusoftware.image_api.storage.StorageBackend;
+import com.asusoftware.image_api.storage.StorageLayout;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static com.asusoftware.image_api.model.ImageFixtures.image;
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Reconcilierea parcurge toate rândurile și fișierele, deci are baza de date și directorul ei
+@H2ApplicationTest
+@TestPropertySource(properties = {
+		"spring.datasource.url=jdbc:h2:mem:reconciliation;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+		"upload.dir=target/test-storage/reconciliation/uploads"
+})
+class StorageReconciliationServiceTests {
+
+	@Autowired
+	private StorageReconciliationService reconciliationService;
+
+	@Autowired
+	private ImageRepository imageRepository;
+
+	@Autowired
+	private ImageBlobRepository imageBlobRepository;
+
+	@Autowired
+	private ReclaimTaskRepository reclaimTaskRepository;
+
+	@Autowired
+	private ReconciliationCheckpointRepository checkpointRepository;
+
+	@Autowired
+	private FileReclaimer fileReclaimer;
+
+	@Autowired
+	private StorageBackend storageBackend;
+
+	@Autowired
+	private StorageLayout storageLayout;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	private Object gracePeriod;
+	private Object maxDeletedRows;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		gracePeriod = ReflectionTestUtils.getField(reconciliationService, "gracePeriod");
+		maxDeletedRows = ReflectionTestUtils.getField(reconciliationService, "maxDeletedRows");
+		imageRepository.deleteAllInBatch();
+		imageBlobRepository.deleteAllInBatch();
+		reclaimTaskRepository.deleteAllInBatch();
+		checkpointRepository.deleteAllInBatch();
+		FileSystemUtils.deleteRecursively(((LocalStorageBackend) storageBackend).root());
+	}
+
+	@AfterEach
+	void tearDown() {
+		ReflectionTestUtils.setField(reconciliationService, "gracePeriod", gracePeriod);
+		ReflectionTestUtils.setField(reconciliationService, "maxDeletedRows", maxDeletedRows);
+	}
+
+	@Test
+	void freshFilesAndScheduledDeletionsAreNotOrphans() throws IOException, InterruptedException {
+		UUID ownerId = UUID.randomUUID();
+		String kept = write(ownerId, "kept.jpg");
+		String orphan = write(ownerId, "orphan.jpg");
+		String scheduled = write(ownerId, "scheduled.jpg");
+		imageRepository.save(image(ownerId, ImageType.POST, kept));
+		transactionTemplate.executeWithoutResult(status -> fileReclaimer.enqueue(scheduled, Duration.ofDays(7)));
+
+		// Fișierele tocmai scrise sunt în perioada de grație
+		assertThat(reconcile(false, false).orphanFiles()).isZero();
+
+		ReflectionTestUtils.setField(reconciliationService, "gracePeriod", Duration.ofSeconds(-5));
+		StorageReconciliationService.Status report = reconcile(false, false);
+		assertThat(report.filesScanned()).isEqualTo(3);
+		assertThat(report.orphanFiles()).isEqualTo(1);
+		assertThat(reclaimTaskRepository.findScheduledPaths(List.of(orphan))).isEmpty();
+
+		assertThat(reconcile(true, false).repaired()).isEqualTo(1);
+		assertThat(reclaimTaskRepository.findScheduledPaths(List.of(kept, orphan, scheduled)))
+				.containsExactlyInAnyOrder(orphan, scheduled);
+	}
+
+	@Test
+	void repairDeletesRowsWithoutFileAndReleasesTheirReferences() throws IOException, InterruptedException {
+		UUID ownerId = UUID.randomUUID();
+		String hash = "a".repeat(64);
+		String blobKey = "blobs/aa/aa/" + hash + "-0000000.jpg";
+		ImageBlob blob = new ImageBlob();
+		blob.setHash(hash);
+		blob.setFilePath(blobKey);
+		blob.setSizeBytes(100);
+		blob.setRefCount(1);
+		imageBlobRepository.save(blob);
+		Image deduplicated = image(ownerId, ImageType.POST, blobKey);
+		deduplicated.setContentHash(hash);
+		Image withOriginal = image(ownerId, ImageType.POST, storageLayout.fileKey(ImageType.POST, ownerId, "missing.jpg"));
+		String original = write(ownerId, "originals/missing.jpg");
+		withOriginal.setOriginalPath(original);
+		Image intact = image(ownerId, ImageType.POST, write(ownerId, "intact.jpg"));
+		imageRepository.saveAll(List.of(deduplicated, withOriginal, intact));
+
+		StorageReconciliationService.Status result = reconcile(true, false);
+
+		assertThat(result.missingFiles()).isEqualTo(2);
+		assertThat(imageRepository.findAll()).extracting(Image::getId).containsExactly(intact.getId());
+		assertThat(imageBlobRepository.findById(hash)).isEmpty();
+		assertThat(reclaimTaskRepository.findScheduledPaths(List.of(blobKey, original, intact.getFilePath())))
+				.containsExactlyInAnyOrder(blobKey, original);
+		// Un rând mutat între citire și reparare nu se șterge
+		Integer deleted = transactionTemplate.execute(status -> imageRepository.deleteIfPathUnchanged(intact.getId(), "posts/stale.jpg"));
+		assertThat(deleted).isZero();
+	}
+
+	@Test
+	void rowDeletionStopsAtTheConfiguredCap() throws InterruptedException {
+		ReflectionTestUtils.setField(reconciliationService, "maxDeletedRows", 2L);
+		UUID ownerId = UUID.randomUUID();
+		for (int i = 0; i < 5; i++) {
+			imageRepository.save(image(ownerId, ImageType.POST, storageLayout.fileKey(ImageType.POST, ownerId, "missing" + i + ".jpg")));
+		}
+
+		StorageReconciliationService.Status result = reconcile(true, false);
+
+		assertThat(result.missingFiles()).isEqualTo(5);
+		assertThat(result.repaired()).isEqualTo(2);
+		assertThat(imageRepository.count()).isEqualTo(3);
+	}
+
+	@Test
+	void interruptedRunResumesFromItsCheckpoint() throws InterruptedException {
+		UUID ownerId = UUID.randomUUID();
+		for (int i = 0; i < 4; i++) {
+			imageRepository.save(image(ownerId, ImageType.POST, storageLayout.fileKey(ImageType.POST, ownerId, "missing" + i + ".jpg")));
+		}
+		// Ordinea din DB, cea în care se parcurg rândurile
+		List<Image> rows = imageRepository.findAllAfter(new UUID(0L, 0L), PageRequest.of(0, 10));
+		ReconciliationCheckpoint checkpoint = new ReconciliationCheckpoint();
+		checkpoint.setName("storage");
+		checkpoint.setPhase(StorageReconciliationService.Phase.ROWS.name());
+		checkpoint.setPosition(rows.get(1).getId().toString());
+		checkpoint.setStartedAt(Instant.now());
+		checkpoint.setUpdatedAt(Instant.now());
+		checkpointRepository.save(checkpoint);
+
+		StorageReconciliationService.Status resumed = reconcile(false, true);
+
+		assertThat(resumed.filesScanned()).isZero();
+		assertThat(resumed.rowsScanned()).isEqualTo(2);
+		assertThat(resumed.missingFiles()).isEqualTo(2);
+		assertThat(checkpointRepository.count()).isZero();
+		// Rularea terminată nu lasă checkpoint: următoarea o ia de la capăt
+		assertThat(reconcile(false, true).rowsScanned()).isEqualTo(4);
+	}
+
+	private StorageReconciliationService.Status reconcile(boolean repair, boolean resume) throws InterruptedException {
+		assertThat(reconciliationService.start(repair, resume)).isTrue();
+		long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+		while (reconciliationService.status().running()) {
+			assertThat(System.nanoTime()).as("reconciliation finished in time").isLessThan(deadline);
+			Thread.sleep(20);
+		}
+		StorageReconciliationService.Status status = reconciliationService.status();
+		assertThat(status.failed()).as("failures: %s", status.lastError()).isZero();
+		assertThat(status.lastError()).isNull();
+		return status;
+	}
+
+	private String write(UUID ownerId, String fileName) throws IOException {
+		byte[] content = fileName.getBytes();
+		return storageBackend.write(storageLayout.fileKey(ImageType.POST, ownerId, fileName), new ByteArrayInputStream(content), content.length).key();
+	}
+}
@@ -0,0 +1,172 @@
+package com.asusoftware.image_api.service;
+
+import com.asusoftware.image_api.config.UploadAdmissionProperties;
+import com.asusoftware.image_api.exception.InvalidRequestException;
+import com.asusoftware.image_api.exception.UploadRejectedException;
+import com.asusoftware.image_api.storage.StorageBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UploadAdmissionTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	void ownerOverItsConcurrencyGets429WhileOthersAreStillAdmitted() throws IOException {
+		UploadAdmissionProperties properties = new UploadAdmissionProperties();
+		properties.setMaxConcurrentPerOwner(1);
+		UploadAdmission admission = admission(properties, Long.MAX_VALUE);
+		UUID busyOwner = UUID.randomUUID();
+
+		UploadAdmission.Permit first = admission.admit(busyOwner, 100);
+
+		assertThatThrownBy(() -> admission.admit(busyOwner, 100))
+				.isInstanceOfSatisfying(UploadRejectedException.class, e -> {
+					assertThat(e.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+					assertThat(e.getRetryAfterSeconds()).isPositive();
+				});
+		admission.admit(UUID.randomUUID(), 100).close();
+		first.close();
+		admission.admit(busyOwner, 100).close();
+		assertThat(meterRegistry.get("image.admission.rejected").tag("reason", "owner_concurrency").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void globalLimitsAnswer503AndReleaseTheirPermits() throws IOException {
+		UploadAdmissionProperties properties = new UploadAdmissionProperties();
+		properties.setMaxConcurrent(1);
+		properties.setMaxBytesPerSecond(DataSize.ofMegabytes(1));
+		properties.setMaxBytesPerSecondPerOwner(DataSize.ofBytes(0));
+		UploadAdmission admission = admission(properties, Long.MAX_VALUE);
+
+		UploadAdmission.Permit held = admission.admit(null, 100);
+		assertThatThrownBy(() -> admission.admit(null, 100))
+				.isInstanceOfSatisfying(UploadRejectedException.class, e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+		held.close();
+
+		// 10MB la 1MB/s cu o rafală de 2s: următoarea cerere trebuie să aștepte ~8s
+		admission.admit(null, DataSize.ofMegabytes(10).toBytes()).close();
+		assertThatThrownBy(() -> admission.admit(null, 100))
+				.isInstanceOfSatisfying(UploadRejectedException.class, e -> {
+					assertThat(e.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+					assertThat(e.getRetryAfterSeconds()).isBetween(7L, 8L);
+				});
+	}
+
+	@Test
+	void uploadsAreRefusedBeforeTheDiskFillsUp() throws IOException {
+		UploadAdmission admission = admission(new UploadAdmissionProperties(), DataSize.ofMegabytes(10).toBytes());
+
+		assertThatThrownBy(() -> admission.admit(UUID.randomUUID(), 100))
+				.isInstanceOfSatisfying(UploadRejectedException.class, e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+	}
+
+	@Test
+	void ownerKnownOnlyAfterParsingIsHeldToItsLimits() throws IOException {
+		UploadAdmissionProperties properties = new UploadAdmissionProperties();
+		properties.setMaxConcurrentPerOwner(1);
+		UploadAdmission admission = admission(properties, Long.MAX_VALUE);
+		UUID ownerId = UUID.randomUUID();
+
+		UploadAdmission.Permit first = admission.admit(null, 100);
+		first.bindOwner(ownerId);
+		UploadAdmission.Permit second = admission.admit(null, 100);
+
+		assertThatThrownBy(() -> second.bindOwner(ownerId))
+				.isInstanceOfSatisfying(UploadRejectedException.class, e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS));
+		second.close();
+		first.close();
+		UploadAdmission.Permit third = admission.admit(null, 100);
+		third.bindOwner(ownerId);
+		third.close();
+	}
+
+	@Test
+	void ownerFromTheUrlCannotBeReplacedByTheOneInTheBody() throws IOException {
+		UploadAdmission admission = admission(new UploadAdmissionProperties(), Long.MAX_VALUE);
+		UUID ownerId = UUID.randomUUID();
+
+		UploadAdmission.Permit permit = admission.admit(ownerId, 100);
+		permit.bindOwner(ownerId);
+
+		assertThatThrownBy(() -> permit.bindOwner(UUID.randomUUID()))
+				.isInstanceOf(InvalidRequestException.class);
+		permit.close();
+	}
+
+	@Test
+	void concurrentRequestsCannotAllPassTheGlobalRateCheck() throws Exception {
+		UploadAdmissionProperties properties = new UploadAdmissionProperties();
+		properties.setMaxBytesPerSecond(DataSize.ofMegabytes(1));
+		properties.setMaxBytesPerSecondPerOwner(DataSize.ofBytes(0));
+		UploadAdmission admission = admission(properties, Long.MAX_VALUE);
+
+		// Fiecare cerere consumă 10s din debit, peste rafala de 2s: doar una poate trece
+		int threads = 16;
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicInteger admitted = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<?>> requests = new ArrayList<>();
+			for (int i = 0; i < threads; i++) {
+				requests.add(executor.submit(() -> {
+					start.await();
+					try (UploadAdmission.Permit permit = admission.admit(null, DataSize.ofMegabytes(10).toBytes())) {
+						admitted.incrementAndGet();
+					} catch (UploadRejectedException e) {
+						// Respinsă de limita de debit
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> request : requests) {
+				request.get(10, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertThat(admitted).hasValue(1);
+	}
+
+	@Test
+	void requestRejectedForItsOwnerDoesNotConsumeTheGlobalRate() throws IOException {
+		UploadAdmissionProperties properties = new UploadAdmissionProperties();
+		properties.setMaxConcurrentPerOwner(1);
+		properties.setMaxBytesPerSecond(DataSize.ofMegabytes(1));
+		properties.setMaxBytesPerSecondPerOwner(DataSize.ofBytes(0));
+		UploadAdmission admission = admission(properties, Long.MAX_VALUE);
+		UUID busyOwner = UUID.randomUUID();
+
+		UploadAdmission.Permit held = admission.admit(busyOwner, 100);
+		assertThatThrownBy(() -> admission.admit(busyOwner, DataSize.ofMegabytes(10).toBytes()))
+				.isInstanceOfSatisfying(UploadRejectedException.class, e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS));
+
+		admission.admit(UUID.randomUUID(), DataSize.ofMegabytes(10).toBytes()).close();
+		held.close();
+	}
+
+	private UploadAdmission admission(UploadAdmissionProperties properties, long usableSpace) throws IOException {
+		StorageBackend storageBackend = mock(StorageBackend.class);
+		when(storageBackend.usableSpace()).thenReturn(usableSpace);
+		return new UploadAdmission(properties, storageBackend, meterRegistry);
+	}
+}
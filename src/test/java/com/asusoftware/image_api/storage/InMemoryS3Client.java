@@ -0,0 +1,142 @@
+package com.asusoftware.image_api.storage;
+
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * S3 în memorie, pentru teste fără rețea: un singur bucket, doar operațiile folosite de S3StorageBackend.
+ * Numără cererile și părțile încărcate simultan, ca testele să poată verifica paralelismul.
+ */
+class InMemoryS3Client implements S3Client {
+
+	final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+	final Map<String, Map<Integer, byte[]>> multipartUploads = new ConcurrentHashMap<>();
+
+	final AtomicInteger putRequests = new AtomicInteger();
+	final AtomicInteger partRequests = new AtomicInteger();
+	final AtomicInteger maxPartsInFlight = new AtomicInteger();
+	private final AtomicInteger partsInFlight = new AtomicInteger();
+
+	// Întârziere artificială pe parte, ca transferurile paralele să se suprapună
+	volatile long partDelayMillis;
+
+	@Override
+	public PutObjectResponse putObject(PutObjectRequest request, RequestBody body) {
+		putRequests.incrementAndGet();
+		objects.put(request.key(), read(body));
+		return PutObjectResponse.builder().build();
+	}
+
+	@Override
+	public CreateMultipartUploadResponse createMultipartUpload(CreateMultipartUploadRequest request) {
+		String uploadId = UUID.randomUUID().toString();
+		multipartUploads.put(uploadId, new ConcurrentSkipListMap<>());
+		return CreateMultipartUploadResponse.builder().uploadId(uploadId).key(request.key()).build();
+	}
+
+	@Override
+	public UploadPartResponse uploadPart(UploadPartRequest request, RequestBody body) {
+		partRequests.incrementAndGet();
+		maxPartsInFlight.accumulateAndGet(partsInFlight.incrementAndGet(), Math::max);
+		try {
+			Thread.sleep(partDelayMillis);
+			byte[] content = read(body);
+			upload(request.uploadId()).put(request.partNumber(), content);
+			return UploadPartResponse.builder().eTag("etag-" + request.partNumber()).build();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} finally {
+			partsInFlight.decrementAndGet();
+		}
+	}
+
+	@Override
+	public CompleteMultipartUploadResponse completeMultipartUpload(CompleteMultipartUploadRequest request) {
+		Map<Integer, byte[]> parts = multipartUploads.remove(request.uploadId());
+		if (parts == null || parts.size() != request.multipartUpload().parts().size()) {
+			throw S3Exception.builder().statusCode(400).message("InvalidPart").build();
+		}
+		ByteArrayOutputStream content = new ByteArrayOutputStream();
+		request.multipartUpload().parts().forEach(part -> content.writeBytes(parts.get(part.partNumber())));
+		objects.put(request.key(), content.toByteArray());
+		return CompleteMultipartUploadResponse.builder().key(request.key()).build();
+	}
+
+	@Override
+	public AbortMultipartUploadResponse abortMultipartUpload(AbortMultipartUploadRequest request) {
+		multipartUploads.remove(request.uploadId());
+		return AbortMultipartUploadResponse.builder().build();
+	}
+
+	@Override
+	public HeadObjectResponse headObject(HeadObjectRequest request) {
+		return HeadObjectResponse.builder().contentLength((long) object(request.key()).length).build();
+	}
+
+	@Override
+	public ResponseInputStream<GetObjectResponse> getObject(GetObjectRequest request) {
+		byte[] content = object(request.key());
+		return new ResponseInputStream<>(GetObjectResponse.builder().contentLength((long) content.length).build(),
+				AbortableInputStream.create(new ByteArrayInputStream(content)));
+	}
+
+	@Override
+	public CopyObjectResponse copyObject(CopyObjectRequest request) {
+		objects.put(request.destinationKey(), object(request.sourceKey()).clone());
+		return CopyObjectResponse.builder().build();
+	}
+
+	@Override
+	public DeleteObjectResponse deleteObject(DeleteObjectRequest request) {
+		objects.remove(request.key());
+		return DeleteObjectResponse.builder().build();
+	}
+
+	@Override
+	public String serviceName() {
+		return SERVICE_NAME;
+	}
+
+	@Override
+	public void close() {
+	}
+
+	private byte[] object(String key) {
+		byte[] content = objects.get(key);
+		if (content == null) {
+			throw NoSuchKeyException.builder().statusCode(404).message("NoSuchKey: " + key).build();
+		}
+		return content;
+	}
+
+	private Map<Integer, byte[]> upload(String uploadId) {
+		Map<Integer, byte[]> parts = multipartUploads.get(uploadId);
+		if (parts == null) {
+			throw NoSuchUploadException.builder().statusCode(404).message("NoSuchUpload: " + uploadId).build();
+		}
+		return parts;
+	}
+
+	private static byte[] read(RequestBody body) {
+		try (InputStream in = body.contentStreamProvider().newStream()) {
+			return in.readAllBytes();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
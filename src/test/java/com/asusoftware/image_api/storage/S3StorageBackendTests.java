@@ -0,0 +1,168 @@
+package com.asusoftware.image_api.storage;
+
+import com.asusoftware.image_api.config.S3StorageProperties;
+import com.asusoftware.image_api.exception.FileTooLargeException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.NoSuchFileException;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class S3StorageBackendTests {
+
+	private static final int MB = 1024 * 1024;
+
+	private InMemoryS3Client s3Client;
+	private S3Presigner s3Presigner;
+	private S3StorageBackend backend;
+
+	@BeforeEach
+	void setUp() {
+		S3StorageProperties properties = new S3StorageProperties();
+		properties.setBucket("images");
+		properties.setPartSize(DataSize.ofMegabytes(5));
+		properties.setUploadConcurrency(4);
+
+		s3Client = new InMemoryS3Client();
+		s3Presigner = S3Presigner.builder()
+				.region(Region.US_EAST_1)
+				.endpointOverride(URI.create("http://localhost:9000"))
+				.serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(true).build())
+				.credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("key", "secret")))
+				.build();
+		backend = new S3StorageBackend(s3Client, s3Presigner, properties);
+	}
+
+	@AfterEach
+	void tearDown() {
+		backend.shutdown();
+		s3Presigner.close();
+	}
+
+	@Test
+	void smallFileIsStoredWithASinglePut() throws Exception {
+		byte[] content = content(64 * 1024);
+
+		StoredFile stored = backend.write("posts/ab/cd/owner/a.jpg", new ByteArrayInputStream(content), 10 * MB);
+
+		assertThat(stored.size()).isEqualTo(content.length);
+		assertThat(stored.sha256()).isEqualTo(sha256(content));
+		assertThat(s3Client.putRequests).hasValue(1);
+		assertThat(s3Client.partRequests).hasValue(0);
+		try (InputStream in = backend.open("posts/ab/cd/owner/a.jpg")) {
+			assertThat(in.readAllBytes()).isEqualTo(content);
+		}
+	}
+
+	@Test
+	void largeFileIsUploadedAsMultipartWithPartsInParallel() throws Exception {
+		s3Client.partDelayMillis = 100;
+		byte[] content = content(17 * MB);
+
+		StoredFile stored = backend.write("posts/ab/cd/owner/b.jpg", new ByteArrayInputStream(content), 20 * MB);
+
+		assertThat(stored.size()).isEqualTo(content.length);
+		assertThat(stored.sha256()).isEqualTo(sha256(content));
+		assertThat(s3Client.partRequests).hasValue(4);
+		assertThat(s3Client.maxPartsInFlight.get()).isGreaterThan(1);
+		assertThat(s3Client.objects.get("posts/ab/cd/owner/b.jpg")).isEqualTo(content);
+		assertThat(s3Client.multipartUploads).isEmpty();
+	}
+
+	@Test
+	void firstPartBufferGrowsOnlyAsFarAsTheContent() throws Exception {
+		int partSize = 5 * MB;
+
+		S3StorageBackend.Part small = S3StorageBackend.readFirstPart(new ByteArrayInputStream(content(10_000)), partSize, 10 * MB);
+		S3StorageBackend.Part medium = S3StorageBackend.readFirstPart(new ByteArrayInputStream(content(200 * 1024)), partSize, 10 * MB);
+		S3StorageBackend.Part large = S3StorageBackend.readFirstPart(new ByteArrayInputStream(content(6 * MB)), partSize, 10 * MB);
+
+		assertThat(small.buffer()).hasSize(S3StorageBackend.INITIAL_BUFFER_SIZE);
+		assertThat(small.length()).isEqualTo(10_000);
+		assertThat(medium.buffer()).hasSize(256 * 1024);
+		assertThat(medium.length()).isEqualTo(200 * 1024);
+		assertThat(large.buffer()).hasSize(partSize);
+		assertThat(large.length()).isEqualTo(partSize);
+	}
+
+	@Test
+	void filesAroundTheBufferBoundariesAreStoredIntact() throws Exception {
+		int[] sizes = {0, S3StorageBackend.INITIAL_BUFFER_SIZE, S3StorageBackend.INITIAL_BUFFER_SIZE + 1, 5 * MB - 1, 5 * MB, 5 * MB + 1};
+		for (int size : sizes) {
+			byte[] content = content(size);
+			String key = "posts/ab/cd/owner/" + size + ".jpg";
+
+			StoredFile stored = backend.write(key, new ByteArrayInputStream(content), 10 * MB);
+
+			assertThat(stored.size()).as("size of %d-byte file", size).isEqualTo(size);
+			assertThat(stored.sha256()).as("hash of %d-byte file", size).isEqualTo(sha256(content));
+			assertThat(s3Client.objects.get(key)).as("content of %d-byte file", size).isEqualTo(content);
+		}
+		// Doar fișierele de cel puțin o parte trec prin multipart: 5MB (o parte) și 5MB + 1 (două)
+		assertThat(s3Client.putRequests).hasValue(4);
+		assertThat(s3Client.partRequests).hasValue(3);
+		assertThat(s3Client.multipartUploads).isEmpty();
+	}
+
+	@Test
+	void oversizedUploadIsAbortedWithoutLeavingPartsOrObjects() {
+		byte[] content = content(12 * MB);
+
+		assertThatThrownBy(() -> backend.write("posts/ab/cd/owner/c.jpg", new ByteArrayInputStream(content), 7 * MB))
+				.isInstanceOf(FileTooLargeException.class);
+
+		assertThat(s3Client.objects).isEmpty();
+		assertThat(s3Client.multipartUploads).isEmpty();
+	}
+
+	@Test
+	void copyMoveAndDeleteFollowTheStorageContract() throws Exception {
+		backend.write("posts/a.jpg", new ByteArrayInputStream(content(100)), MB);
+		backend.write("posts/b.jpg", new ByteArrayInputStream(content(200)), MB);
+
+		assertThatThrownBy(() -> backend.copy("posts/a.jpg", "posts/b.jpg")).isInstanceOf(FileAlreadyExistsException.class);
+		backend.move("posts/a.jpg", "posts/c.jpg");
+
+		assertThat(backend.exists("posts/a.jpg")).isFalse();
+		assertThat(backend.exists("posts/c.jpg")).isTrue();
+		assertThat(backend.delete("posts/c.jpg")).isEqualTo(100);
+		assertThat(backend.delete("posts/c.jpg")).isZero();
+		assertThatThrownBy(() -> backend.open("posts/c.jpg")).isInstanceOf(NoSuchFileException.class);
+	}
+
+	@Test
+	void presignedUrlPointsAtTheKeyAndKeysCannotEscapeTheirPrefix() {
+		URI url = backend.presignedUrl("posts/ab/cd/owner/a.jpg");
+
+		assertThat(url.getPath()).isEqualTo("/images/posts/ab/cd/owner/a.jpg");
+		assertThat(url.getQuery()).contains("X-Amz-Signature=", "X-Amz-Expires=600");
+		assertThatThrownBy(() -> backend.keyOf("posts/../users/a.jpg")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> backend.keyOf("/posts/a.jpg")).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static byte[] content(int size) {
+		byte[] content = new byte[size];
+		new Random(size).nextBytes(content);
+		return content;
+	}
+
+	private static String sha256(byte[] content) throws Exception {
+		return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+	}
+}